@@ -0,0 +1,478 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.buffer;
+
+import io.fusion.air.microservice.adapters.cache.ProductQueryCache;
+import io.fusion.air.microservice.adapters.outbox.ProductOutbox;
+import io.fusion.air.microservice.domain.entities.core.AuditLog;
+import io.fusion.air.microservice.server.cache.TwoTierCache;
+import io.fusion.air.microservice.server.cache.TwoTierCacheManager;
+import io.fusion.air.microservice.server.config.CacheConfig;
+import io.fusion.air.microservice.server.config.ServiceConfiguration;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Product Price Buffer - Write Behind for the High Frequency Price Updates
+ *
+ * Price Updates are Coalesced per Product (Last Writer Wins) and the Caller updates the Price
+ * Index and the Cached Product immediately. Every Flush Interval the Latest Price of every
+ * Product is written with JDBC Batched Updates (Version is Incremented) and the Price Changed
+ * Events are written to the Outbox in the same Transaction. After the Commit the Catalog Version
+ * is Bumped (Query Caches & Catalog ETags) and the Products are Evicted from the Cache (unless
+ * updated again) so that the next Read returns the new Version.
+ *
+ * Synchronous Updates of the Price (Update, Bulk Update, Delete) Discard the Pending Update. If
+ * the Update is being written (In Flight) the Discard waits for the Flush to complete, so the
+ * Synchronous Update is always the Last Writer. The Flush writes the Price only if the Product
+ * is NOT updated after the buffered Update (updatedTime), which protects the Updates from the
+ * other Nodes.
+ *
+ * Failed Flushes are Re-Queued (a Newer Price wins). On Shutdown (after the Web Server stops)
+ * the Buffer is Drained; after that the Updates are NOT buffered (Synchronous Update).
+ *
+ * Metrics = product.price.buffer.pending, product.price.buffer.lag (Age of the Oldest Update
+ * in Milli Seconds), product.price.buffer.updates (result = buffered | coalesced | written |
+ * failed) and product.price.buffer.flush (Timer).
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@Component
+public class ProductPriceBuffer implements SmartLifecycle {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private static final String UPDATE_SQL = "UPDATE products_m SET price = ?, version = version + 1, "
+            + "updatedBy = ?, updatedTime = ? WHERE uuid = ? AND updatedTime <= ?";
+
+    // Stops after the Web Server (No more Updates) and before the DataSource is closed
+    public static final int PHASE           = SmartLifecycle.DEFAULT_PHASE - 2048;
+    // Max Products written in a Transaction
+    public static final int MAX_FLUSH_SIZE  = 1000;
+    // Flush Attempts on Shutdown
+    public static final int DRAIN_ATTEMPTS  = 3;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ServiceConfiguration serviceConfig;
+
+    @Autowired
+    private TwoTierCacheManager cacheManager;
+
+    @Autowired
+    private ProductOutbox productOutbox;
+
+    @Autowired
+    private ProductQueryCache productQueryCache;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${service.product.price.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${service.product.price.write-behind.max-pending:100000}")
+    private int maxPending;
+
+    private final ConcurrentHashMap<UUID, PendingPrice> pending = new ConcurrentHashMap<UUID, PendingPrice>();
+    // Updates being written by the current Flush
+    private volatile InFlight inFlight;
+
+    private final AtomicLong buffered    = new AtomicLong();
+    private final AtomicLong coalesced   = new AtomicLong();
+    private final AtomicLong written     = new AtomicLong();
+    private final AtomicLong failed      = new AtomicLong();
+
+    private volatile boolean running;
+    private Timer flushTimer;
+
+    /**
+     * Register the Buffer Metrics
+     */
+    @PostConstruct
+    public void registerMetrics() {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if(!enabled || registry == null) {
+            return;
+        }
+        Gauge.builder("product.price.buffer.pending", pending, Map::size)
+                .description("The number of Products waiting for the Price to be written")
+                .register(registry);
+        Gauge.builder("product.price.buffer.lag", this, ProductPriceBuffer::getLag)
+                .baseUnit("milliseconds")
+                .description("The age of the oldest Price Update NOT yet written")
+                .register(registry);
+        counter(registry, buffered, "buffered", "The number of Price Updates buffered");
+        counter(registry, coalesced, "coalesced", "The number of Price Updates replaced by a newer Update");
+        counter(registry, written, "written", "The number of Product Prices written");
+        counter(registry, failed, "failed", "The number of Product Prices failed to write (Re-Queued)");
+        flushTimer = Timer.builder("product.price.buffer.flush")
+                .description("The time taken to write the buffered Prices")
+                .register(registry);
+    }
+
+    /**
+     * Returns True if the Write Behind is Enabled and the Buffer is accepting Updates
+     * @return
+     */
+    public boolean isEnabled() {
+        return enabled && running;
+    }
+
+    /**
+     * Buffer the Price Update (Replaces the Pending Update of the Product)
+     * @param _productId
+     * @param _price
+     * @return False if the Update is NOT buffered (Disabled, Stopped or Full)
+     */
+    public boolean put(UUID _productId, BigDecimal _price) {
+        if(!isEnabled() || _productId == null || _price == null) {
+            return false;
+        }
+        if(pending.size() >= maxPending && !pending.containsKey(_productId)) {
+            log.warn("Product Price Buffer Full = {} (Synchronous Update)", pending.size());
+            return false;
+        }
+        PendingPrice update = new PendingPrice(_price, AuditLog.currentUser(), System.currentTimeMillis());
+        pending.merge(_productId, update, (current, next) -> {
+            coalesced.incrementAndGet();
+            return next.since(current.since);
+        });
+        buffered.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Discard the Pending Updates (The Products are updated Synchronously)
+     * If any of the Updates is being written, waits for the Flush to complete. The Caller MUST
+     * NOT hold the Row Locks of the Products (Call it before the Synchronous Update).
+     *
+     * @param _productIds
+     */
+    public void discard(Collection<UUID> _productIds) {
+        InFlight batch = inFlight;
+        if(_productIds == null || (pending.isEmpty() && batch == null)) {
+            return;
+        }
+        boolean wait = false;
+        for(UUID productId : _productIds) {
+            pending.remove(productId);
+            if(batch != null && batch.updates.containsKey(productId)) {
+                batch.discarded.add(productId);
+                wait = true;
+            }
+        }
+        if(wait) {
+            // Flush completed (Written or Re-Queued). Remove the Updates Re-Queued by the Flush
+            synchronized (this) {
+                for(UUID productId : _productIds) {
+                    pending.remove(productId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns True if there are NO Updates Pending or being written
+     * @return
+     */
+    public boolean isEmpty() {
+        return pending.isEmpty() && inFlight == null;
+    }
+
+    /**
+     * Returns the No. of Products waiting for the Price to be written
+     * @return
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Returns the Age (Milli Seconds) of the Oldest Update NOT yet written
+     * @return
+     */
+    public long getLag() {
+        long oldest = Long.MAX_VALUE;
+        for(PendingPrice update : pending.values()) {
+            oldest = Math.min(oldest, update.since);
+        }
+        return (oldest == Long.MAX_VALUE) ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+    }
+
+    /**
+     * Write the Pending Updates (Runs every Flush Interval)
+     */
+    @Scheduled(fixedDelayString = "${service.product.price.write-behind.interval:500}")
+    public void scheduledFlush() {
+        if(enabled && !pending.isEmpty()) {
+            flush();
+        }
+    }
+
+    /**
+     * Write the Pending Updates (Latest Price per Product)
+     * @return No. of Products NOT written (Re-Queued)
+     */
+    public synchronized int flush() {
+        InFlight batch = new InFlight();
+        inFlight = batch;
+        try {
+            for(Map.Entry<UUID, PendingPrice> entry : pending.entrySet()) {
+                // In Flight BEFORE it's removed from Pending (Always visible to Discard)
+                batch.updates.put(entry.getKey(), entry.getValue());
+                if(!pending.remove(entry.getKey(), entry.getValue())) {
+                    // Updated or Discarded Concurrently (Written in the next Flush)
+                    batch.updates.remove(entry.getKey());
+                }
+            }
+            if(batch.updates.isEmpty()) {
+                return 0;
+            }
+            return write(batch);
+        } finally {
+            inFlight = null;
+        }
+    }
+
+    /**
+     * Write the In Flight Updates in Chunks (Skips the Discarded Updates)
+     * @param _batch
+     * @return No. of Products NOT written (Re-Queued)
+     */
+    private int write(InFlight _batch) {
+        long start = System.nanoTime();
+        List<UUID> productIds = new ArrayList<UUID>(_batch.updates.keySet());
+        int requeued = 0;
+        int total = 0;
+        for(int x=0; x<productIds.size(); x+=MAX_FLUSH_SIZE) {
+            List<UUID> chunk = new ArrayList<UUID>(MAX_FLUSH_SIZE);
+            for(UUID productId : productIds.subList(x, Math.min(x + MAX_FLUSH_SIZE, productIds.size()))) {
+                if(!_batch.discarded.contains(productId)) {
+                    chunk.add(productId);
+                }
+            }
+            if(chunk.isEmpty()) {
+                continue;
+            }
+            total += chunk.size();
+            try {
+                write(chunk, _batch.updates);
+                written.addAndGet(chunk.size());
+                evict(chunk);
+            } catch (RuntimeException e) {
+                // Re-Queue the Failed Updates (a Newer or a Synchronous Update of the Product wins)
+                for(UUID productId : chunk) {
+                    if(!_batch.discarded.contains(productId)) {
+                        pending.putIfAbsent(productId, _batch.updates.get(productId));
+                    }
+                }
+                requeued += chunk.size();
+                failed.addAndGet(chunk.size());
+                log.warn("Product Price Buffer Flush Failed {} Products = {}", chunk.size(), e.getMessage());
+            }
+        }
+        if(flushTimer != null) {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        log.debug("Product Price Buffer Flushed = {} Re-Queued = {}", total - requeued, requeued);
+        return requeued;
+    }
+
+    /**
+     * Write the Prices (JDBC Batched Updates) and the Price Changed Events in a Transaction.
+     * The Catalog Version is Bumped after the Commit if any of the Prices was written.
+     * @param _productIds
+     * @param _updates
+     */
+    private void write(List<UUID> _productIds, Map<UUID, PendingPrice> _updates) {
+        int batchSize = Math.max(1, serviceConfig.getDataSourceBatchSize());
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            boolean changed = false;
+            List<Object[]> args = new ArrayList<Object[]>(_productIds.size());
+            for(UUID productId : _productIds) {
+                PendingPrice update = _updates.get(productId);
+                Timestamp updatedTime = new Timestamp(update.updatedTime);
+                args.add(new Object[] { update.price, update.updatedBy, updatedTime, productId, updatedTime });
+            }
+            for(int x=0; x<args.size(); x+=batchSize) {
+                int to = Math.min(x + batchSize, args.size());
+                int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, args.subList(x, to));
+                for(int y=0; y<counts.length; y++) {
+                    // Product Deleted or Updated (Other Node) after the Update was buffered
+                    if(counts[y] == 0) {
+                        continue;
+                    }
+                    UUID productId = _productIds.get(x + y);
+                    productOutbox.priceChanged(Collections.singletonList(productId), _updates.get(productId).price);
+                    changed = true;
+                }
+            }
+            if(changed) {
+                // After the Commit
+                productQueryCache.bumpCatalogVersion();
+            }
+        });
+    }
+
+    /**
+     * Evict the Written Products from the Cache (Products updated again are evicted in the next Flush)
+     * @param _productIds
+     */
+    private void evict(List<UUID> _productIds) {
+        TwoTierCache cache = cacheManager.getTwoTierCache(CacheConfig.PRODUCT_CACHE);
+        if(cache == null) {
+            return;
+        }
+        List<UUID> evict = new ArrayList<UUID>(_productIds.size());
+        for(UUID productId : _productIds) {
+            if(!pending.containsKey(productId)) {
+                evict.add(productId);
+            }
+        }
+        try {
+            if(!evict.isEmpty()) {
+                cache.evictAll(evict);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Product Cache Bulk Evict Failed {} Products = {}", evict.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Start Buffering the Updates
+     */
+    @Override
+    public void start() {
+        running = true;
+        if(enabled) {
+            log.info("Product Price Write Behind Enabled (Max Pending = {})", maxPending);
+        }
+    }
+
+    /**
+     * Stop Buffering the Updates and Drain the Buffer
+     */
+    @Override
+    public void stop() {
+        running = false;
+        int remaining = 0;
+        for(int x=0; x<DRAIN_ATTEMPTS && !pending.isEmpty(); x++) {
+            remaining = flush();
+        }
+        if(remaining > 0) {
+            log.error("Product Price Buffer NOT Drained! Prices NOT written = {}", pending);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * Register the Function Counter of the Buffer Updates
+     */
+    private void counter(MeterRegistry _registry, AtomicLong _count, String _result, String _description) {
+        FunctionCounter.builder("product.price.buffer.updates", _count, AtomicLong::get)
+                .tag("result", _result)
+                .description(_description)
+                .register(_registry);
+    }
+
+    /**
+     * Updates being written by a Flush and the Updates Discarded while the Flush is running
+     */
+    private static final class InFlight {
+
+        private final Map<UUID, PendingPrice> updates   = new ConcurrentHashMap<UUID, PendingPrice>();
+        private final Set<UUID> discarded               = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Pending Price Update (Since = Time of the First Update NOT yet written)
+     */
+    private static final class PendingPrice {
+
+        private final BigDecimal price;
+        private final String updatedBy;
+        private final long updatedTime;
+        private final long since;
+
+        private PendingPrice(BigDecimal _price, String _updatedBy, long _updatedTime) {
+            this(_price, _updatedBy, _updatedTime, _updatedTime);
+        }
+
+        private PendingPrice(BigDecimal _price, String _updatedBy, long _updatedTime, long _since) {
+            this.price          = _price;
+            this.updatedBy      = _updatedBy;
+            this.updatedTime    = _updatedTime;
+            this.since          = _since;
+        }
+
+        private PendingPrice since(long _since) {
+            return new PendingPrice(price, updatedBy, updatedTime, _since);
+        }
+
+        @Override
+        public String toString() {
+            return price.toPlainString();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.cache;
+
+import io.fusion.air.microservice.adapters.repository.ProductRepository;
+import io.fusion.air.microservice.domain.entities.example.ProductEntity;
+import io.fusion.air.microservice.server.cache.TwoTierCache;
+import io.fusion.air.microservice.server.cache.TwoTierCacheManager;
+import io.fusion.air.microservice.server.config.CacheConfig;
+import io.fusion.air.microservice.server.db.PrimaryReader;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Bulk Product Lookup using the Product Cache (productCache)
+ *
+ * 1. Single Multi Get (L1 first, then one Redis MGET) for all the Product IDs
+ * 2. Single IN Query (findAllById) for the Misses on the Primary (Replica may NOT have the Last
+ *    Update, and the Products are cached)
+ * 3. Single Pipelined Write to put the Loaded Products in the Cache
+ *
+ * Products are returned in the Order of the Product IDs (Duplicates removed). Products NOT Found
+ * are skipped.
+ * If Redis is NOT available the Products are fetched from the Database.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@Component
+public class ProductBulkCache {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    @Autowired
+    private TwoTierCacheManager cacheManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PrimaryReader primaryReader;
+
+    /**
+     * Returns the Products (in the same Order as the Product IDs)
+     * @param _productIds
+     * @return
+     */
+    public List<ProductEntity> getProducts(Collection<UUID> _productIds) {
+        if(_productIds == null || _productIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<UUID> ids = new ArrayList<UUID>(new LinkedHashSet<UUID>(_productIds));
+        TwoTierCache productCache = cacheManager.getTwoTierCache(CacheConfig.PRODUCT_CACHE);
+        Map<UUID, ProductEntity> products = new HashMap<UUID, ProductEntity>();
+        if(productCache != null) {
+            try {
+                for(Map.Entry<Object, Object> entry : productCache.getAll(ids).entrySet()) {
+                    if(entry.getValue() instanceof ProductEntity) {
+                        products.put((UUID) entry.getKey(), (ProductEntity) entry.getValue());
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Product Cache Multi Get Failed = {}", e.getMessage());
+            }
+        }
+        List<UUID> misses = new ArrayList<UUID>();
+        for(UUID id : ids) {
+            if(!products.containsKey(id)) {
+                misses.add(id);
+            }
+        }
+        if(!misses.isEmpty()) {
+            List<ProductEntity> loaded = primaryReader.read(() -> productRepository.findAllById(misses));
+            for(ProductEntity product : loaded) {
+                products.put(product.getUuid(), product);
+            }
+            cacheProducts(loaded);
+        }
+        List<ProductEntity> result = new ArrayList<ProductEntity>(ids.size());
+        for(UUID id : ids) {
+            ProductEntity product = products.get(id);
+            if(product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Put the Products (Loaded from the Database) in the Product Cache with a Single Pipeline
+     * @param _products
+     */
+    public void cacheProducts(List<ProductEntity> _products) {
+        TwoTierCache productCache = cacheManager.getTwoTierCache(CacheConfig.PRODUCT_CACHE);
+        if(productCache == null || _products == null || _products.isEmpty()) {
+            return;
+        }
+        Map<UUID, ProductEntity> entries = new HashMap<UUID, ProductEntity>();
+        for(ProductEntity product : _products) {
+            entries.put(product.getUuid(), product);
+        }
+        try {
+            productCache.populateAll(entries);
+        } catch (RuntimeException e) {
+            log.warn("Product Cache Multi Put Failed = {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.cache;
+
+import io.fusion.air.microservice.domain.entities.core.AbstractBaseEntity;
+import io.fusion.air.microservice.domain.entities.core.AbstractBaseEntityWithUUID;
+import io.fusion.air.microservice.domain.entities.core.AuditLog;
+import io.fusion.air.microservice.domain.entities.example.ProductEntity;
+import io.fusion.air.microservice.server.cache.BinaryCodec;
+import io.fusion.air.microservice.server.cache.BinaryReader;
+import io.fusion.air.microservice.server.cache.BinaryWriter;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Binary Codec for the Product Entity (Compact Binary Cache Serializer)
+ *
+ * Schema 1 = UUID | Active | Version | Name | Details | Price | Zip Code |
+ *            Created By | Created Time | Updated By | Updated Time
+ *
+ * The Entities doesn't expose Setters for the UUID, Version, Active Flag and the Audit Log.
+ * Those Fields are set using VarHandles (resolved once).
+ *
+ * Add a new Schema (and keep reading the old one) when the Fields change.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class ProductEntityCodec implements BinaryCodec<ProductEntity> {
+
+    private static final int SCHEMA = 1;
+
+    private static final VarHandle UUID_FIELD    = field(AbstractBaseEntityWithUUID.class, "uuid", UUID.class);
+    private static final VarHandle ACTIVE_FIELD  = field(AbstractBaseEntity.class, "isActive", boolean.class);
+    private static final VarHandle VERSION_FIELD = field(AbstractBaseEntity.class, "version", int.class);
+    private static final VarHandle AUDIT_FIELD   = field(AbstractBaseEntity.class, "auditLog", AuditLog.class);
+
+    private static final VarHandle CREATED_BY    = field(AuditLog.class, "createdBy", String.class);
+    private static final VarHandle CREATED_TIME  = field(AuditLog.class, "createdTime", Timestamp.class);
+    private static final VarHandle UPDATED_BY    = field(AuditLog.class, "updatedBy", String.class);
+    private static final VarHandle UPDATED_TIME  = field(AuditLog.class, "updatedTime", Timestamp.class);
+
+    @Override
+    public void write(ProductEntity _product, BinaryWriter _out) {
+        _out.writeVarInt(SCHEMA);
+        _out.writeUUID(_product.getUuid());
+        _out.writeBoolean(_product.isActive());
+        _out.writeVarInt(_product.getVersion());
+        _out.writeString(_product.getProductName());
+        _out.writeString(_product.getProductDetails());
+        _out.writeBigDecimal(_product.getProductPrice());
+        _out.writeString(_product.getProductLocationZipCode());
+        AuditLog audit = _product.getAuditLog();
+        _out.writeBoolean(audit != null);
+        if(audit != null) {
+            _out.writeString(audit.getCreatedBy());
+            _out.writeTimestamp(audit.getCreatedTime());
+            _out.writeString(audit.getUpdatedBy());
+            _out.writeTimestamp(audit.getUpdatedTime());
+        }
+    }
+
+    @Override
+    public ProductEntity read(BinaryReader _in) {
+        int schema = _in.readVarInt();
+        if(schema != SCHEMA) {
+            throw new IllegalStateException("Unknown Product Entity Schema = "+schema);
+        }
+        UUID uuid       = _in.readUUID();
+        boolean active  = _in.readBoolean();
+        int version     = _in.readVarInt();
+        ProductEntity product = new ProductEntity(_in.readString(), _in.readString(),
+                _in.readBigDecimal(), _in.readString());
+        UUID_FIELD.set(product, uuid);
+        ACTIVE_FIELD.set(product, active);
+        VERSION_FIELD.set(product, version);
+        AuditLog audit = null;
+        if(_in.readBoolean()) {
+            audit = new AuditLog();
+            CREATED_BY.set(audit, _in.readString());
+            CREATED_TIME.set(audit, _in.readTimestamp());
+            UPDATED_BY.set(audit, _in.readString());
+            UPDATED_TIME.set(audit, _in.readTimestamp());
+        }
+        AUDIT_FIELD.set(product, audit);
+        return product;
+    }
+
+    /**
+     * Resolve the VarHandle for the Private Field
+     * @param _type
+     * @param _name
+     * @param _fieldType
+     * @return
+     */
+    private static VarHandle field(Class<?> _type, String _name, Class<?> _fieldType) {
+        try {
+            return MethodHandles.privateLookupIn(_type, MethodHandles.lookup())
+                    .findVarHandle(_type, _name, _fieldType);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
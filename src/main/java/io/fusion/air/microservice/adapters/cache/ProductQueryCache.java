@@ -0,0 +1,249 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.cache;
+
+import io.fusion.air.microservice.domain.entities.example.ProductEntity;
+import io.fusion.air.microservice.server.cache.TwoTierCache;
+import io.fusion.air.microservice.server.cache.TwoTierCacheManager;
+import io.fusion.air.microservice.server.config.CacheConfig;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Supplier;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Product Query (Result) Cache
+ *
+ * Caches the Product IDs returned by a Query (Key = Catalog Version | Query | Parameters) and
+ * hydrates the Products from the Product Cache (productCache) with a single Multi Get. Products
+ * NOT in the Product Cache are fetched with a single IN Query (See ProductBulkCache).
+ *
+ * Invalidation: Every Product Mutation increments the global Catalog Version (in Redis) after the
+ * Transaction Commits. Keys with an older Version are never read again and expire with the TTL.
+ *
+ * If Redis is NOT available the Queries are sent to the Database.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@Component
+public class ProductQueryCache {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    @Autowired
+    private TwoTierCacheManager cacheManager;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ProductBulkCache productBulkCache;
+
+    // Seed the Version (if missing) and Increment it Atomically
+    private static final RedisScript<Long> INCREMENT_VERSION = RedisScript.of(
+            "redis.call('SET', KEYS[1], ARGV[1], 'NX') return redis.call('INCR', KEYS[1])", Long.class);
+
+    // Max Catalog Versions remembered (Versions Incremented by this Node)
+    public static final int MAX_LOCAL_VERSIONS = 100000;
+
+    @Value("${cache.catalog.version.key:productCatalogVersion}")
+    private String versionKey;
+
+    // Catalog Versions Incremented by this Node (to find the Changes made by the other Nodes)
+    private final ConcurrentSkipListSet<Long> localVersions = new ConcurrentSkipListSet<Long>();
+
+    /**
+     * Returns the Query Result from the Cache (or Loads it with the Query)
+     * @param _query Query Name
+     * @param _loader Query
+     * @param _params Query Parameters (Normalized)
+     * @return
+     */
+    public List<ProductEntity> query(String _query, Supplier<List<ProductEntity>> _loader, Object... _params) {
+        TwoTierCache queryCache = cacheManager.getTwoTierCache(CacheConfig.PRODUCT_QUERY_CACHE);
+        long version = getCatalogVersion();
+        if(queryCache == null || version < 0) {
+            return _loader.get();
+        }
+        String key = queryKey(version, _query, _params);
+        try {
+            Cache.ValueWrapper ids = queryCache.get(key);
+            if(ids != null && ids.get() instanceof List) {
+                return hydrate((List<?>) ids.get());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Query Cache Lookup Failed {} = {}", key, e.getMessage());
+        }
+        List<ProductEntity> products = _loader.get();
+        store(queryCache, key, products);
+        return products;
+    }
+
+    /**
+     * Returns the Catalog Version (-1 if NOT available)
+     * A missing Version is seeded with the Current Time, so the Catalog Version never goes back
+     * (Ex. after a Redis Restart) and the old Query Keys / ETags are never reused.
+     * @return
+     */
+    public long getCatalogVersion() {
+        try {
+            String version = redisTemplate.opsForValue().get(versionKey);
+            if(version == null) {
+                redisTemplate.opsForValue().setIfAbsent(versionKey, versionSeed());
+                version = redisTemplate.opsForValue().get(versionKey);
+            }
+            return (version != null) ? Long.parseLong(version) : 0;
+        } catch (RuntimeException e) {
+            log.warn("Catalog Version NOT available = {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Increment the Catalog Version after the Transaction Commits (or Now, if there is no Transaction)
+     */
+    public void bumpCatalogVersion() {
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    incrementCatalogVersion();
+                }
+            });
+        } else {
+            incrementCatalogVersion();
+        }
+    }
+
+    /**
+     * Increment the Catalog Version. A missing Version (Ex. after a Redis Restart) is seeded with
+     * the Current Time in the same Script (SET NX + INCR), so the Version never restarts at 1.
+     */
+    private void incrementCatalogVersion() {
+        try {
+            Long version = redisTemplate.execute(INCREMENT_VERSION, Collections.singletonList(versionKey), versionSeed());
+            if(version != null) {
+                if(localVersions.size() >= MAX_LOCAL_VERSIONS) {
+                    // Treated as Changed by the other Nodes till the Versions are remembered again
+                    localVersions.clear();
+                }
+                localVersions.add(version);
+            }
+        } catch (RuntimeException e) {
+            log.error("Catalog Version Increment Failed = {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns True if the Catalog was changed by the other Nodes (or the Version was Re-Seeded)
+     * after the Version From, till the Version To. ie. NOT all the Versions in between were
+     * Incremented by this Node.
+     * @param _from
+     * @param _to
+     * @return
+     */
+    public boolean isChangedByOtherNodes(long _from, long _to) {
+        if(_to <= _from) {
+            return _to < _from;
+        }
+        return localVersions.subSet(_from, false, _to, true).size() < (_to - _from);
+    }
+
+    /**
+     * Forget the Versions Incremented by this Node (till the Version)
+     * @param _version
+     */
+    public void forgetLocalVersions(long _version) {
+        localVersions.headSet(_version, true).clear();
+    }
+
+    /**
+     * Seed of a missing Catalog Version (Current Time in Milli Seconds)
+     * @return
+     */
+    private static String versionSeed() {
+        return String.valueOf(System.currentTimeMillis());
+    }
+
+    /**
+     * Hydrate the Products (in the same Order) from the Product Cache and the Database.
+     * Products NOT Found (Deleted) are skipped.
+     * @param _ids
+     * @return
+     */
+    private List<ProductEntity> hydrate(List<?> _ids) {
+        List<UUID> ids = new ArrayList<UUID>(_ids.size());
+        for(Object id : _ids) {
+            ids.add((id instanceof UUID) ? (UUID) id : UUID.fromString(String.valueOf(id)));
+        }
+        return productBulkCache.getProducts(ids);
+    }
+
+    /**
+     * Store the Product IDs in the Query Cache and the Products in the Product Cache
+     * @param _queryCache
+     * @param _key
+     * @param _products
+     */
+    private void store(TwoTierCache _queryCache, String _key, List<ProductEntity> _products) {
+        if(_products == null) {
+            return;
+        }
+        try {
+            ArrayList<UUID> ids = new ArrayList<UUID>(_products.size());
+            for(ProductEntity product : _products) {
+                ids.add(product.getUuid());
+            }
+            productBulkCache.cacheProducts(_products);
+            _queryCache.populate(_key, ids);
+        } catch (RuntimeException e) {
+            log.warn("Query Cache Update Failed {} = {}", _key, e.getMessage());
+        }
+    }
+
+    /**
+     * Query Key = Catalog Version | Query | Parameters
+     * @param _version
+     * @param _query
+     * @param _params
+     * @return
+     */
+    private String queryKey(long _version, String _query, Object... _params) {
+        StringBuilder key = new StringBuilder().append(_version).append('|').append(_query);
+        for(Object param : _params) {
+            key.append('|').append(param);
+        }
+        return key.toString();
+    }
+}
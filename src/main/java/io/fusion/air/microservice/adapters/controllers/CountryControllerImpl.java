@@ -0,0 +1,145 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.controllers;
+
+import io.fusion.air.microservice.adapters.security.AuthorizationRequired;
+import io.fusion.air.microservice.domain.models.core.StandardResponse;
+import io.fusion.air.microservice.domain.models.example.Country;
+import io.fusion.air.microservice.domain.models.example.CountrySnapshot;
+import io.fusion.air.microservice.domain.ports.services.CountryService;
+import io.fusion.air.microservice.server.controllers.AbstractController;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Country Controller for the Service (Reference Data served from the In Memory Snapshot)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@CrossOrigin(exposedHeaders = { HttpHeaders.ETAG })
+@Configuration
+@RestController
+// "/ms-cache/api/v1"
+@RequestMapping("${service.api.path}/country")
+@Tag(name = "Country API", description = "Ex. io.f.a.m.adapters.controllers.CountryControllerImpl")
+public class CountryControllerImpl extends AbstractController {
+
+	// Set Logger -> Lookup will automatically determine the class name.
+	private static final Logger log = getLogger(lookup().lookupClass());
+
+	@Autowired
+	CountryService countryServiceImpl;
+
+	/**
+	 * Get All the Countries (Pre Serialized JSON Array)
+	 */
+	@Operation(summary = "Get All the Countries")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "List of Countries",
+					content = {@Content(mediaType = "application/json")})
+	})
+	@GetMapping("/all/")
+	public ResponseEntity<byte[]> getAllCountries(WebRequest webRequest) {
+		log.debug("|"+name()+"|Request to get All Countries ... ");
+		CountrySnapshot snapshot = countryServiceImpl.getSnapshot();
+		String eTag = snapshot.getETag();
+		if(webRequest.checkNotModified(eTag)) {
+			return null;
+		}
+		return ResponseEntity.ok()
+				.eTag(eTag)
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(snapshot.getJson());
+	}
+
+	/**
+	 * Get the Country by the Country Code
+	 */
+	@Operation(summary = "Get the Country By Country Code")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Country Found!",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "404",
+					description = "Invalid Country Code!",
+					content = @Content)
+	})
+	@GetMapping("/code/{countryCode}")
+	public ResponseEntity<StandardResponse> getCountryByCode(@PathVariable("countryCode") String _countryCode) {
+		log.debug("|"+name()+"|Request to Get the Country By Code ... "+_countryCode);
+		Country country = countryServiceImpl.getCountryByCode(_countryCode);
+		StandardResponse stdResponse = createSuccessResponse("Country Found");
+		stdResponse.setPayload(country);
+		return ResponseEntity.ok(stdResponse);
+	}
+
+	/**
+	 * Get the Country by the Country ID
+	 */
+	@Operation(summary = "Get the Country By Country ID")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Country Found!",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "404",
+					description = "Invalid Country ID!",
+					content = @Content)
+	})
+	@GetMapping("/id/{countryId}")
+	public ResponseEntity<StandardResponse> getCountryById(@PathVariable("countryId") int _countryId) {
+		log.debug("|"+name()+"|Request to Get the Country By ID ... "+_countryId);
+		Country country = countryServiceImpl.getCountryById(_countryId);
+		StandardResponse stdResponse = createSuccessResponse("Country Found");
+		stdResponse.setPayload(country);
+		return ResponseEntity.ok(stdResponse);
+	}
+
+	/**
+	 * Reload the Countries from the Database
+	 */
+	@AuthorizationRequired(role = "Admin")
+	@Operation(summary = "Reload the Countries")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Countries Reloaded",
+					content = {@Content(mediaType = "application/json")})
+	})
+	@PostMapping("/reload")
+	public ResponseEntity<StandardResponse> reloadCountries() {
+		log.debug("|"+name()+"|Request to Reload the Countries ... ");
+		CountrySnapshot snapshot = countryServiceImpl.reload();
+		StandardResponse stdResponse = createSuccessResponse("Countries Reloaded = "+snapshot.size());
+		stdResponse.setPayload(snapshot.size());
+		return ResponseEntity.ok(stdResponse);
+	}
+}
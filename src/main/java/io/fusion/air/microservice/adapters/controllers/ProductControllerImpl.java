@@ -15,6 +15,8 @@
  */
 package io.fusion.air.microservice.adapters.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fusion.air.microservice.adapters.security.AuthorizationRequired;
 import io.fusion.air.microservice.domain.entities.example.ProductEntity;
 import io.fusion.air.microservice.domain.exceptions.*;
@@ -23,6 +25,9 @@ import io.fusion.air.microservice.domain.models.example.PaymentDetails;
 import io.fusion.air.microservice.domain.models.example.PaymentStatus;
 import io.fusion.air.microservice.domain.models.example.PaymentType;
 import io.fusion.air.microservice.domain.models.example.Product;
+import io.fusion.air.microservice.domain.models.example.ProductBulkUpdate;
+import io.fusion.air.microservice.domain.models.example.ProductETag;
+import io.fusion.air.microservice.domain.models.example.ProductPage;
 import io.fusion.air.microservice.domain.ports.services.ProductService;
 import io.fusion.air.microservice.server.config.ServiceConfiguration;
 import io.fusion.air.microservice.server.controllers.AbstractController;
@@ -39,13 +44,18 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.context.annotation.RequestScope;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -64,7 +74,7 @@ import static org.slf4j.LoggerFactory.getLogger;
  * @version 1.0
  * 
  */
-@CrossOrigin
+@CrossOrigin(exposedHeaders = { ProductControllerImpl.NEXT_CURSOR, HttpHeaders.ETAG })
 @Configuration
 @RestController
 // "/ms-cache/api/v1"
@@ -83,6 +93,12 @@ public class ProductControllerImpl extends AbstractController {
 	@Autowired
 	ProductService productServiceImpl;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	// Response Header with the Cursor for the Next Page (Keyset Pagination)
+	public static final String NEXT_CURSOR = "X-Next-Cursor";
+
 	/**
 	 * Create the Product
 	 */
@@ -104,6 +120,27 @@ public class ProductControllerImpl extends AbstractController {
 		return ResponseEntity.ok(stdResponse);
 	}
 
+	/**
+	 * Bulk Create the Products (JDBC Batched Inserts)
+	 */
+	@Operation(summary = "Bulk Create Products")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Products Created",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "400",
+					description = "Unable to Create the Products",
+					content = @Content)
+	})
+	@PostMapping("/create/bulk")
+	public ResponseEntity<StandardResponse> createProductsBulk(@RequestBody List<Product> _products) {
+		log.debug("|"+name()+"|Request to Bulk Create Products... "+(_products != null ? _products.size() : 0));
+		List<UUID> productIds = productServiceImpl.createProductsBulk(_products);
+		StandardResponse stdResponse = createSuccessResponse("Products Created = "+productIds.size());
+		stdResponse.setPayload(productIds);
+		return ResponseEntity.ok(stdResponse);
+	}
+
 	/**
 	 * GET Method Call to Check the Product Status
 	 * 
@@ -114,6 +151,9 @@ public class ProductControllerImpl extends AbstractController {
             @ApiResponse(responseCode = "200",
             description = "Product Retrieved for status check",
             content = {@Content(mediaType = "application/json")}),
+            @ApiResponse(responseCode = "304",
+            description = "Product Not Modified (If-None-Match)",
+            content = @Content),
             @ApiResponse(responseCode = "400",
             description = "Invalid Product ID.",
             content = @Content)
@@ -122,18 +162,46 @@ public class ProductControllerImpl extends AbstractController {
 	@ResponseBody
 	public ResponseEntity<StandardResponse> getProductStatus(@PathVariable("productId") UUID _productId,
 														HttpServletRequest request,
-														HttpServletResponse response) throws Exception {
+														HttpServletResponse response,
+														WebRequest webRequest) throws Exception {
 		log.debug("|"+name()+"|Request to Get Product Status.. "+_productId);
 		//  response.setHeader("Cache-Control", "no-cache");
 		// response.addCookie(new Cookie("SameSite", "Strict"));
+		// If-None-Match is checked with the Product Version (Product is NOT loaded)
+		Integer version = productServiceImpl.getProductVersion(_productId);
+		if(version != null && notModified(webRequest, ProductETag.of(_productId, version))) {
+			return null;
+		}
 		ProductEntity product = productServiceImpl.getProductById(_productId);
 		StandardResponse stdResponse = createSuccessResponse("Data Fetch Success!");
 		stdResponse.setPayload(product);
+		return okWithETag(stdResponse, ProductETag.of(product.getUuid(), product.getVersion()));
+	}
+
+	/**
+	 * Get the Products for the Product IDs (in the same Order)
+	 */
+	@Operation(summary = "Get the Products By Product UUIDs")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Products Retrieved",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "400",
+					description = "Invalid Product IDs.",
+					content = @Content)
+	})
+	@PostMapping("/ids")
+	public ResponseEntity<StandardResponse> getProductsByIds(@RequestBody List<UUID> _productIds) {
+		log.debug("|"+name()+"|Request to Get Products By IDs... "+(_productIds != null ? _productIds.size() : 0));
+		List<ProductEntity> products = productServiceImpl.getProductsByIds(_productIds);
+		StandardResponse stdResponse = createSuccessResponse("Products Found = "+products.size());
+		stdResponse.setPayload(products);
 		return ResponseEntity.ok(stdResponse);
 	}
 
 	/**
-	 * GET Method Call to Get All the Products
+	 * GET Method Call to Get All the Products (Keyset Pagination)
+	 * Cursor for the Next Page is returned in the X-Next-Cursor Header.
 	 *
 	 * @return
 	 */
@@ -148,20 +216,74 @@ public class ProductControllerImpl extends AbstractController {
 	})
 	@GetMapping("/all/")
 	@ResponseBody
-	public ResponseEntity<StandardResponse> getAllProducts(HttpServletRequest request,
-														   HttpServletResponse response) throws Exception {
-		log.debug("|"+name()+"|Request to get All Products ... ");
-		List<ProductEntity> productList = productServiceImpl.getAllProduct();
+	public ResponseEntity<StandardResponse> getAllProducts(
+			@RequestParam(name = "cursor", required = false) String _cursor,
+			@RequestParam(name = "size", required = false, defaultValue = "0") int _size,
+			HttpServletRequest request,
+			HttpServletResponse response,
+			WebRequest webRequest) throws Exception {
+		log.debug("|"+name()+"|Request to get All Products ... Cursor = "+_cursor);
+		String eTag = catalogETag();
+		if(notModified(webRequest, eTag)) {
+			return null;
+		}
+		ProductPage page = productServiceImpl.getProducts(_cursor, _size);
+		List<ProductEntity> productList = page.getProducts();
 		StandardResponse stdResponse = null;
 		log.info("Products List = "+productList.size());
-		if(productList == null || productList.isEmpty()) {
+		if(productList.isEmpty() && _cursor == null) {
 			productList = createFallBackProducts();
 			stdResponse = createSuccessResponse("201","Fallback Data!");
 		} else {
 			stdResponse = createSuccessResponse("Data Fetch Success!");
 		}
+		if(page.hasNext()) {
+			// Cursor for the Next Page
+			response.setHeader(NEXT_CURSOR, page.getNextCursor());
+		}
 		stdResponse.setPayload(productList);
-		return ResponseEntity.ok(stdResponse);
+		return okWithETag(stdResponse, eTag);
+	}
+
+	/**
+	 * Export All the Products as a JSON Array (Streamed)
+	 * Products are written to the Response as they are read from the Database. Neither the
+	 * Products nor the JSON are held in Memory. If the Export fails midway the JSON Array is left
+	 * Open (Invalid JSON), so that a Partial Export is NOT taken as the full Catalog.
+	 */
+	@Operation(summary = "Export All the Products (Streaming JSON)")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Product Catalog Exported",
+					content = {@Content(mediaType = "application/json")})
+	})
+	@GetMapping("/export")
+	public void exportProducts(HttpServletResponse response, WebRequest webRequest) throws IOException {
+		log.debug("|"+name()+"|Request to Export All Products ... ");
+		String eTag = catalogETag();
+		if(notModified(webRequest, eTag)) {
+			return;
+		}
+		if(eTag != null) {
+			response.setHeader(HttpHeaders.ETAG, eTag);
+		}
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.json\"");
+		try (JsonGenerator json = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+			// Close does NOT write the End of the Array on a Failure
+			json.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+			json.writeStartArray();
+			long count = productServiceImpl.streamAllProducts(product -> {
+				try {
+					json.writeObject(product);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			json.writeEndArray();
+			log.info("Products Exported = "+count);
+		}
 	}
 
 	/**
@@ -177,14 +299,71 @@ public class ProductControllerImpl extends AbstractController {
 					content = @Content)
 	})
 	@GetMapping("/search/product/{productName}")
-	public ResponseEntity<StandardResponse> searchProductsByName(@PathVariable("productName") String _productName) {
+	public ResponseEntity<StandardResponse> searchProductsByName(@PathVariable("productName") String _productName,
+			WebRequest webRequest) {
 		log.debug("|"+name()+"|Request to Search the Product By Name ... "+_productName);
+		String eTag = catalogETag();
+		if(notModified(webRequest, eTag)) {
+			return null;
+		}
 		List<ProductEntity> products = productServiceImpl.fetchProductsByName(_productName);
 		StandardResponse stdResponse = createSuccessResponse("Products Found For Search Term = "+_productName);
 		stdResponse.setPayload(products);
+		return okWithETag(stdResponse, eTag);
+	}
+
+	/**
+	 * Auto Complete - Products with the Names starting with the Prefix (In Memory Index)
+	 */
+	@Operation(summary = "Auto Complete Product Names By Prefix")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Product(s) Found!",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "400",
+					description = "Invalid Prefix!",
+					content = @Content)
+	})
+	@GetMapping("/search/autocomplete/{prefix}")
+	public ResponseEntity<StandardResponse> autocompleteProducts(@PathVariable("prefix") String _prefix,
+			@RequestParam(name = "limit", required = false, defaultValue = "0") int _limit) {
+		log.debug("|"+name()+"|Request to Auto Complete the Product Name ... "+_prefix);
+		List<ProductEntity> products = productServiceImpl.autocompleteProducts(_prefix, _limit);
+		StandardResponse stdResponse = createSuccessResponse("Products Found For Prefix = "+products.size());
+		stdResponse.setPayload(products);
 		return ResponseEntity.ok(stdResponse);
 	}
 
+	/**
+	 * Search the Products by the Price Range (In Memory Index)
+	 */
+	@Operation(summary = "Search Products By Product Price Range (Min / Max Inclusive)")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Product(s) Found!",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "400",
+					description = "Invalid Price Range!",
+					content = @Content)
+	})
+	@GetMapping("/search/price/range")
+	public ResponseEntity<StandardResponse> searchProductsByPriceRange(
+			@RequestParam(name = "min", required = false) BigDecimal _min,
+			@RequestParam(name = "max", required = false) BigDecimal _max,
+			@RequestParam(name = "activeOnly", required = false, defaultValue = "false") boolean _activeOnly,
+			@RequestParam(name = "limit", required = false, defaultValue = "0") int _limit,
+			WebRequest webRequest) {
+		log.debug("|"+name()+"|Request to Search the Product By Price Range... "+_min+" - "+_max);
+		String eTag = catalogETag();
+		if(notModified(webRequest, eTag)) {
+			return null;
+		}
+		List<ProductEntity> products = productServiceImpl.fetchProductsByPriceRange(_min, _max, _activeOnly, _limit);
+		StandardResponse stdResponse = createSuccessResponse("Products Found for Price Range = "+products.size());
+		stdResponse.setPayload(products);
+		return okWithETag(stdResponse, eTag);
+	}
+
 	/**
 	 * Search the Product by Product price
 	 */
@@ -198,12 +377,17 @@ public class ProductControllerImpl extends AbstractController {
 					content = @Content)
 	})
 	@GetMapping("/search/price/{price}")
-	public ResponseEntity<StandardResponse> searchProductsByPrice(@PathVariable("price") BigDecimal _price) {
+	public ResponseEntity<StandardResponse> searchProductsByPrice(@PathVariable("price") BigDecimal _price,
+			WebRequest webRequest) {
 		log.debug("|"+name()+"|Request to Search the Product By Price... "+_price);
+		String eTag = catalogETag();
+		if(notModified(webRequest, eTag)) {
+			return null;
+		}
 		List<ProductEntity> products = productServiceImpl.fetchProductsByPriceGreaterThan(_price);
 		StandardResponse stdResponse = createSuccessResponse("Products Found for Price >= "+_price);
 		stdResponse.setPayload(products);
-		return ResponseEntity.ok(stdResponse);
+		return okWithETag(stdResponse, eTag);
 	}
 
 	/**
@@ -219,12 +403,16 @@ public class ProductControllerImpl extends AbstractController {
 					content = @Content)
 	})
 	@GetMapping("/search/active/")
-	public ResponseEntity<StandardResponse> searchActiveProducts() {
+	public ResponseEntity<StandardResponse> searchActiveProducts(WebRequest webRequest) {
 		log.debug("|"+name()+"|Request to Search the Active Products ... ");
+		String eTag = catalogETag();
+		if(notModified(webRequest, eTag)) {
+			return null;
+		}
 		List<ProductEntity> products = productServiceImpl.fetchActiveProducts();
 		StandardResponse stdResponse = createSuccessResponse("Active Products Found = "+products.size());
 		stdResponse.setPayload(products);
-		return ResponseEntity.ok(stdResponse);
+		return okWithETag(stdResponse, eTag);
 	}
 
 	/**
@@ -271,6 +459,72 @@ public class ProductControllerImpl extends AbstractController {
 		return ResponseEntity.ok(stdResponse);
 	}
 
+	/**
+	 * Bulk De-Activate Products (Product IDs or Zip Code)
+	 */
+	@AuthorizationRequired(role = "user")
+	@Operation(summary = "Bulk De-Activate Products")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Products De-Activated",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "400",
+					description = "Unable to De-Activate the Products",
+					content = @Content)
+	})
+	@PutMapping("/bulk/deactivate")
+	public ResponseEntity<StandardResponse> deActivateProducts(@RequestBody ProductBulkUpdate _update) {
+		log.debug("|"+name()+"|Request to Bulk De-Activate Products... "+_update);
+		int updated = productServiceImpl.deActivateProducts(_update);
+		StandardResponse stdResponse = createSuccessResponse("Products De-Activated = "+updated);
+		stdResponse.setPayload(updated);
+		return ResponseEntity.ok(stdResponse);
+	}
+
+	/**
+	 * Bulk Activate Products (Product IDs or Zip Code)
+	 */
+	@AuthorizationRequired(role = "user")
+	@Operation(summary = "Bulk Activate Products")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Products Activated",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "400",
+					description = "Unable to Activate the Products",
+					content = @Content)
+	})
+	@PutMapping("/bulk/activate")
+	public ResponseEntity<StandardResponse> activateProducts(@RequestBody ProductBulkUpdate _update) {
+		log.debug("|"+name()+"|Request to Bulk Activate Products... "+_update);
+		int updated = productServiceImpl.activateProducts(_update);
+		StandardResponse stdResponse = createSuccessResponse("Products Activated = "+updated);
+		stdResponse.setPayload(updated);
+		return ResponseEntity.ok(stdResponse);
+	}
+
+	/**
+	 * Bulk Update the Product Price (Product IDs or Zip Code)
+	 */
+	@AuthorizationRequired(role = "user")
+	@Operation(summary = "Bulk Update the Product Price")
+	@ApiResponses(value = {
+			@ApiResponse(responseCode = "200",
+					description = "Products Price Updated",
+					content = {@Content(mediaType = "application/json")}),
+			@ApiResponse(responseCode = "400",
+					description = "Unable to Update the Products Price",
+					content = @Content)
+	})
+	@PutMapping("/bulk/price")
+	public ResponseEntity<StandardResponse> updatePrices(@RequestBody ProductBulkUpdate _update) {
+		log.debug("|"+name()+"|Request to Bulk Update the Product Price... "+_update);
+		int updated = productServiceImpl.updatePrices(_update);
+		StandardResponse stdResponse = createSuccessResponse("Products Price Updated = "+updated);
+		stdResponse.setPayload(updated);
+		return ResponseEntity.ok(stdResponse);
+	}
+
 	/**
 	 * Update the Product Details
 	 * This API Can be tested for Optimistic Lock Exceptions as the Entity is a Versioned Entity
@@ -295,6 +549,8 @@ public class ProductControllerImpl extends AbstractController {
 
 	/**
 	 * Update the Product Price
+	 * With If-Match (ETag or Version) the Price is updated ONLY if the Product is still at that
+	 * Version (Single Update Statement, the Product is NOT loaded).
 	 */
 	@Operation(summary = "Update the Product Price")
 	@ApiResponses(value = {
@@ -303,11 +559,21 @@ public class ProductControllerImpl extends AbstractController {
 					content = {@Content(mediaType = "application/json")}),
 			@ApiResponse(responseCode = "400",
 					description = "Unable to Update the Product Price",
+					content = @Content),
+			@ApiResponse(responseCode = "412",
+					description = "Product Version (If-Match) Mismatch",
 					content = @Content)
 	})
 	@PutMapping("/update/price")
-	public ResponseEntity<StandardResponse> updatePrice(@Valid @RequestBody ProductEntity _product) {
+	public ResponseEntity<StandardResponse> updatePrice(@Valid @RequestBody ProductEntity _product,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String _ifMatch) {
 		log.debug("|"+name()+"|Request to Update Product Price... ["+_product);
+		if(!ProductETag.isAny(_ifMatch)) {
+			UUID productId = _product.getUuid();
+			int version = productServiceImpl.updatePrice(productId, _product.getProductPrice(),
+					ProductETag.parseVersion(_ifMatch, productId));
+			return conditionalUpdateResponse("Product Price Updated", productId, version);
+		}
 		ProductEntity prodEntity = productServiceImpl.updatePrice(_product);
 		StandardResponse stdResponse = createSuccessResponse("Product Price Updated");
 		stdResponse.setPayload(prodEntity);
@@ -316,6 +582,8 @@ public class ProductControllerImpl extends AbstractController {
 
 	/**
 	 * Update the Product Details
+	 * With If-Match (ETag or Version) the Details are updated ONLY if the Product is still at that
+	 * Version (Single Update Statement, the Product is NOT loaded).
 	 */
 	@Operation(summary = "Update the Product Details")
 	@ApiResponses(value = {
@@ -324,17 +592,75 @@ public class ProductControllerImpl extends AbstractController {
 					content = {@Content(mediaType = "application/json")}),
 			@ApiResponse(responseCode = "400",
 					description = "Unable to Update the Product Details",
+					content = @Content),
+			@ApiResponse(responseCode = "412",
+					description = "Product Version (If-Match) Mismatch",
 					content = @Content)
 	})
 	@PutMapping("/update/details")
-	public ResponseEntity<StandardResponse> updateProductDetails(@Valid @RequestBody ProductEntity _product) {
+	public ResponseEntity<StandardResponse> updateProductDetails(@Valid @RequestBody ProductEntity _product,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String _ifMatch) {
 		log.debug("|"+name()+"|Request to Update Product Details... "+_product);
+		if(!ProductETag.isAny(_ifMatch)) {
+			UUID productId = _product.getUuid();
+			int version = productServiceImpl.updateProductDetails(productId, _product.getProductName(),
+					_product.getProductDetails(), ProductETag.parseVersion(_ifMatch, productId));
+			return conditionalUpdateResponse("Product Details Updated", productId, version);
+		}
 		ProductEntity prodEntity = productServiceImpl.updateProductDetails(_product);
 		StandardResponse stdResponse = createSuccessResponse("Product Details Updated");
 		stdResponse.setPayload(prodEntity);
 		return ResponseEntity.ok(stdResponse);
 	}
 
+	/**
+	 * Returns the ETag for the List / Search Results (null if the Catalog Version is NOT available)
+	 * @return
+	 */
+	private String catalogETag() {
+		return ProductETag.ofCatalog(productServiceImpl.getCatalogVersion());
+	}
+
+	/**
+	 * Returns True if the If-None-Match matches the ETag (Response is set to 304 Not Modified)
+	 * @param _request
+	 * @param _eTag
+	 * @return
+	 */
+	private boolean notModified(WebRequest _request, String _eTag) {
+		return _eTag != null && _request.checkNotModified(_eTag);
+	}
+
+	/**
+	 * Success Response with the ETag (if available)
+	 * @param _response
+	 * @param _eTag
+	 * @return
+	 */
+	private ResponseEntity<StandardResponse> okWithETag(StandardResponse _response, String _eTag) {
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+		if(_eTag != null) {
+			builder.eTag(_eTag);
+		}
+		return builder.body(_response);
+	}
+
+	/**
+	 * Response for the Conditional Update (Product ID & the New Version with the New ETag)
+	 * @param _message
+	 * @param _productId
+	 * @param _version
+	 * @return
+	 */
+	private ResponseEntity<StandardResponse> conditionalUpdateResponse(String _message, UUID _productId, int _version) {
+		Map<String, Object> payload = new LinkedHashMap<String, Object>();
+		payload.put("productId", _productId);
+		payload.put("version", _version);
+		StandardResponse stdResponse = createSuccessResponse(_message);
+		stdResponse.setPayload(payload);
+		return ResponseEntity.ok().eTag(ProductETag.of(_productId, _version)).body(stdResponse);
+	}
+
 	/**
 	 * Delete the Product
 	 */
@@ -0,0 +1,275 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.index;
+
+import io.fusion.air.microservice.adapters.repository.ProductRepository;
+import io.fusion.air.microservice.utils.algos.Trie;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * In Memory Product Name Index (Trie) for the Prefix Search (Auto Complete)
+ *
+ * Product Names (Case Insensitive) are mapped to the Product IDs. The Index is built at Startup
+ * and rebuilt periodically (to pick up the Changes from the other Nodes). Changes on this Node
+ * are applied incrementally after the Commit. Reads are Lock Free (Copy On Write Trie). A Rebuild
+ * runs without blocking the Readers, and the Changes made during the Rebuild are replayed on the
+ * new Index before it's swapped in.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@Component
+public class ProductNameIndex {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Serializes the Writers (Readers are Lock Free)
+    private final Lock lock = new ReentrantLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    private volatile Trie<UUID> trie = new Trie<UUID>();
+    // Guarded by the Lock
+    private Map<UUID, String> names = new HashMap<UUID, String>();
+    // Changes during the Rebuild (Product ID -> Name, null Name = Removed). Guarded by the Lock
+    private List<Map.Entry<UUID, String>> pending;
+
+    /**
+     * Returns the Product IDs for the Product Names starting with the Prefix
+     * (Highest Weight first, then the Shortest Names)
+     * @param _prefix
+     * @param _limit
+     * @return
+     */
+    public List<UUID> complete(String _prefix, int _limit) {
+        String prefix = normalize(_prefix);
+        if(prefix.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return trie.complete(prefix, _limit);
+    }
+
+    /**
+     * Index the Product Name (after the Commit, or Now if there is no Transaction)
+     * @param _productId
+     * @param _productName
+     */
+    public void put(UUID _productId, String _productName) {
+        putAll(Collections.singletonMap(_productId, _productName));
+    }
+
+    /**
+     * Index the Product Names (after the Commit, or Now if there is no Transaction)
+     * @param _products Product ID -> Product Name
+     */
+    public void putAll(Map<UUID, String> _products) {
+        List<Map.Entry<UUID, String>> changes = new ArrayList<Map.Entry<UUID, String>>(_products.size());
+        for(Map.Entry<UUID, String> entry : _products.entrySet()) {
+            if(entry.getKey() != null && entry.getValue() != null) {
+                changes.add(new AbstractMap.SimpleImmutableEntry<UUID, String>(entry.getKey(), entry.getValue()));
+            }
+        }
+        afterCommit(changes);
+    }
+
+    /**
+     * Remove the Product (after the Commit, or Now if there is no Transaction)
+     * @param _productId
+     */
+    public void remove(UUID _productId) {
+        afterCommit(Collections.singletonList(
+                new AbstractMap.SimpleImmutableEntry<UUID, String>(_productId, null)));
+    }
+
+    /**
+     * Returns the No. of Products in the Index
+     * @return
+     */
+    public int size() {
+        return trie.size();
+    }
+
+    /**
+     * Returns the Estimated Memory Footprint of the Index
+     * @return
+     */
+    public Trie.Footprint footprint() {
+        return trie.footprint();
+    }
+
+    /**
+     * Build the Index at Startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the Index periodically
+     */
+    @Scheduled(initialDelayString = "${service.product.name-index.refresh:600000}",
+            fixedDelayString = "${service.product.name-index.refresh:600000}")
+    public void refresh() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the Index from the Database (Product ID & Name ONLY)
+     */
+    public void rebuild() {
+        if(!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        lock.lock();
+        try {
+            pending = new ArrayList<Map.Entry<UUID, String>>();
+        } finally {
+            lock.unlock();
+        }
+        Trie<UUID> newTrie = new Trie<UUID>();
+        Map<UUID, String> newNames = new HashMap<UUID, String>();
+        try {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(true);
+            tx.executeWithoutResult(status -> {
+                try (Stream<Object[]> products = productRepository.streamProductNames()) {
+                    products.forEach(row -> apply(newTrie, newNames, (UUID) row[0], (String) row[1]));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Product Name Index Rebuild Failed = {}", e.getMessage());
+            lock.lock();
+            try {
+                // Keep the current Index (Changes were applied to it as well)
+                pending = null;
+            } finally {
+                lock.unlock();
+            }
+            rebuilding.set(false);
+            return;
+        }
+        lock.lock();
+        try {
+            for(Map.Entry<UUID, String> change : pending) {
+                apply(newTrie, newNames, change.getKey(), change.getValue());
+            }
+            pending = null;
+            trie = newTrie;
+            names = newNames;
+        } finally {
+            lock.unlock();
+            rebuilding.set(false);
+        }
+        log.info("Product Name Index Rebuilt = {} Products | {}", newNames.size(), newTrie.footprint());
+    }
+
+    /**
+     * Apply the Changes after the Commit (or Now if there is no Transaction)
+     * @param _changes
+     */
+    private void afterCommit(List<Map.Entry<UUID, String>> _changes) {
+        if(_changes.isEmpty()) {
+            return;
+        }
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyChanges(_changes);
+                }
+            });
+        } else {
+            applyChanges(_changes);
+        }
+    }
+
+    /**
+     * Apply the Changes to the Index (and record them if a Rebuild is in progress)
+     * @param _changes
+     */
+    private void applyChanges(List<Map.Entry<UUID, String>> _changes) {
+        lock.lock();
+        try {
+            for(Map.Entry<UUID, String> change : _changes) {
+                apply(trie, names, change.getKey(), change.getValue());
+            }
+            if(pending != null) {
+                pending.addAll(_changes);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Index the Product Name (null Name = Remove the Product)
+     * @param _trie
+     * @param _names
+     * @param _productId
+     * @param _productName
+     */
+    private static void apply(Trie<UUID> _trie, Map<UUID, String> _names, UUID _productId, String _productName) {
+        String name = (_productName != null) ? normalize(_productName) : null;
+        String old = (name != null) ? _names.put(_productId, name) : _names.remove(_productId);
+        if(old != null) {
+            _trie.remove(old, _productId);
+        }
+        if(name != null) {
+            _trie.insert(name, _productId);
+        }
+    }
+
+    /**
+     * Normalize the Name (Trimmed). Unicode Case Folding is done by the Trie.
+     * @param _name
+     * @return
+     */
+    private static String normalize(String _name) {
+        return (_name != null) ? _name.trim() : "";
+    }
+}
@@ -0,0 +1,666 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.index;
+
+import io.fusion.air.microservice.adapters.cache.ProductQueryCache;
+import io.fusion.air.microservice.adapters.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * In Memory Product Price Index for the Price Range Queries (>=, <= and Between)
+ *
+ * Prices are stored as Minor Units (long, Ex. Cents) in a Primitive Array sorted by the Price,
+ * with the Product IDs (Most / Least Significant Bits) in Parallel Arrays. Range Queries are two
+ * Binary Searches and a Copy of the Range. Active Products have a separate Sorted Snapshot, so
+ * the Active Only Queries don't need to skip the Inactive Products.
+ *
+ * Snapshots are Immutable and Reads are Lock Free. Changes on this Node are applied after the
+ * Commit by merging them into a new Snapshot (Linear Merge). The Index is built at Startup and
+ * rebuilt periodically. It's also rebuilt when the Catalog Version shows Changes made by the
+ * other Nodes (Checked every Version Check Interval). Changes made during the Rebuild are
+ * replayed before the new Index is swapped in.
+ *
+ * The Index returns the Product IDs ONLY. Callers check the Price of the Products read, as the
+ * Index can be behind the other Nodes till the next Version Check.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@Component
+public class ProductPriceIndex {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    // Price Scale (Decimal Places) of the Minor Units
+    public static final int PRICE_SCALE = 2;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductQueryCache productQueryCache;
+
+    // Serializes the Writers (Readers are Lock Free)
+    private final Lock lock = new ReentrantLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    private volatile Snapshot all = Snapshot.EMPTY;
+    private volatile Snapshot active = Snapshot.EMPTY;
+    private volatile boolean ready = false;
+    // Catalog Version at the (Start of the) Last Rebuild. -1 = NOT Known
+    private volatile long builtVersion = -1;
+
+    // Guarded by the Lock
+    private Map<UUID, PriceEntry> entries = new HashMap<UUID, PriceEntry>();
+    // Changes during the Rebuild. Guarded by the Lock
+    private List<Change> pending;
+
+    /**
+     * Returns True once the Index is Built
+     * @return
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns the Product IDs with the Price between Min and Max (Inclusive) sorted by the Price
+     * @param _min Min Price (null = No Lower Bound)
+     * @param _max Max Price (null = No Upper Bound)
+     * @param _activeOnly
+     * @param _limit Max Product IDs
+     * @return
+     */
+    public List<UUID> range(BigDecimal _min, BigDecimal _max, boolean _activeOnly, int _limit) {
+        long min = (_min != null) ? toMinorUnits(_min, RoundingMode.CEILING) : Long.MIN_VALUE;
+        long max = (_max != null) ? toMinorUnits(_max, RoundingMode.FLOOR) : Long.MAX_VALUE;
+        return ((_activeOnly) ? active : all).range(min, max, _limit);
+    }
+
+    /**
+     * Returns the Product IDs with the Price >= Min sorted by the Price
+     * @param _min
+     * @param _activeOnly
+     * @param _limit
+     * @return
+     */
+    public List<UUID> greaterThanOrEqual(BigDecimal _min, boolean _activeOnly, int _limit) {
+        return range(_min, null, _activeOnly, _limit);
+    }
+
+    /**
+     * Returns the Product IDs with the Price <= Max sorted by the Price
+     * @param _max
+     * @param _activeOnly
+     * @param _limit
+     * @return
+     */
+    public List<UUID> lessThanOrEqual(BigDecimal _max, boolean _activeOnly, int _limit) {
+        return range(null, _max, _activeOnly, _limit);
+    }
+
+    /**
+     * Returns the No. of Products in the Index
+     * @return
+     */
+    public int size() {
+        return all.size();
+    }
+
+    /**
+     * Index the Product Price & Status (after the Commit, or Now if there is no Transaction)
+     * @param _productId
+     * @param _price
+     * @param _active
+     */
+    public void put(UUID _productId, BigDecimal _price, boolean _active) {
+        if(_productId != null && _price != null) {
+            afterCommit(Collections.singletonList(new Change(_productId, _price, _active ? 1 : 0, false)));
+        }
+    }
+
+    /**
+     * Index the New Price of the Products (Status is NOT changed).
+     * Products NOT in the Index are NOT added (Use put for the New Products).
+     * @param _productIds
+     * @param _price
+     */
+    public void updatePrice(Collection<UUID> _productIds, BigDecimal _price) {
+        if(_price == null) {
+            return;
+        }
+        List<Change> changes = new ArrayList<Change>(_productIds.size());
+        for(UUID productId : _productIds) {
+            changes.add(new Change(productId, _price, -1, false));
+        }
+        afterCommit(changes);
+    }
+
+    /**
+     * Index the Product Prices & Status (New Products are added to the Index)
+     * @param _prices Product ID -> Price
+     * @param _active
+     */
+    public void putAll(Map<UUID, BigDecimal> _prices, boolean _active) {
+        List<Change> changes = new ArrayList<Change>(_prices.size());
+        for(Map.Entry<UUID, BigDecimal> entry : _prices.entrySet()) {
+            if(entry.getKey() != null && entry.getValue() != null) {
+                changes.add(new Change(entry.getKey(), entry.getValue(), _active ? 1 : 0, false));
+            }
+        }
+        afterCommit(changes);
+    }
+
+    /**
+     * Index the New Prices of the Products (Status is NOT changed).
+     * Products NOT in the Index are NOT added (Use put / putAll for the New Products).
+     * @param _prices Product ID -> Price
+     */
+    public void updatePrices(Map<UUID, BigDecimal> _prices) {
+        List<Change> changes = new ArrayList<Change>(_prices.size());
+        for(Map.Entry<UUID, BigDecimal> entry : _prices.entrySet()) {
+            if(entry.getValue() != null) {
+                changes.add(new Change(entry.getKey(), entry.getValue(), -1, false));
+            }
+        }
+        afterCommit(changes);
+    }
+
+    /**
+     * Index the New Status of the Products (Price is NOT changed)
+     * @param _productIds
+     * @param _active
+     */
+    public void updateActive(Collection<UUID> _productIds, boolean _active) {
+        List<Change> changes = new ArrayList<Change>(_productIds.size());
+        for(UUID productId : _productIds) {
+            changes.add(new Change(productId, null, _active ? 1 : 0, false));
+        }
+        afterCommit(changes);
+    }
+
+    /**
+     * Remove the Product (after the Commit, or Now if there is no Transaction)
+     * @param _productId
+     */
+    public void remove(UUID _productId) {
+        afterCommit(Collections.singletonList(new Change(_productId, null, -1, true)));
+    }
+
+    /**
+     * Build the Index at Startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the Index periodically
+     */
+    @Scheduled(initialDelayString = "${service.product.price-index.refresh:600000}",
+            fixedDelayString = "${service.product.price-index.refresh:600000}")
+    public void refresh() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the Index if the Catalog was changed by the other Nodes since the Last Rebuild
+     */
+    @Scheduled(initialDelayString = "${service.product.price-index.version-check:5000}",
+            fixedDelayString = "${service.product.price-index.version-check:5000}")
+    public void checkCatalogVersion() {
+        if(!ready) {
+            return;
+        }
+        long built = builtVersion;
+        long version = productQueryCache.getCatalogVersion();
+        if(version < 0 || version == built) {
+            // Catalog Version NOT available (Redis Down) or NOT changed
+            return;
+        }
+        if(built < 0 || productQueryCache.isChangedByOtherNodes(built, version)) {
+            log.debug("Catalog Version Changed {} -> {} by the other Nodes", built, version);
+            rebuild();
+            return;
+        }
+        // Changes made on this Node ONLY (already in the Index)
+        builtVersion = version;
+        productQueryCache.forgetLocalVersions(version);
+    }
+
+    /**
+     * Rebuild the Index from the Database (Product ID, Price & Status ONLY)
+     */
+    public void rebuild() {
+        if(!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        // Read before the Scan, so that the Changes after this are picked up by the next Check
+        long version = productQueryCache.getCatalogVersion();
+        lock.lock();
+        try {
+            pending = new ArrayList<Change>();
+        } finally {
+            lock.unlock();
+        }
+        Map<UUID, PriceEntry> newEntries = new HashMap<UUID, PriceEntry>();
+        try {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(true);
+            tx.executeWithoutResult(status -> {
+                try (Stream<Object[]> products = productRepository.streamProductPrices()) {
+                    products.forEach(row -> {
+                        UUID productId = (UUID) row[0];
+                        if(row[1] != null) {
+                            newEntries.put(productId, new PriceEntry(productId,
+                                    toMinorUnits((BigDecimal) row[1], RoundingMode.HALF_UP), (Boolean) row[2]));
+                        }
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Product Price Index Rebuild Failed = {}", e.getMessage());
+            lock.lock();
+            try {
+                // Keep the current Index (Changes were applied to it as well)
+                pending = null;
+            } finally {
+                lock.unlock();
+            }
+            rebuilding.set(false);
+            return;
+        }
+        lock.lock();
+        try {
+            for(Change change : pending) {
+                change.apply(newEntries);
+            }
+            pending = null;
+            entries = newEntries;
+            publish(Snapshot.of(newEntries.values()));
+            ready = true;
+            builtVersion = version;
+            if(version >= 0) {
+                productQueryCache.forgetLocalVersions(version);
+            }
+        } finally {
+            lock.unlock();
+            rebuilding.set(false);
+        }
+        log.info("Product Price Index Rebuilt = {} Products ({} Active)", all.size(), active.size());
+    }
+
+    /**
+     * Apply the Changes after the Commit (or Now if there is no Transaction)
+     * @param _changes
+     */
+    private void afterCommit(List<Change> _changes) {
+        if(_changes.isEmpty()) {
+            return;
+        }
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyChanges(_changes);
+                }
+            });
+        } else {
+            applyChanges(_changes);
+        }
+    }
+
+    /**
+     * Apply the Changes and Merge them into a New Snapshot (and record them if a Rebuild is in
+     * progress)
+     * @param _changes
+     */
+    private void applyChanges(List<Change> _changes) {
+        lock.lock();
+        try {
+            // Entries (in the Current Snapshot) before the Changes
+            Map<UUID, PriceEntry> before = new LinkedHashMap<UUID, PriceEntry>();
+            for(Change change : _changes) {
+                if(!before.containsKey(change.productId)) {
+                    before.put(change.productId, entries.get(change.productId));
+                }
+                change.apply(entries);
+            }
+            if(pending != null) {
+                pending.addAll(_changes);
+            }
+            List<PriceEntry> removed = new ArrayList<PriceEntry>();
+            List<PriceEntry> added = new ArrayList<PriceEntry>();
+            for(Map.Entry<UUID, PriceEntry> entry : before.entrySet()) {
+                PriceEntry after = entries.get(entry.getKey());
+                if(entry.getValue() != null && !entry.getValue().equals(after)) {
+                    removed.add(entry.getValue());
+                }
+                if(after != null && !after.equals(entry.getValue())) {
+                    added.add(after);
+                }
+            }
+            if(removed.isEmpty() && added.isEmpty()) {
+                return;
+            }
+            Snapshot merged = all.merge(removed, added);
+            publish((merged != null) ? merged : Snapshot.of(entries.values()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publish the New Snapshot (and the Active Only Snapshot)
+     * @param _all
+     */
+    private void publish(Snapshot _all) {
+        all = _all;
+        active = _all.activeOnly();
+    }
+
+    /**
+     * Convert the Price to the Minor Units (Ex. 10.25 = 1025)
+     * @param _price
+     * @param _rounding
+     * @return
+     */
+    public static long toMinorUnits(BigDecimal _price, RoundingMode _rounding) {
+        return _price.setScale(PRICE_SCALE, _rounding).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Price Entry of a Product (Immutable)
+     */
+    private static final class PriceEntry {
+        private static final Comparator<PriceEntry> ORDER = Comparator
+                .comparingLong((PriceEntry e) -> e.price)
+                .thenComparingLong(e -> e.msb)
+                .thenComparingLong(e -> e.lsb);
+
+        final long price;
+        final long msb;
+        final long lsb;
+        final boolean active;
+
+        PriceEntry(UUID _productId, long _price, boolean _active) {
+            this(_price, _productId.getMostSignificantBits(), _productId.getLeastSignificantBits(), _active);
+        }
+
+        PriceEntry(long _price, long _msb, long _lsb, boolean _active) {
+            this.price  = _price;
+            this.msb    = _msb;
+            this.lsb    = _lsb;
+            this.active = _active;
+        }
+
+        @Override
+        public boolean equals(Object _other) {
+            if(!(_other instanceof PriceEntry)) {
+                return false;
+            }
+            PriceEntry other = (PriceEntry) _other;
+            return price == other.price && msb == other.msb && lsb == other.lsb && active == other.active;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(price) * 31 + Long.hashCode(msb ^ lsb);
+        }
+    }
+
+    /**
+     * Change to the Index (Price = null keeps the Price, Active = -1 keeps the Status)
+     */
+    private static final class Change {
+        final UUID productId;
+        final BigDecimal price;
+        final int active;
+        final boolean remove;
+
+        Change(UUID _productId, BigDecimal _price, int _active, boolean _remove) {
+            this.productId  = _productId;
+            this.price      = _price;
+            this.active     = _active;
+            this.remove     = _remove;
+        }
+
+        void apply(Map<UUID, PriceEntry> _entries) {
+            if(remove) {
+                _entries.remove(productId);
+                return;
+            }
+            PriceEntry current = _entries.get(productId);
+            if(current == null && (price == null || active < 0)) {
+                // Price or Status NOT known (Product NOT in the Index) - picked up by the next Rebuild.
+                // ONLY put() creates the Entries.
+                return;
+            }
+            long minor = (price != null) ? toMinorUnits(price, RoundingMode.HALF_UP) : current.price;
+            boolean isActive = (active >= 0) ? active == 1 : current.active;
+            _entries.put(productId, new PriceEntry(productId, minor, isActive));
+        }
+    }
+
+    /**
+     * Immutable Sorted Snapshot (Price, Product ID) in Parallel Primitive Arrays
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new long[0], new long[0], new long[0], new boolean[0]);
+
+        final long[] prices;
+        final long[] msbs;
+        final long[] lsbs;
+        final boolean[] actives;
+
+        Snapshot(long[] _prices, long[] _msbs, long[] _lsbs, boolean[] _actives) {
+            this.prices     = _prices;
+            this.msbs       = _msbs;
+            this.lsbs       = _lsbs;
+            this.actives    = _actives;
+        }
+
+        static Snapshot of(Collection<PriceEntry> _entries) {
+            List<PriceEntry> sorted = new ArrayList<PriceEntry>(_entries);
+            sorted.sort(PriceEntry.ORDER);
+            int size = sorted.size();
+            Snapshot snapshot = new Snapshot(new long[size], new long[size], new long[size], new boolean[size]);
+            for(int x=0; x<size; x++) {
+                snapshot.set(x, sorted.get(x));
+            }
+            return snapshot;
+        }
+
+        int size() {
+            return prices.length;
+        }
+
+        private void set(int x, PriceEntry _entry) {
+            prices[x]   = _entry.price;
+            msbs[x]     = _entry.msb;
+            lsbs[x]     = _entry.lsb;
+            actives[x]  = _entry.active;
+        }
+
+        private PriceEntry get(int x) {
+            return new PriceEntry(prices[x], msbs[x], lsbs[x], actives[x]);
+        }
+
+        /**
+         * Product IDs with the Price between Min and Max (Inclusive)
+         */
+        List<UUID> range(long _min, long _max, int _limit) {
+            if(_min > _max || _limit <= 0) {
+                return Collections.emptyList();
+            }
+            int from = lowerBound(_min);
+            int to = (int) Math.min(upperBound(_max), (long) from + _limit);
+            if(from >= to) {
+                return Collections.emptyList();
+            }
+            List<UUID> productIds = new ArrayList<UUID>(to - from);
+            for(int x=from; x<to; x++) {
+                productIds.add(new UUID(msbs[x], lsbs[x]));
+            }
+            return productIds;
+        }
+
+        // First Position with the Price >= the Price
+        private int lowerBound(long _price) {
+            int low = 0;
+            int high = prices.length;
+            while(low < high) {
+                int mid = (low + high) >>> 1;
+                if(prices[mid] < _price) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // First Position with the Price > the Price
+        private int upperBound(long _price) {
+            int low = 0;
+            int high = prices.length;
+            while(low < high) {
+                int mid = (low + high) >>> 1;
+                if(prices[mid] <= _price) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Position of the Entry (-1 if NOT Found)
+        private int indexOf(PriceEntry _entry) {
+            int low = lowerBound(_entry.price);
+            int high = upperBound(_entry.price);
+            while(low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = PriceEntry.ORDER.compare(get(mid), _entry);
+                if(cmp < 0) {
+                    low = mid + 1;
+                } else if(cmp > 0) {
+                    high = mid;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Merge the Changes into a New Snapshot (Linear Merge). Returns null if a Removed Entry
+         * is NOT in the Snapshot.
+         */
+        Snapshot merge(List<PriceEntry> _removed, List<PriceEntry> _added) {
+            boolean[] skip = new boolean[prices.length];
+            for(PriceEntry entry : _removed) {
+                int x = indexOf(entry);
+                if(x < 0 || skip[x]) {
+                    return null;
+                }
+                skip[x] = true;
+            }
+            _added.sort(PriceEntry.ORDER);
+            int size = prices.length - _removed.size() + _added.size();
+            Snapshot merged = new Snapshot(new long[size], new long[size], new long[size], new boolean[size]);
+            int x = 0;
+            int a = 0;
+            int m = 0;
+            while(x < prices.length || a < _added.size()) {
+                if(x < prices.length && skip[x]) {
+                    x++;
+                    continue;
+                }
+                if(a >= _added.size() || (x < prices.length && PriceEntry.ORDER.compare(get(x), _added.get(a)) <= 0)) {
+                    merged.prices[m] = prices[x];
+                    merged.msbs[m]   = msbs[x];
+                    merged.lsbs[m]   = lsbs[x];
+                    merged.actives[m] = actives[x];
+                    x++;
+                } else {
+                    merged.set(m, _added.get(a++));
+                }
+                m++;
+            }
+            return merged;
+        }
+
+        /**
+         * Returns the Snapshot of the Active Products
+         */
+        Snapshot activeOnly() {
+            int count = 0;
+            for(boolean isActive : actives) {
+                count += isActive ? 1 : 0;
+            }
+            if(count == actives.length) {
+                return this;
+            }
+            Snapshot snapshot = new Snapshot(new long[count], new long[count], new long[count], new boolean[count]);
+            int m = 0;
+            for(int x=0; x<prices.length; x++) {
+                if(actives[x]) {
+                    snapshot.prices[m]  = prices[x];
+                    snapshot.msbs[m]    = msbs[x];
+                    snapshot.lsbs[m]    = lsbs[x];
+                    snapshot.actives[m] = true;
+                    m++;
+                }
+            }
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fusion.air.microservice.domain.entities.example.ProductEntity;
+import io.fusion.air.microservice.domain.models.example.Product;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Product Feed Listener - Ingests the Product Feed (Ex. from the PIM System) from Kafka
+ *
+ * Records (JSON Product with the Product ID) are consumed in Batches (Max Poll Records) and
+ * - Parsed & Validated (Invalid Records are Logged and Skipped)
+ * - De-Duplicated by the Product ID (Last Record in the Batch Wins)
+ * - Upserted with JDBC Batching in a Single Transaction
+ * Offsets are Committed (Manual Ack) ONLY after the DB Commit. If the Batch Upsert fails the
+ * Records are Upserted One by One and the First Failed Record is reported to the Container Error
+ * Handler (BatchListenerFailedException) - Retried and then sent to the Dead Letter Topic.
+ *
+ * The Record Key MUST be the Product ID (Records with a different Key are Invalid), so all the
+ * Updates of a Product are in One Partition (One Consumer) and the Upsert (Update, else Insert)
+ * of a Product is NOT run concurrently. A Duplicate Insert (Ex. Repartitioned Topic) fails the
+ * Batch and the Record is Updated in the Upsert One by One.
+ *
+ * Concurrency = No. of Consumers (Max 1 Consumer per Partition).
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@Component
+@ConditionalOnProperty(name = "service.product.ingest.enabled", havingValue = "true")
+public class ProductFeedListener {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    @Autowired
+    private ProductFeedWriter productFeedWriter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    /**
+     * Consume the Product Feed Batch
+     * @param _records
+     * @param _ack
+     */
+    @KafkaListener(topics = "${service.product.ingest.topic:ms-cache.product-feed}",
+            groupId = "${service.product.ingest.group:ms-cache-product-feed}",
+            containerFactory = "productFeedContainerFactory",
+            concurrency = "${service.product.ingest.concurrency:3}",
+            properties = { "max.poll.records=${service.product.ingest.max-poll-records:500}" })
+    public void consume(List<ConsumerRecord<String, String>> _records, Acknowledgment _ack) {
+        Map<UUID, Product> products = new LinkedHashMap<UUID, Product>();
+        List<Product> parsed = new ArrayList<Product>(_records.size());
+        int invalid = 0;
+        for(ConsumerRecord<String, String> record : _records) {
+            Product product = parse(record);
+            parsed.add(product);
+            if(product == null) {
+                invalid++;
+                continue;
+            }
+            UUID productId = UUID.fromString(product.getProductId());
+            // Last Record Wins (Moved to the End, same as the Order in the Partition)
+            products.remove(productId);
+            products.put(productId, product);
+        }
+        int inserted;
+        try {
+            inserted = productFeedWriter.upsert(products);
+        } catch (RuntimeException e) {
+            log.warn("Product Feed: Batch Upsert Failed (Upsert One by One) = {}", e.getMessage());
+            inserted = upsertEach(parsed);
+        }
+        // DB Committed - Commit the Offsets
+        _ack.acknowledge();
+        log.info("Product Feed: Records = {} Upserted = {} (New = {}) Invalid = {}",
+                _records.size(), products.size(), inserted, invalid);
+    }
+
+    /**
+     * Upsert the Products One by One (in the Order of the Records)
+     * @param _parsed Product or null (Invalid Record) for every Record in the Batch
+     * @return No. of Products Inserted
+     * @throws BatchListenerFailedException with the Index of the First Failed Record
+     */
+    private int upsertEach(List<Product> _parsed) {
+        int inserted = 0;
+        for(int x=0; x<_parsed.size(); x++) {
+            Product product = _parsed.get(x);
+            if(product == null) {
+                continue;
+            }
+            try {
+                inserted += productFeedWriter.upsert(
+                        Collections.singletonMap(UUID.fromString(product.getProductId()), product));
+            } catch (RuntimeException e) {
+                throw new BatchListenerFailedException("Product Feed: Upsert Failed = "
+                        + product.getProductId(), e, x);
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Parse & Validate the Record
+     * @param _record
+     * @return Product or null if Invalid
+     */
+    private Product parse(ConsumerRecord<String, String> _record) {
+        Product product;
+        try {
+            product = objectMapper.readValue(_record.value(), Product.class);
+        } catch (Exception e) {
+            log.warn("Product Feed: Invalid Record {}-{}@{} = {}", _record.topic(), _record.partition(),
+                    _record.offset(), e.getMessage());
+            return null;
+        }
+        // Product (Feed) & the Product Entity Rules (JDBC Writes bypass the Entity Validation)
+        StringBuilder errors = new StringBuilder();
+        append(errors, validator.validate(product));
+        append(errors, validator.validate(new ProductEntity(product)));
+        if(_record.key() == null || !_record.key().equalsIgnoreCase(product.getProductId())) {
+            errors.append("Record Key must be the Product ID; ");
+        }
+        if(errors.length() > 0) {
+            log.warn("Product Feed: Invalid Product {}-{}@{} = {}", _record.topic(), _record.partition(),
+                    _record.offset(), errors);
+            return null;
+        }
+        return product;
+    }
+
+    /**
+     * Append the Constraint Violations
+     * @param _errors
+     * @param _violations
+     */
+    private <T> void append(StringBuilder _errors, Set<ConstraintViolation<T>> _violations) {
+        for(ConstraintViolation<T> violation : _violations) {
+            _errors.append(violation.getPropertyPath()).append(" ").append(violation.getMessage()).append("; ");
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.ingest;
+
+import io.fusion.air.microservice.adapters.buffer.ProductPriceBuffer;
+import io.fusion.air.microservice.adapters.cache.ProductQueryCache;
+import io.fusion.air.microservice.adapters.index.ProductNameIndex;
+import io.fusion.air.microservice.adapters.index.ProductPriceIndex;
+import io.fusion.air.microservice.adapters.outbox.ProductOutbox;
+import io.fusion.air.microservice.domain.models.example.Product;
+import io.fusion.air.microservice.server.cache.TwoTierCache;
+import io.fusion.air.microservice.server.cache.TwoTierCacheManager;
+import io.fusion.air.microservice.server.config.CacheConfig;
+import io.fusion.air.microservice.server.config.ServiceConfiguration;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Product Feed Writer - Upserts a Batch of Products (Product Feed) into products_m
+ *
+ * 1. JDBC Batched Updates (by the Product ID) for all the Products
+ * 2. JDBC Batched Inserts for the Products NOT Updated (New Products)
+ *
+ * After the Commit the Products are Evicted from the Cache (Single Batch), the Product Name &
+ * Price Indexes are updated and the Catalog Version is Bumped. The Product Events are written
+ * to the Outbox in the same Transaction.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@Component
+public class ProductFeedWriter {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    public static final String FEED_USER = "ProductFeed";
+
+    private static final String UPDATE_SQL = "UPDATE products_m SET productName = ?, productDetails = ?, "
+            + "price = ?, productLocationZipCode = ?, version = version + 1, updatedBy = ?, updatedTime = ? "
+            + "WHERE uuid = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO products_m (uuid, productName, productDetails, "
+            + "price, productLocationZipCode, isActive, version, createdBy, createdTime, updatedBy, updatedTime) "
+            + "VALUES (?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ServiceConfiguration serviceConfig;
+
+    @Autowired
+    private TwoTierCacheManager cacheManager;
+
+    @Autowired
+    private ProductQueryCache productQueryCache;
+
+    @Autowired
+    private ProductNameIndex productNameIndex;
+
+    @Autowired
+    private ProductPriceIndex productPriceIndex;
+
+    @Autowired
+    private ProductOutbox productOutbox;
+
+    @Autowired
+    private ProductPriceBuffer productPriceBuffer;
+
+    /**
+     * Upsert the Products (Validated & De-Duplicated by the Product ID)
+     * @param _products Product ID -> Product
+     * @return No. of Products Inserted
+     */
+    @Transactional(rollbackFor = { SQLException.class })
+    public int upsert(Map<UUID, Product> _products) {
+        if(_products.isEmpty()) {
+            return 0;
+        }
+        int batchSize = Math.max(1, serviceConfig.getDataSourceBatchSize());
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<UUID> productIds = new ArrayList<UUID>(_products.keySet());
+        // The Feed Price wins over the Buffered Price (Write Behind) of the Product
+        productPriceBuffer.discard(productIds);
+
+        // Updates
+        List<Object[]> updates = new ArrayList<Object[]>(productIds.size());
+        for(UUID productId : productIds) {
+            Product p = _products.get(productId);
+            updates.add(new Object[] { p.getProductName(), p.getProductDetails(), p.getProductPrice(),
+                    p.getProductLocationZipCode(), FEED_USER, now, productId });
+        }
+        List<UUID> inserted = new ArrayList<UUID>();
+        for(int x=0; x<updates.size(); x+=batchSize) {
+            int to = Math.min(x + batchSize, updates.size());
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, updates.subList(x, to));
+            for(int y=0; y<counts.length; y++) {
+                // SUCCESS_NO_INFO is treated as Updated (Driver doesn't report the Count)
+                if(counts[y] == 0) {
+                    inserted.add(productIds.get(x + y));
+                }
+            }
+        }
+
+        // Inserts (New Products)
+        List<Object[]> inserts = new ArrayList<Object[]>(inserted.size());
+        for(UUID productId : inserted) {
+            Product p = _products.get(productId);
+            inserts.add(new Object[] { productId, p.getProductName(), p.getProductDetails(), p.getProductPrice(),
+                    p.getProductLocationZipCode(), true, FEED_USER, now, FEED_USER, now });
+        }
+        for(int x=0; x<inserts.size(); x+=batchSize) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts.subList(x, Math.min(x + batchSize, inserts.size())));
+        }
+
+        // Outbox, Indexes, Cache & Catalog Version
+        Set<UUID> created = new HashSet<UUID>(inserted);
+        Map<UUID, String> names = new LinkedHashMap<UUID, String>();
+        Map<UUID, BigDecimal> prices = new LinkedHashMap<UUID, BigDecimal>();
+        Map<UUID, BigDecimal> newPrices = new LinkedHashMap<UUID, BigDecimal>();
+        for(UUID productId : productIds) {
+            Product p = _products.get(productId);
+            names.put(productId, p.getProductName());
+            (created.contains(productId) ? newPrices : prices).put(productId, p.getProductPrice());
+            productOutbox.ingested(productId, p, created.contains(productId));
+        }
+        productNameIndex.putAll(names);
+        productPriceIndex.updatePrices(prices);
+        productPriceIndex.putAll(newPrices, true);
+        evictAfterCommit(productIds, inserted);
+        productQueryCache.bumpCatalogVersion();
+        log.debug("Product Feed: Products Updated = {} Inserted = {}", productIds.size() - inserted.size(), inserted.size());
+        return inserted.size();
+    }
+
+    /**
+     * Evict the Products (and the New Products from the Negative Cache) after the Commit
+     * @param _productIds
+     * @param _inserted
+     */
+    private void evictAfterCommit(Collection<UUID> _productIds, Collection<UUID> _inserted) {
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(CacheConfig.PRODUCT_CACHE, _productIds);
+                    evict(CacheConfig.PRODUCT_NOT_FOUND_CACHE, _inserted);
+                }
+            });
+        } else {
+            evict(CacheConfig.PRODUCT_CACHE, _productIds);
+            evict(CacheConfig.PRODUCT_NOT_FOUND_CACHE, _inserted);
+        }
+    }
+
+    /**
+     * Evict the Products from the Cache (Single Batch)
+     * @param _cacheName
+     * @param _productIds
+     */
+    private void evict(String _cacheName, Collection<UUID> _productIds) {
+        TwoTierCache cache = cacheManager.getTwoTierCache(_cacheName);
+        if(cache == null || _productIds.isEmpty()) {
+            return;
+        }
+        try {
+            cache.evictAll(_productIds);
+        } catch (RuntimeException e) {
+            log.warn("{} Bulk Evict Failed {} Products = {}", _cacheName, _productIds.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fusion.air.microservice.domain.entities.example.ProductEntity;
+import io.fusion.air.microservice.domain.entities.example.ProductOutboxEntity;
+import io.fusion.air.microservice.domain.models.example.Product;
+import io.fusion.air.microservice.domain.models.example.ProductEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Product Outbox - Records the Product Change Events in the Outbox Table in the SAME Transaction
+ * as the Product Change (Propagation = Mandatory). The Events are Published to Kafka by the
+ * Product Outbox Relay, so an Event is Published if and ONLY if the Change is Committed.
+ *
+ * Events are NOT recorded if the Outbox is Disabled (service.product.outbox.enabled).
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@Component
+public class ProductOutbox {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${service.product.outbox.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Returns True if the Outbox is Enabled
+     * @return
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Product Created
+     * @param _product
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void created(ProductEntity _product) {
+        add(ProductEvent.CREATED, _product.getUuid(), _product);
+    }
+
+    /**
+     * Product Updated (Full Product)
+     * @param _product
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void updated(ProductEntity _product) {
+        add(ProductEvent.UPDATED, _product.getUuid(), _product);
+    }
+
+    /**
+     * Product Created / Updated by the Product Feed (Ingestion)
+     * @param _productId
+     * @param _product
+     * @param _created
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void ingested(UUID _productId, Product _product, boolean _created) {
+        add((_created) ? ProductEvent.CREATED : ProductEvent.UPDATED, _productId, _product);
+    }
+
+    /**
+     * Product Name & Details Changed
+     * @param _productId
+     * @param _name
+     * @param _details
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void detailsChanged(UUID _productId, String _name, String _details) {
+        Map<String, Object> payload = payload(_productId);
+        payload.put("productName", _name);
+        payload.put("productDetails", _details);
+        add(ProductEvent.DETAILS_CHANGED, _productId, payload);
+    }
+
+    /**
+     * Product Price Changed
+     * @param _productIds
+     * @param _price
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void priceChanged(Collection<UUID> _productIds, BigDecimal _price) {
+        for(UUID productId : _productIds) {
+            Map<String, Object> payload = payload(productId);
+            payload.put("productPrice", _price);
+            add(ProductEvent.PRICE_CHANGED, productId, payload);
+        }
+    }
+
+    /**
+     * Product Activated / De-Activated
+     * @param _productIds
+     * @param _active
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void activeChanged(Collection<UUID> _productIds, boolean _active) {
+        ProductEvent event = (_active) ? ProductEvent.ACTIVATED : ProductEvent.DEACTIVATED;
+        for(UUID productId : _productIds) {
+            add(event, productId, payload(productId));
+        }
+    }
+
+    /**
+     * Product Deleted
+     * @param _productId
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleted(UUID _productId) {
+        add(ProductEvent.DELETED, _productId, payload(_productId));
+    }
+
+    /**
+     * Payload with the Product ID
+     * @param _productId
+     * @return
+     */
+    private Map<String, Object> payload(UUID _productId) {
+        Map<String, Object> payload = new LinkedHashMap<String, Object>();
+        payload.put("productId", _productId);
+        return payload;
+    }
+
+    /**
+     * Add the Event to the Outbox (Inserted with the Transaction's Flush - JDBC Batched)
+     * @param _event
+     * @param _productId
+     * @param _payload
+     */
+    private void add(ProductEvent _event, UUID _productId, Object _payload) {
+        if(!enabled) {
+            return;
+        }
+        try {
+            entityManager.persist(new ProductOutboxEntity(_event, _productId,
+                    objectMapper.writeValueAsString(_payload)));
+        } catch (JsonProcessingException e) {
+            // Fails the Transaction - Change is NOT Committed without the Event
+            throw new IllegalStateException("Unable to Serialize the Product Event "+_event+" "+_productId, e);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.outbox;
+
+import io.fusion.air.microservice.adapters.repository.ProductOutboxRepository;
+import io.fusion.air.microservice.domain.entities.example.ProductOutboxEntity;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Product Outbox Relay - Publishes the Product Events from the Outbox to Kafka
+ *
+ * Every Linger Interval the Relay drains the Outbox in Batches. For every Batch
+ * 1. Claim the Oldest Events (Short Transaction) - Relays on the other Nodes skip them and the
+ *    Products with Claimed Events (a Product is Published by One Relay at a time)
+ * 2. Publish the Events to Kafka (NO Transaction) - Kafka Key = Product ID (Order per Product).
+ *    The next Event of a Product is sent after the previous Event is Acked, so the Publishing
+ *    stops at the first Failure of the Product (the later Events are NOT sent). All the Acks
+ *    are awaited with a Single Deadline for the Batch (Half of the Claim Timeout).
+ * 3. Delete the Published Events in Bulk and Release the Failed ones (Short Transaction) - ONLY
+ *    the Events still Claimed by the Relay (Claim Token)
+ *
+ * Events are Published at least once. The Outbox ID is sent in the Event ID Header, so the
+ * Consumers can drop the Duplicates. Events with an expired Claim (Ex. Node crashed after the
+ * Claim) are picked up again.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@Component
+@ConditionalOnProperty(name = "service.product.outbox.enabled", havingValue = "true")
+public class ProductOutboxRelay {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    public static final String EVENT_ID     = "eventId";
+    public static final String EVENT_TYPE   = "eventType";
+    // Max Events in a Batch (IN List of the Claim & Delete)
+    public static final int MAX_BATCH_SIZE  = 1000;
+
+    @Autowired
+    private ProductOutboxRepository outboxRepository;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${service.product.outbox.topic:ms-cache.product-events}")
+    private String topic;
+
+    @Value("${service.product.outbox.batch.size:500}")
+    private int batchSize;
+
+    @Value("${service.product.outbox.claim.timeout:30000}")
+    private long claimTimeout;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong claims = new AtomicLong();
+
+    /**
+     * Drain the Outbox (Runs every Linger Interval)
+     */
+    @Scheduled(fixedDelayString = "${service.product.outbox.linger:100}")
+    public void relay() {
+        int size = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        long published = 0;
+        int claimed;
+        int sent;
+        try {
+            do {
+                Claim claim = claim(size);
+                claimed = claim.events.size();
+                sent = publish(claim);
+                published += sent;
+            // Full Batch = more Events in the Outbox (Stop on a Failure till the next Poll)
+            } while(claimed == size && sent == claimed);
+        } catch (RuntimeException e) {
+            log.warn("Product Outbox Relay Failed = {}", e.getMessage());
+        }
+        if(published > 0) {
+            log.debug("Product Events Published = {}", published);
+        }
+    }
+
+    /**
+     * Claim the Oldest Events in the Outbox
+     * @param _size
+     * @return
+     */
+    private Claim claim(int _size) {
+        String claimToken = nodeId + ":" + claims.incrementAndGet();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<ProductOutboxEntity> events = tx.execute(status -> {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            List<Long> ids = outboxRepository.fetchClaimableIds(now, PageRequest.of(0, _size));
+            if(ids.isEmpty()) {
+                return Collections.<ProductOutboxEntity>emptyList();
+            }
+            Timestamp claimedUntil = new Timestamp(now.getTime() + claimTimeout);
+            if(outboxRepository.claim(ids, claimToken, claimedUntil, now) == 0) {
+                return Collections.<ProductOutboxEntity>emptyList();
+            }
+            return outboxRepository.fetchClaimed(ids, claimToken);
+        });
+        return new Claim(claimToken, (events != null) ? events : Collections.<ProductOutboxEntity>emptyList());
+    }
+
+    /**
+     * Publish the Events (Async Sends, Chained per Product) and wait for the Acks till the
+     * Deadline of the Batch. Published Events are Deleted and the Failed Events are Released.
+     * @param _claim
+     * @return No. of Events Published
+     */
+    private int publish(Claim _claim) {
+        List<ProductOutboxEntity> events = _claim.events;
+        if(events.isEmpty()) {
+            return 0;
+        }
+        // Deadline of the Batch (Delete / Release before the Claim Expires)
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(claimTimeout / 2);
+        List<CompletableFuture<SendResult<String, String>>> sends =
+                new ArrayList<CompletableFuture<SendResult<String, String>>>(events.size());
+        Map<UUID, CompletableFuture<SendResult<String, String>>> lastSend =
+                new HashMap<UUID, CompletableFuture<SendResult<String, String>>>();
+        for(ProductOutboxEntity event : events) {
+            ProducerRecord<String, String> record = new ProducerRecord<String, String>(topic,
+                    event.getProductId().toString(), event.getPayload());
+            record.headers().add(EVENT_ID, String.valueOf(event.getId()).getBytes(StandardCharsets.UTF_8));
+            record.headers().add(EVENT_TYPE, event.getEventType().name().getBytes(StandardCharsets.UTF_8));
+            CompletableFuture<SendResult<String, String>> previous = lastSend.get(event.getProductId());
+            // Failure of the previous Event of the Product fails the Event (NOT sent)
+            CompletableFuture<SendResult<String, String>> send = (previous == null)
+                    ? kafkaTemplate.send(record)
+                    : previous.thenCompose(result -> kafkaTemplate.send(record));
+            lastSend.put(event.getProductId(), send);
+            sends.add(send);
+        }
+        List<Long> published = new ArrayList<Long>(events.size());
+        List<Long> failed = new ArrayList<Long>();
+        for(int x=0; x<events.size(); x++) {
+            try {
+                sends.get(x).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                published.add(events.get(x).getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sends.get(x).cancel(false);
+                failed.add(events.get(x).getId());
+            } catch (Exception e) {
+                // Cancel = the Chained Sends of the Product are NOT sent after the Release
+                sends.get(x).cancel(false);
+                failed.add(events.get(x).getId());
+            }
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            if(!published.isEmpty()) {
+                outboxRepository.deleteByIds(published, _claim.token);
+            }
+            if(!failed.isEmpty()) {
+                outboxRepository.release(failed, _claim.token);
+            }
+        });
+        if(!failed.isEmpty()) {
+            log.warn("Product Events Failed to Publish = {} (Retried in the next Poll)", failed.size());
+        }
+        return published.size();
+    }
+
+    /**
+     * Events Claimed by the Relay (Claim Token)
+     */
+    private static final class Claim {
+
+        private final String token;
+        private final List<ProductOutboxEntity> events;
+
+        private Claim(String _token, List<ProductOutboxEntity> _events) {
+            this.token  = _token;
+            this.events = _events;
+        }
+    }
+}
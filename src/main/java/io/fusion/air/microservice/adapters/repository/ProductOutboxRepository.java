@@ -0,0 +1,107 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.repository;
+
+import io.fusion.air.microservice.domain.entities.example.ProductOutboxEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Product Outbox Repository
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@Repository
+public interface ProductOutboxRepository extends JpaRepository<ProductOutboxEntity, Long> {
+
+    /**
+     * Returns the IDs of the Events which are NOT Claimed (or the Claim has Expired) in the
+     * Order of the Events (Created Time). Products with Events Claimed by a Relay are skipped,
+     * so the Events of a Product are Published by One Relay at a time (in Order).
+     * @param now
+     * @param pageable Batch Size
+     * @return
+     */
+    @Query("SELECT outbox.id FROM ProductOutboxEntity outbox "
+            + "WHERE (outbox.claimedUntil IS NULL OR outbox.claimedUntil < :now) "
+            + "AND NOT EXISTS (SELECT claimed.id FROM ProductOutboxEntity claimed "
+            + "WHERE claimed.productId = outbox.productId AND claimed.claimedUntil >= :now) "
+            + "ORDER BY outbox.createdTime, outbox.id")
+    public List<Long> fetchClaimableIds(@Param("now") Timestamp now, Pageable pageable);
+
+    /**
+     * Claim the Events (Events Claimed by another Relay in between are skipped). The Events of the
+     * Products with an Event Claimed by another Relay in between are skipped as well, so that two
+     * Relays never Claim (and Publish) the Events of the same Product at the same time.
+     * @param ids
+     * @param claimedBy Claim Token (Unique for every Claim)
+     * @param claimedUntil
+     * @param now
+     * @return No. of Events Claimed
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductOutboxEntity outbox SET outbox.claimedBy = :claimedBy, outbox.claimedUntil = :claimedUntil "
+            + "WHERE outbox.id IN :ids AND (outbox.claimedUntil IS NULL OR outbox.claimedUntil < :now) "
+            + "AND NOT EXISTS (SELECT claimed.id FROM ProductOutboxEntity claimed "
+            + "WHERE claimed.productId = outbox.productId AND claimed.claimedUntil >= :now "
+            + "AND claimed.claimedBy <> :claimedBy)")
+    public int claim(@Param("ids") Collection<Long> ids, @Param("claimedBy") String claimedBy,
+                     @Param("claimedUntil") Timestamp claimedUntil, @Param("now") Timestamp now);
+
+    /**
+     * Returns the Events Claimed (Claim Token) in the Order of the Events
+     * @param ids
+     * @param claimedBy
+     * @return
+     */
+    @Query("SELECT outbox FROM ProductOutboxEntity outbox WHERE outbox.id IN :ids "
+            + "AND outbox.claimedBy = :claimedBy ORDER BY outbox.createdTime, outbox.id")
+    public List<ProductOutboxEntity> fetchClaimed(@Param("ids") Collection<Long> ids,
+                                                  @Param("claimedBy") String claimedBy);
+
+    /**
+     * Release the Claim on the Events (Failed to Publish, picked up again in the next Poll)
+     * Events Re-Claimed by another Relay (Claim Expired) are NOT changed.
+     * @param ids
+     * @param claimedBy Claim Token
+     * @return
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductOutboxEntity outbox SET outbox.claimedBy = NULL, outbox.claimedUntil = NULL "
+            + "WHERE outbox.id IN :ids AND outbox.claimedBy = :claimedBy")
+    public int release(@Param("ids") Collection<Long> ids, @Param("claimedBy") String claimedBy);
+
+    /**
+     * Delete the Published Events
+     * Events Re-Claimed by another Relay (Claim Expired) are NOT Deleted (Published again).
+     * @param ids
+     * @param claimedBy Claim Token
+     * @return
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM ProductOutboxEntity outbox WHERE outbox.id IN :ids AND outbox.claimedBy = :claimedBy")
+    public int deleteByIds(@Param("ids") Collection<Long> ids, @Param("claimedBy") String claimedBy);
+}
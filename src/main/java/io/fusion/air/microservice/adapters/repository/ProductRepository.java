@@ -16,15 +16,28 @@
 package io.fusion.air.microservice.adapters.repository;
 
 import io.fusion.air.microservice.domain.entities.example.ProductEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 /**
  * Example
@@ -43,6 +56,14 @@ public interface ProductRepository extends JpaRepository<ProductEntity, UUID> {
      */
     public Optional<ProductEntity> findById(UUID productId);
 
+    /**
+     * Returns the Version of the Product (Entity is NOT loaded)
+     * @param uuid
+     * @return
+     */
+    @Query("SELECT product.version FROM ProductEntity product WHERE product.uuid = :uuid")
+    public Optional<Integer> fetchVersionById(@Param("uuid") UUID uuid);
+
     /**
      * Search for the Product By Price Greater Than or Equal To
      * @param price
@@ -51,6 +72,20 @@ public interface ProductRepository extends JpaRepository<ProductEntity, UUID> {
     @Query("SELECT product FROM ProductEntity product WHERE product.productPrice >= :price ")
     public List<ProductEntity> fetchProductsByPriceGreaterThan(@Param("price") BigDecimal price);
 
+    /**
+     * Search for the Products with the Price between Min and Max (Inclusive) sorted by the Price
+     * @param min
+     * @param max
+     * @param activeOnly
+     * @param pageable
+     * @return
+     */
+    @Query("SELECT product FROM ProductEntity product WHERE product.productPrice >= :min "
+            + "AND product.productPrice <= :max AND (product.isActive = true OR :activeOnly = false) "
+            + "ORDER BY product.productPrice, product.uuid")
+    public List<ProductEntity> fetchProductsByPriceRange(@Param("min") BigDecimal min, @Param("max") BigDecimal max,
+                                                         @Param("activeOnly") boolean activeOnly, Pageable pageable);
+
     /**
      * Returns Active Products Only
      * @return
@@ -65,6 +100,188 @@ public interface ProductRepository extends JpaRepository<ProductEntity, UUID> {
      */
     public List<ProductEntity> findByProductNameContains(String name);
 
+    /**
+     * Keyset Pagination - First Page (Ordered by Created Time, UUID)
+     * @param page Page Size (Page Number is always 0)
+     * @return
+     */
+    @Query("SELECT product FROM ProductEntity product "
+            + "ORDER BY product.auditLog.createdTime, product.uuid")
+    public List<ProductEntity> fetchProductsFirstPage(Pageable page);
+
+    /**
+     * Keyset Pagination - Products after the (Created Time, UUID) of the Last Product of the Page
+     * @param createdTime
+     * @param uuid
+     * @param page Page Size (Page Number is always 0)
+     * @return
+     */
+    @Query("SELECT product FROM ProductEntity product "
+            + "WHERE product.auditLog.createdTime > :createdTime "
+            + "OR (product.auditLog.createdTime = :createdTime AND product.uuid > :uuid) "
+            + "ORDER BY product.auditLog.createdTime, product.uuid")
+    public List<ProductEntity> fetchProductsAfter(@Param("createdTime") Timestamp createdTime,
+                                                  @Param("uuid") UUID uuid, Pageable page);
+
+    /**
+     * Stream All the Products (Forward Only). MUST be consumed inside a Transaction and Closed.
+     * Rows are fetched from the Database in Batches (Fetch Size) and the Entities are Read Only
+     * (No Dirty Checking Snapshots).
+     * @return
+     */
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT product FROM ProductEntity product "
+            + "ORDER BY product.auditLog.createdTime, product.uuid")
+    public Stream<ProductEntity> streamAllProducts();
+
+    /**
+     * Stream the Product ID & Name of All the Products (Ex. to build the Product Name Index).
+     * MUST be consumed inside a Transaction and Closed.
+     * @return Product ID, Product Name
+     */
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT product.uuid, product.productName FROM ProductEntity product")
+    public Stream<Object[]> streamProductNames();
+
+    /**
+     * Stream the Product ID, Price & Status (Product Price Index)
+     * @return
+     */
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT product.uuid, product.productPrice, product.isActive FROM ProductEntity product")
+    public Stream<Object[]> streamProductPrices();
+
+    /**
+     * Returns the Product IDs for the Zip Code
+     * @param zipCode
+     * @return
+     */
+    @Query("SELECT product.uuid FROM ProductEntity product WHERE product.productLocationZipCode = :zipCode")
+    public List<UUID> fetchProductIdsByZipCode(@Param("zipCode") String zipCode);
+
+    /**
+     * Lock the Products (Select For Update) and Returns the IDs of the Products Found.
+     * Bulk Updates are run on these IDs ONLY (Rows are NOT changed by others till the Commit).
+     * @param ids
+     * @return
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT product.uuid FROM ProductEntity product WHERE product.uuid IN :ids")
+    public List<UUID> lockProductIds(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Lock the Products for the Zip Code (Select For Update) and Returns the Product IDs
+     * @param zipCode
+     * @return
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT product.uuid FROM ProductEntity product WHERE product.productLocationZipCode = :zipCode")
+    public List<UUID> lockProductIdsByZipCode(@Param("zipCode") String zipCode);
+
+    /**
+     * Lock the Products NOT in the requested State (Select For Update) and Returns the Product IDs
+     * @param ids
+     * @param active
+     * @return
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT product.uuid FROM ProductEntity product WHERE product.uuid IN :ids AND product.isActive <> :active")
+    public List<UUID> lockProductIdsToActivate(@Param("ids") Collection<UUID> ids, @Param("active") boolean active);
+
+    /**
+     * Lock the Products for the Zip Code NOT in the requested State (Select For Update) and
+     * Returns the Product IDs
+     * @param zipCode
+     * @param active
+     * @return
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT product.uuid FROM ProductEntity product WHERE product.productLocationZipCode = :zipCode "
+            + "AND product.isActive <> :active")
+    public List<UUID> lockProductIdsToActivateByZipCode(@Param("zipCode") String zipCode,
+                                                        @Param("active") boolean active);
+
+    /**
+     * Bulk Update the Price for the Product IDs (Single Statement).
+     * Version and the Audit Log are updated in the same Statement.
+     * @param ids
+     * @param price
+     * @param updatedTime
+     * @param updatedBy
+     * @return No. of Products Updated
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductEntity product SET product.productPrice = :price, "
+            + "product.version = product.version + 1, "
+            + "product.auditLog.updatedTime = :updatedTime, product.auditLog.updatedBy = :updatedBy "
+            + "WHERE product.uuid IN :ids")
+    public int updatePriceByIds(@Param("ids") Collection<UUID> ids, @Param("price") BigDecimal price,
+                                @Param("updatedTime") Timestamp updatedTime, @Param("updatedBy") String updatedBy);
+
+    /**
+     * Bulk Activate / De-Activate the Product IDs (Single Statement).
+     * Products already in the requested State are NOT updated.
+     * @param ids
+     * @param active
+     * @param updatedTime
+     * @param updatedBy
+     * @return No. of Products Updated
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductEntity product SET product.isActive = :active, "
+            + "product.version = product.version + 1, "
+            + "product.auditLog.updatedTime = :updatedTime, product.auditLog.updatedBy = :updatedBy "
+            + "WHERE product.uuid IN :ids AND product.isActive <> :active")
+    public int updateActiveByIds(@Param("ids") Collection<UUID> ids, @Param("active") boolean active,
+                                 @Param("updatedTime") Timestamp updatedTime, @Param("updatedBy") String updatedBy);
+
+    /**
+     * Conditional Update of the Price (Single Statement). Updated ONLY if the Version matches.
+     * @param uuid
+     * @param version Expected Version
+     * @param price
+     * @param updatedTime
+     * @param updatedBy
+     * @return 1 if Updated, 0 if NOT Found or Version Mismatch
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductEntity product SET product.productPrice = :price, "
+            + "product.version = product.version + 1, "
+            + "product.auditLog.updatedTime = :updatedTime, product.auditLog.updatedBy = :updatedBy "
+            + "WHERE product.uuid = :uuid AND product.version = :version")
+    public int updatePriceIfVersion(@Param("uuid") UUID uuid, @Param("version") int version,
+                                    @Param("price") BigDecimal price,
+                                    @Param("updatedTime") Timestamp updatedTime, @Param("updatedBy") String updatedBy);
+
+    /**
+     * Conditional Update of the Name & Details (Single Statement). Updated ONLY if the Version matches.
+     * @param uuid
+     * @param version Expected Version
+     * @param name
+     * @param details
+     * @param updatedTime
+     * @param updatedBy
+     * @return 1 if Updated, 0 if NOT Found or Version Mismatch
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductEntity product SET product.productName = :name, product.productDetails = :details, "
+            + "product.version = product.version + 1, "
+            + "product.auditLog.updatedTime = :updatedTime, product.auditLog.updatedBy = :updatedBy "
+            + "WHERE product.uuid = :uuid AND product.version = :version")
+    public int updateDetailsIfVersion(@Param("uuid") UUID uuid, @Param("version") int version,
+                                      @Param("name") String name, @Param("details") String details,
+                                      @Param("updatedTime") Timestamp updatedTime, @Param("updatedBy") String updatedBy);
+
     // Added remark
 
 }
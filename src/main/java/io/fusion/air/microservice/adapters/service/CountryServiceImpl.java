@@ -15,29 +15,120 @@
  */
 package io.fusion.air.microservice.adapters.service;
 
-import io.fusion.air.microservice.domain.entities.example.CountryEntity;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.fusion.air.microservice.adapters.repository.CountryRepository;
+import io.fusion.air.microservice.domain.exceptions.DataNotFoundException;
+import io.fusion.air.microservice.domain.models.example.Country;
+import io.fusion.air.microservice.domain.models.example.CountrySnapshot;
 import io.fusion.air.microservice.domain.ports.services.CountryService;
+import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.web.context.annotation.RequestScope;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
 
 /**
+ * Country Service - Countries (Reference Data) are loaded once into an Immutable Snapshot
+ * (Immutable Value Objects, NOT the Entities) and served from Memory. The Snapshot is swapped atomically on a Reload.
+ *
  * @author: Araf Karsh Hamid
  * @version:
  * @date:
  */
 @Service
-@RequestScope
 public class CountryServiceImpl implements CountryService {
 
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
     @Autowired
     CountryRepository countryRepositoryImpl;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final AtomicReference<CountrySnapshot> snapshot = new AtomicReference<CountrySnapshot>();
+
+    /**
+     * Load the Countries at Startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if(snapshot.get() == null) {
+            reload();
+        }
+    }
+
+    /**
+     * Returns All the Countries (Read Only)
+     * @return
+     */
+    @Override
+    public List<Country> getAllCountries() {
+        return getSnapshot().getCountries();
+    }
+
+    /**
+     * Returns the Country for the Country Code
+     * @param _countryCode
+     * @return
+     */
+    @Override
+    public Country getCountryByCode(String _countryCode) {
+        Country country = getSnapshot().getByCode(_countryCode);
+        if(country == null) {
+            throw new DataNotFoundException("Country not found with Code : " + _countryCode);
+        }
+        return country;
+    }
+
+    /**
+     * Returns the Country for the Country ID
+     * @param _countryId
+     * @return
+     */
+    @Override
+    public Country getCountryById(int _countryId) {
+        Country country = getSnapshot().getById(_countryId);
+        if(country == null) {
+            throw new DataNotFoundException("Country not found with ID : " + _countryId);
+        }
+        return country;
+    }
+
+    /**
+     * Returns the Current Snapshot (Loaded on the First Call if NOT Loaded yet)
+     * @return
+     */
+    @Override
+    public CountrySnapshot getSnapshot() {
+        CountrySnapshot current = snapshot.get();
+        return (current != null) ? current : reload();
+    }
+
+    /**
+     * Reload the Countries from the Database and Swap the Snapshot
+     * @return New Snapshot
+     */
     @Override
-    public List<CountryEntity> getAllCountries() {
-        return (List<CountryEntity>) countryRepositoryImpl.findAll();
+    public synchronized CountrySnapshot reload() {
+        Country[] countries = CountrySnapshot.sort(countryRepositoryImpl.findAll());
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(countries);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to Serialize the Countries", e);
+        }
+        CountrySnapshot current = new CountrySnapshot(countries, json, System.currentTimeMillis());
+        snapshot.set(current);
+        log.info("Countries Loaded = {} ({} bytes)", current.size(), json.length);
+        return current;
     }
 }
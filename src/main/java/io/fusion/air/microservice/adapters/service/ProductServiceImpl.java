@@ -15,27 +15,66 @@
  */
 package io.fusion.air.microservice.adapters.service;
 
+import io.fusion.air.microservice.adapters.buffer.ProductPriceBuffer;
+import io.fusion.air.microservice.adapters.cache.ProductBulkCache;
+import io.fusion.air.microservice.adapters.cache.ProductQueryCache;
+import io.fusion.air.microservice.adapters.index.ProductNameIndex;
+import io.fusion.air.microservice.adapters.index.ProductPriceIndex;
+import io.fusion.air.microservice.adapters.outbox.ProductOutbox;
 import io.fusion.air.microservice.adapters.repository.ProductRepository;
+import io.fusion.air.microservice.domain.entities.core.AuditLog;
 import io.fusion.air.microservice.domain.entities.example.ProductEntity;
 import io.fusion.air.microservice.domain.exceptions.DataNotFoundException;
+import io.fusion.air.microservice.domain.exceptions.DataVersionMismatchException;
+import io.fusion.air.microservice.domain.exceptions.InputDataException;
 
 import io.fusion.air.microservice.domain.models.example.Product;
+import io.fusion.air.microservice.domain.models.example.ProductBulkUpdate;
+import io.fusion.air.microservice.domain.models.example.ProductCursor;
+import io.fusion.air.microservice.domain.models.example.ProductPage;
 import io.fusion.air.microservice.domain.ports.services.ProductService;
 
+import io.fusion.air.microservice.server.cache.TwoTierCache;
+import io.fusion.air.microservice.server.cache.TwoTierCacheManager;
+import io.fusion.air.microservice.server.config.CacheConfig;
+import io.fusion.air.microservice.server.config.ServiceConfiguration;
+import io.fusion.air.microservice.server.db.PrimaryReader;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.context.annotation.RequestScope;
 
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.PersistenceException;
 import java.math.BigDecimal;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 
 import static java.lang.invoke.MethodHandles.lookup;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -43,6 +82,15 @@ import static org.slf4j.LoggerFactory.getLogger;
 /**
  * An Example of Standard CRUD Operations in a Jpa Repository
  *
+ * Products are cached (Cache Aside) in the productCache. Reads populate the Cache and
+ * every Mutation updates (CachePut) or removes (CacheEvict) the affected Product.
+ * Product IDs NOT Found are remembered (Tombstones) in the productNotFoundCache with a short TTL.
+ * Search Results are cached (Product IDs) in the Product Query Cache. Every Mutation increments
+ * the Catalog Version, which invalidates all the cached Search Results.
+ * Product Names are kept in the Product Name Index (Auto Complete), updated after the Commit.
+ * Bulk Updates run as Set based Statements (NO Entities loaded) and evict the affected
+ * Products from the Cache in a single Batch after the Commit.
+ *
  * @author: Araf Karsh Hamid
  * @version:
  * @date:
@@ -58,6 +106,49 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ServiceConfiguration serviceConfig;
+
+    @Autowired
+    private PrimaryReader primaryReader;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TwoTierCacheManager cacheManager;
+
+    @Autowired
+    private ProductQueryCache productQueryCache;
+
+    @Autowired
+    private ProductBulkCache productBulkCache;
+
+    @Autowired
+    private ProductNameIndex productNameIndex;
+
+    @Autowired
+    private ProductPriceIndex productPriceIndex;
+
+    @Autowired
+    private ProductOutbox productOutbox;
+
+    @Autowired
+    private ProductPriceBuffer productPriceBuffer;
+
+    // Max Product IDs in a Bulk Lookup
+    public static final int MAX_BULK_IDS = 500;
+    // Max Products in a Bulk Create
+    public static final int MAX_BULK_CREATE = 10000;
+    // Max Product IDs in a Bulk Update & the Max IDs in a Single Update Statement (IN List)
+    public static final int MAX_BULK_UPDATE = 10000;
+    public static final int BULK_UPDATE_CHUNK = 1000;
+    // Auto Complete - Default & Max Products
+    public static final int AUTOCOMPLETE_LIMIT = 10;
+    public static final int MAX_AUTOCOMPLETE_LIMIT = 50;
+    // Price Range Search - Default Products
+    public static final int PRICE_RANGE_LIMIT = 100;
+
     /**
      * WARNING:
      * This Method is ONLY For Demo Purpose. In Real World Scenario there should NOT be any
@@ -68,18 +159,73 @@ public class ProductServiceImpl implements ProductService {
      * @return
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ProductEntity> getAllProduct() {
         return this.productRepository.findAll();
     }
 
+    /**
+     * Get the Products (Keyset Pagination ordered by Created Time, UUID)
+     * The Query seeks directly to the Cursor (Index on Created Time, UUID), so the cost of a
+     * Page doesn't depend on the Page Position or the Catalog Size.
+     *
+     * @param _cursor Cursor from the Previous Page (null for the First Page)
+     * @param _size Page Size (0 = Default Page Size, capped at the Max Page Size)
+     * @return
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPage getProducts(String _cursor, int _size) {
+        int size = (_size > 0) ? _size : serviceConfig.getProductPageSize();
+        size = Math.min(size, serviceConfig.getProductPageMaxSize());
+        List<ProductEntity> products;
+        if(_cursor == null || _cursor.isBlank()) {
+            products = productRepository.fetchProductsFirstPage(PageRequest.of(0, size));
+        } else {
+            ProductCursor cursor = ProductCursor.decode(_cursor.trim());
+            products = productRepository.fetchProductsAfter(cursor.getCreatedTime(), cursor.getUuid(),
+                    PageRequest.of(0, size));
+        }
+        String nextCursor = (products.size() == size)
+                ? ProductCursor.of(products.get(products.size() - 1)).encode()
+                : null;
+        return new ProductPage(products, nextCursor);
+    }
+
+    /**
+     * Stream All the Products (One at a time) to the Consumer.
+     * Products are read with a Forward Only Stream (Fetch Size Tuned) and Detached from the
+     * Persistence Context once consumed, so the Heap usage doesn't grow with the No. of Products.
+     *
+     * @param _consumer
+     * @return No. of Products
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long streamAllProducts(Consumer<ProductEntity> _consumer) {
+        long count = 0;
+        try (Stream<ProductEntity> products = productRepository.streamAllProducts()) {
+            Iterator<ProductEntity> iterator = products.iterator();
+            while(iterator.hasNext()) {
+                ProductEntity product = iterator.next();
+                _consumer.accept(product);
+                entityManager.detach(product);
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Search for the Product By the Product Names Like 'name'
      * @param _name
      * @return
      */
+    @Transactional(readOnly = true)
     public List<ProductEntity> fetchProductsByName(String _name) {
         String name = _name != null ? _name.trim() : "%";
-        List<ProductEntity> products = productRepository.findByProductNameContains(name);
+        List<ProductEntity> products = productQueryCache.query("byName",
+                () -> productRepository.findByProductNameContains(name), name);
         return checkProducts(products, name);
     }
 
@@ -88,20 +234,103 @@ public class ProductServiceImpl implements ProductService {
      * @param price
      * @return
      */
+    @Transactional(readOnly = true)
     public List<ProductEntity> fetchProductsByPriceGreaterThan(BigDecimal price) {
-        List<ProductEntity> products = productRepository.fetchProductsByPriceGreaterThan(price);
+        if(productPriceIndex.isReady() && price != null) {
+            List<UUID> productIds = productPriceIndex.greaterThanOrEqual(price, false, Integer.MAX_VALUE);
+            return checkProducts(filterByPrice(productBulkCache.getProducts(productIds), price, null, false), price);
+        }
+        List<ProductEntity> products = productQueryCache.query("byPriceGreaterThan",
+                () -> productRepository.fetchProductsByPriceGreaterThan(price),
+                (price != null) ? price.stripTrailingZeros().toPlainString() : null);
         return checkProducts(products, price);
     }
 
+    /**
+     * Search for the Products with the Price between Min and Max (Inclusive) sorted by the Price.
+     * Product IDs are found in the Product Price Index and the Products are read from the Cache.
+     * @param _min Min Price (null = No Lower Bound)
+     * @param _max Max Price (null = No Upper Bound)
+     * @param _activeOnly
+     * @param _limit Max Products (0 = Default)
+     * @return
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductEntity> fetchProductsByPriceRange(BigDecimal _min, BigDecimal _max,
+                                                         boolean _activeOnly, int _limit) {
+        if(_min == null && _max == null) {
+            throw new InputDataException("Min or Max Product Price is required!");
+        }
+        if(_min != null && _max != null && _min.compareTo(_max) > 0) {
+            throw new InputDataException("Min Product Price ["+_min+"] is greater than the Max ["+_max+"]");
+        }
+        int limit = (_limit > 0) ? Math.min(_limit, MAX_BULK_IDS) : PRICE_RANGE_LIMIT;
+        List<ProductEntity> products;
+        if(productPriceIndex.isReady()) {
+            products = filterByPrice(productBulkCache.getProducts(productPriceIndex.range(_min, _max, _activeOnly, limit)),
+                    _min, _max, _activeOnly);
+        } else {
+            // Index NOT Built yet (Startup)
+            BigDecimal min = (_min != null) ? _min : BigDecimal.valueOf(-Long.MAX_VALUE, ProductPriceIndex.PRICE_SCALE);
+            BigDecimal max = (_max != null) ? _max : BigDecimal.valueOf(Long.MAX_VALUE, ProductPriceIndex.PRICE_SCALE);
+            products = productRepository.fetchProductsByPriceRange(min, max, _activeOnly, PageRequest.of(0, limit));
+        }
+        return checkProducts(products, "price between "+_min+" and "+_max);
+    }
+
     /**
      * Returns Active Products Only
      * @return
      */
+    @Transactional(readOnly = true)
     public List<ProductEntity> fetchActiveProducts() {
-        List<ProductEntity> products = productRepository.fetchActiveProducts();
+        List<ProductEntity> products = productQueryCache.query("active",
+                () -> productRepository.fetchActiveProducts());
         return checkProducts(products, "isActive");
     }
 
+    /**
+     * Auto Complete - Products with the Names starting with the Prefix (Shortest Names first)
+     * Product IDs are found in the Product Name Index and the Products are read from the Cache.
+     * @param _prefix
+     * @param _limit Max Products (0 = Default)
+     * @return
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductEntity> autocompleteProducts(String _prefix, int _limit) {
+        if(_prefix == null || _prefix.isBlank()) {
+            throw new InputDataException("Product Name Prefix is required!");
+        }
+        int limit = (_limit > 0) ? Math.min(_limit, MAX_AUTOCOMPLETE_LIMIT) : AUTOCOMPLETE_LIMIT;
+        return productBulkCache.getProducts(productNameIndex.complete(_prefix, limit));
+    }
+
+    /**
+     * Filter the Products (found in the Price Index) by the Current Price & Status, as the Index
+     * can be behind the Changes made on the other Nodes.
+     * @param _products
+     * @param _min Min Price (null = No Lower Bound)
+     * @param _max Max Price (null = No Upper Bound)
+     * @param _activeOnly
+     * @return
+     */
+    private List<ProductEntity> filterByPrice(List<ProductEntity> _products, BigDecimal _min, BigDecimal _max,
+                                              boolean _activeOnly) {
+        List<ProductEntity> products = new ArrayList<ProductEntity>(_products.size());
+        for(ProductEntity product : _products) {
+            BigDecimal price = product.getProductPrice();
+            if(price == null || (_min != null && price.compareTo(_min) < 0)
+                    || (_max != null && price.compareTo(_max) > 0)
+                    || (_activeOnly && !product.isActive())) {
+                continue;
+            }
+            products.add(product);
+        }
+        return products;
+    }
+
     /**
      * Checks if the Products List Contains Data
      * @param products
@@ -116,18 +345,164 @@ public class ProductServiceImpl implements ProductService {
 
     /**
      * Get Product By Product ID
+     * Cache Miss is loaded ONCE per Node for concurrent Requests of the same Product (sync = true)
+     * from the Primary (a Product read from the Replica may NOT have the Last Update yet).
      * @param productId
      * @return
      */
     @Override
+    @Cacheable(cacheNames = CacheConfig.PRODUCT_CACHE, key = "#productId", sync = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public ProductEntity getProductById(UUID productId) {
-        Optional<ProductEntity> productDb = productRepository.findById(productId);
+        if(isKnownAbsent(productId)) {
+            throw new DataNotFoundException("Data not found with id : " + productId);
+        }
+        Optional<ProductEntity> productDb = primaryReader.read(() -> productRepository.findById(productId));
         if(productDb.isPresent()) {
             return productDb.get();
         }
+        rememberAbsent(productId);
         throw new DataNotFoundException("Data not found with id : " + productId);
     }
 
+    /**
+     * Returns the Product Version (null if NOT Found)
+     * Served from the Product Cache if the Product is cached, else with a Version Only Query
+     * on the Primary (the Version is the ETag of the Product).
+     * Products NOT Found are remembered in the Negative Cache (same as getProductById).
+     * @param _productId
+     * @return
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Integer getProductVersion(UUID _productId) {
+        ProductEntity cached = getCachedProduct(_productId);
+        if(cached != null) {
+            return cached.getVersion();
+        }
+        if(isKnownAbsent(_productId)) {
+            return null;
+        }
+        Optional<Integer> version = primaryReader.read(() -> productRepository.fetchVersionById(_productId));
+        if(version.isEmpty()) {
+            rememberAbsent(_productId);
+        }
+        return version.orElse(null);
+    }
+
+    /**
+     * Returns the Product from the Product Cache (null if NOT cached)
+     * @param _productId
+     * @return
+     */
+    private ProductEntity getCachedProduct(UUID _productId) {
+        TwoTierCache cache = cacheManager.getTwoTierCache(CacheConfig.PRODUCT_CACHE);
+        try {
+            Cache.ValueWrapper cached = (cache != null) ? cache.get(_productId) : null;
+            if(cached != null && cached.get() instanceof ProductEntity) {
+                return (ProductEntity) cached.get();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Product Cache Lookup Failed {} = {}", _productId, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Returns the Catalog Version (-1 if NOT available)
+     * @return
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long getCatalogVersion() {
+        return productQueryCache.getCatalogVersion();
+    }
+
+    /**
+     * Returns True if the Product ID has a Tombstone in the Negative Cache
+     * @param _productId
+     * @return
+     */
+    private boolean isKnownAbsent(UUID _productId) {
+        TwoTierCache cache = cacheManager.getTwoTierCache(CacheConfig.PRODUCT_NOT_FOUND_CACHE);
+        try {
+            return cache != null && cache.get(_productId) != null;
+        } catch (RuntimeException e) {
+            log.warn("Negative Cache Lookup Failed {} = {}", _productId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Put a Tombstone for the Product ID in the Negative Cache.
+     * Written directly (NOT deferred to the Commit) as the Transaction rolls back on Not Found.
+     * @param _productId
+     */
+    private void rememberAbsent(UUID _productId) {
+        TwoTierCache cache = cacheManager.getTwoTierCache(CacheConfig.PRODUCT_NOT_FOUND_CACHE);
+        try {
+            if(cache != null) {
+                cache.populate(_productId, Boolean.TRUE);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Negative Cache Update Failed {} = {}", _productId, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove the Tombstones for the Product IDs from the Negative Cache after the Commit
+     * (a Read before the Commit can NOT put the Tombstone back)
+     * @param _productIds
+     */
+    private void forgetAbsent(Collection<UUID> _productIds) {
+        TwoTierCache cache = cacheManager.getTwoTierCache(CacheConfig.PRODUCT_NOT_FOUND_CACHE);
+        if(cache == null || _productIds.isEmpty()) {
+            return;
+        }
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    forgetAbsent(cache, _productIds);
+                }
+            });
+        } else {
+            forgetAbsent(cache, _productIds);
+        }
+    }
+
+    /**
+     * Remove the Tombstones for the Product IDs from the Negative Cache
+     * @param _cache
+     * @param _productIds
+     */
+    private void forgetAbsent(TwoTierCache _cache, Collection<UUID> _productIds) {
+        try {
+            _cache.evictAll(_productIds);
+        } catch (RuntimeException e) {
+            log.warn("Negative Cache Evict Failed {} Products = {}", _productIds.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Get the Products By Product IDs (in the same Order). Products NOT Found are skipped.
+     * Cache is read with a Single Multi Get, Misses are fetched with a Single IN Query and
+     * put in the Cache with a Single Pipelined Write.
+     * @param _productIds
+     * @return
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductEntity> getProductsByIds(List<UUID> _productIds) {
+        if(_productIds == null || _productIds.isEmpty()) {
+            throw new InputDataException("Product IDs are required!");
+        }
+        if(_productIds.size() > MAX_BULK_IDS) {
+            throw new InputDataException("Max Product IDs allowed = "+MAX_BULK_IDS);
+        }
+        return productBulkCache.getProducts(_productIds);
+    }
+
     /**
      * Create Product (from the DTO)
      * @param product
@@ -146,7 +521,13 @@ public class ProductServiceImpl implements ProductService {
     @Override
     @Transactional(rollbackFor = { SQLException.class })
     public ProductEntity createProduct(ProductEntity product) {
-        return productRepository.save(product);
+        ProductEntity productCreated = productRepository.save(product);
+        forgetAbsent(Collections.singletonList(productCreated.getUuid()));
+        productNameIndex.put(productCreated.getUuid(), productCreated.getProductName());
+        productPriceIndex.put(productCreated.getUuid(), productCreated.getProductPrice(), productCreated.isActive());
+        productOutbox.created(productCreated);
+        productQueryCache.bumpCatalogVersion();
+        return productCreated;
     }
 
     /**
@@ -169,7 +550,222 @@ public class ProductServiceImpl implements ProductService {
      */
     @Transactional(rollbackFor = { SQLException.class })
     public List<ProductEntity> createProductsEntity(List<ProductEntity> products) {
-        return productRepository.saveAll(products);
+        List<ProductEntity> productsCreated = productRepository.saveAll(products);
+        Map<UUID, String> names = new LinkedHashMap<UUID, String>();
+        for(ProductEntity product : productsCreated) {
+            names.put(product.getUuid(), product.getProductName());
+            productPriceIndex.put(product.getUuid(), product.getProductPrice(), product.isActive());
+            productOutbox.created(product);
+        }
+        forgetAbsent(names.keySet());
+        productNameIndex.putAll(names);
+        productQueryCache.bumpCatalogVersion();
+        return productsCreated;
+    }
+
+    /**
+     * Bulk Create Products (JDBC Batched Inserts)
+     *
+     * Products are persisted in Chunks of the JDBC Batch Size. Each Chunk is Flushed (as a single
+     * JDBC Batch) and Cleared from the Persistence Context, so the Memory used doesn't grow with
+     * the No. of Products. UUIDs are generated in Memory, which keeps the Inserts Batchable.
+     *
+     * @param _products
+     * @return Product IDs (in the same Order)
+     */
+    @Override
+    @Transactional(rollbackFor = { SQLException.class })
+    public List<UUID> createProductsBulk(List<Product> _products) {
+        if(_products == null || _products.isEmpty()) {
+            throw new InputDataException("Products are required!");
+        }
+        if(_products.size() > MAX_BULK_CREATE) {
+            throw new InputDataException("Max Products allowed = "+MAX_BULK_CREATE);
+        }
+        int batchSize = Math.max(1, serviceConfig.getDataSourceBatchSize());
+        List<UUID> productIds = new ArrayList<UUID>(_products.size());
+        Map<UUID, String> names = new LinkedHashMap<UUID, String>();
+        int count = 0;
+        for(Product p : _products) {
+            ProductEntity product = new ProductEntity(p);
+            entityManager.persist(product);
+            productIds.add(product.getUuid());
+            names.put(product.getUuid(), product.getProductName());
+            productPriceIndex.put(product.getUuid(), product.getProductPrice(), product.isActive());
+            productOutbox.created(product);
+            if(++count % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        productNameIndex.putAll(names);
+        productQueryCache.bumpCatalogVersion();
+        return productIds;
+    }
+
+    /**
+     * Bulk Update the Product Price (Product IDs or Zip Code)
+     * @param _update
+     * @return No. of Products Updated
+     */
+    @Override
+    @Transactional(rollbackFor = { SQLException.class })
+    public int updatePrices(ProductBulkUpdate _update) {
+        BigDecimal price = (_update != null) ? _update.getProductPrice() : null;
+        if(price == null || price.signum() < 0) {
+            throw new InputDataException("Valid Product Price is required!");
+        }
+        discardBufferedPrices(_update);
+        Timestamp updatedTime = new Timestamp(System.currentTimeMillis());
+        String updatedBy = AuditLog.currentUser();
+        return bulkUpdate(_update,
+                ids -> productRepository.lockProductIds(ids),
+                zipCode -> productRepository.lockProductIdsByZipCode(zipCode),
+                ids -> productRepository.updatePriceByIds(ids, price, updatedTime, updatedBy),
+                ids -> {
+                    productPriceIndex.updatePrice(ids, price);
+                    productOutbox.priceChanged(ids, price);
+                });
+    }
+
+    /**
+     * Discard the Buffered Prices (Write Behind) of the Products in the Bulk Update.
+     * Runs BEFORE the Products are Locked (Discard waits for the Price Buffer Flush in Flight).
+     * @param _update
+     */
+    private void discardBufferedPrices(ProductBulkUpdate _update) {
+        if(productPriceBuffer.isEmpty()) {
+            return;
+        }
+        if(_update.hasProductIds()) {
+            productPriceBuffer.discard(_update.getProductIds());
+        } else if(_update.hasZipCode()) {
+            productPriceBuffer.discard(productRepository.fetchProductIdsByZipCode(
+                    _update.getProductLocationZipCode().trim()));
+        }
+    }
+
+    /**
+     * Bulk Activate the Products (Product IDs or Zip Code)
+     * @param _update
+     * @return No. of Products Updated
+     */
+    @Override
+    @Transactional(rollbackFor = { SQLException.class })
+    public int activateProducts(ProductBulkUpdate _update) {
+        return setActive(_update, true);
+    }
+
+    /**
+     * Bulk De-Activate the Products (Product IDs or Zip Code)
+     * @param _update
+     * @return No. of Products Updated
+     */
+    @Override
+    @Transactional(rollbackFor = { SQLException.class })
+    public int deActivateProducts(ProductBulkUpdate _update) {
+        return setActive(_update, false);
+    }
+
+    /**
+     * Bulk Activate / De-Activate the Products
+     * @param _update
+     * @param _active
+     * @return No. of Products Updated
+     */
+    private int setActive(ProductBulkUpdate _update, boolean _active) {
+        Timestamp updatedTime = new Timestamp(System.currentTimeMillis());
+        String updatedBy = AuditLog.currentUser();
+        return bulkUpdate(_update,
+                ids -> productRepository.lockProductIdsToActivate(ids, _active),
+                zipCode -> productRepository.lockProductIdsToActivateByZipCode(zipCode, _active),
+                ids -> productRepository.updateActiveByIds(ids, _active, updatedTime, updatedBy),
+                ids -> {
+                    productPriceIndex.updateActive(ids, _active);
+                    productOutbox.activeChanged(ids, _active);
+                });
+    }
+
+    /**
+     * Run the Bulk Update on the Products affected by the Update ONLY.
+     * The Products (by the Product IDs in Chunks of the IN List, or by the Zip Code) are Locked
+     * first (Select For Update) and the Update is run on the Locked Product IDs. So the Cache,
+     * the Indexes and the Outbox get exactly the Products Updated (NOT the Unknown IDs or the
+     * Products already in the requested State).
+     *
+     * @param _update
+     * @param _lockByIds Lock the Products for the Product IDs (Returns the IDs to be Updated)
+     * @param _lockByZipCode Lock the Products for the Zip Code (Returns the IDs to be Updated)
+     * @param _byIds Update the Products
+     * @param _updated Index & Outbox Updates for the Products Updated
+     * @return No. of Products Updated
+     */
+    private int bulkUpdate(ProductBulkUpdate _update, Function<List<UUID>, List<UUID>> _lockByIds,
+                           Function<String, List<UUID>> _lockByZipCode, ToIntFunction<List<UUID>> _byIds,
+                           Consumer<List<UUID>> _updated) {
+        List<UUID> productIds;
+        if(_update != null && _update.hasProductIds()) {
+            if(_update.getProductIds().size() > MAX_BULK_UPDATE) {
+                throw new InputDataException("Max Product IDs allowed = "+MAX_BULK_UPDATE);
+            }
+            List<UUID> requested = new ArrayList<UUID>(new LinkedHashSet<UUID>(_update.getProductIds()));
+            requested.remove(null);
+            productIds = new ArrayList<UUID>(requested.size());
+            for(int x=0; x<requested.size(); x+=BULK_UPDATE_CHUNK) {
+                productIds.addAll(_lockByIds.apply(requested.subList(x, Math.min(x + BULK_UPDATE_CHUNK, requested.size()))));
+            }
+        } else if(_update != null && _update.hasZipCode()) {
+            productIds = new ArrayList<UUID>(_lockByZipCode.apply(_update.getProductLocationZipCode().trim()));
+        } else {
+            throw new InputDataException("Product IDs or Product Location Zip Code is required!");
+        }
+        int updated = 0;
+        for(int x=0; x<productIds.size(); x+=BULK_UPDATE_CHUNK) {
+            updated += _byIds.applyAsInt(productIds.subList(x, Math.min(x + BULK_UPDATE_CHUNK, productIds.size())));
+        }
+        if(updated > 0) {
+            evictProducts(productIds);
+            _updated.accept(productIds);
+            productQueryCache.bumpCatalogVersion();
+        }
+        log.debug("Bulk Update: Products Updated = {}", updated);
+        return updated;
+    }
+
+    /**
+     * Evict the Products from the Cache in a Single Batch (after the Commit)
+     * @param _productIds
+     */
+    private void evictProducts(Collection<UUID> _productIds) {
+        TwoTierCache cache = cacheManager.getTwoTierCache(CacheConfig.PRODUCT_CACHE);
+        if(cache == null || _productIds.isEmpty()) {
+            return;
+        }
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictProducts(cache, _productIds);
+                }
+            });
+        } else {
+            evictProducts(cache, _productIds);
+        }
+    }
+
+    /**
+     * Evict the Products from the Cache
+     * @param _cache
+     * @param _productIds
+     */
+    private void evictProducts(TwoTierCache _cache, Collection<UUID> _productIds) {
+        try {
+            _cache.evictAll(_productIds);
+        } catch (RuntimeException e) {
+            log.warn("Product Cache Bulk Evict Failed {} Products = {}", _productIds.size(), e.getMessage());
+        }
     }
 
     /**
@@ -180,24 +776,131 @@ public class ProductServiceImpl implements ProductService {
      */
     @Override
     @Transactional(rollbackFor = { SQLException.class })
+    @CacheEvict(cacheNames = CacheConfig.PRODUCT_CACHE, key = "#product.uuid")
     public ProductEntity updateProduct(ProductEntity product) {
+        productPriceBuffer.discard(Collections.singletonList(product.getUuid()));
         productRepository.saveAndFlush(product);
+        productNameIndex.put(product.getUuid(), product.getProductName());
+        productPriceIndex.put(product.getUuid(), product.getProductPrice(), product.isActive());
+        productOutbox.updated(product);
+        productQueryCache.bumpCatalogVersion();
         return product;
     }
 
     /**
      * Update the Product Price
+     * With the Write Behind Enabled the Price is buffered (Latest Price is written by the Price
+     * Buffer) and a Copy of the Product with the new Price is put in the Cache (the Cached Product
+     * is Shared and NOT changed), so the Reads return the new Price without a Database Read.
+     * The Version (ETag) and the Catalog Version are updated when the Price is written, and the
+     * Product is Evicted after the Write.
      * @param product
      * @return
      */
     @Transactional(rollbackFor = { SQLException.class })
     public ProductEntity updatePrice(ProductEntity product) {
+        if(productPriceBuffer.isEnabled()) {
+            ProductEntity current = getCachedProduct(product.getUuid());
+            if(current == null) {
+                current = getProductById(product.getUuid());
+            }
+            if(productPriceBuffer.put(current.getUuid(), product.getProductPrice())) {
+                ProductEntity productUpdate = new ProductEntity(current);
+                productUpdate.setProductPrice(product.getProductPrice());
+                productPriceIndex.put(productUpdate.getUuid(), productUpdate.getProductPrice(), productUpdate.isActive());
+                cacheProduct(productUpdate);
+                return productUpdate;
+            }
+        }
+        productPriceBuffer.discard(Collections.singletonList(product.getUuid()));
         ProductEntity productUpdate = getProductById(product.getUuid()) ;
         productUpdate.setProductPrice(product.getProductPrice());
         productRepository.saveAndFlush(productUpdate);
+        productPriceIndex.put(productUpdate.getUuid(), productUpdate.getProductPrice(), productUpdate.isActive());
+        productOutbox.priceChanged(Collections.singletonList(productUpdate.getUuid()), productUpdate.getProductPrice());
+        productQueryCache.bumpCatalogVersion();
+        evictProducts(Collections.singletonList(productUpdate.getUuid()));
         return productUpdate;
     }
 
+    /**
+     * Put the Product in the Product Cache (Other Nodes evict it from their Local Cache)
+     * @param _product
+     */
+    private void cacheProduct(ProductEntity _product) {
+        TwoTierCache cache = cacheManager.getTwoTierCache(CacheConfig.PRODUCT_CACHE);
+        try {
+            if(cache != null) {
+                cache.put(_product.getUuid(), _product);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Product Cache Update Failed {} = {}", _product.getUuid(), e.getMessage());
+        }
+    }
+
+    /**
+     * Conditional Update of the Product Price (Single Round Trip, Entity is NOT loaded)
+     * @param _productId
+     * @param _price
+     * @param _version Expected Version
+     * @return New Version
+     */
+    @Override
+    @Transactional(rollbackFor = { SQLException.class })
+    @CacheEvict(cacheNames = CacheConfig.PRODUCT_CACHE, key = "#_productId")
+    public int updatePrice(UUID _productId, BigDecimal _price, int _version) {
+        if(_price == null || _price.signum() < 0) {
+            throw new InputDataException("Valid Product Price is required!");
+        }
+        productPriceBuffer.discard(Collections.singletonList(_productId));
+        int updated = productRepository.updatePriceIfVersion(_productId, _version, _price,
+                new Timestamp(System.currentTimeMillis()), AuditLog.currentUser());
+        int version = conditionalUpdated(updated, _productId, _version);
+        productPriceIndex.updatePrice(Collections.singletonList(_productId), _price);
+        productOutbox.priceChanged(Collections.singletonList(_productId), _price);
+        return version;
+    }
+
+    /**
+     * Conditional Update of the Product Name & Details (Single Round Trip, Entity is NOT loaded)
+     * @param _productId
+     * @param _name
+     * @param _details
+     * @param _version Expected Version
+     * @return New Version
+     */
+    @Override
+    @Transactional(rollbackFor = { SQLException.class })
+    @CacheEvict(cacheNames = CacheConfig.PRODUCT_CACHE, key = "#_productId")
+    public int updateProductDetails(UUID _productId, String _name, String _details, int _version) {
+        int updated = productRepository.updateDetailsIfVersion(_productId, _version, _name, _details,
+                new Timestamp(System.currentTimeMillis()), AuditLog.currentUser());
+        int version = conditionalUpdated(updated, _productId, _version);
+        productNameIndex.put(_productId, _name);
+        productOutbox.detailsChanged(_productId, _name, _details);
+        return version;
+    }
+
+    /**
+     * Check the Result of the Conditional Update. Zero Rows = Version Mismatch (Precondition Failed)
+     * unless the Product doesn't exist (Checked ONLY on the Failure Path).
+     * @param _updated
+     * @param _productId
+     * @param _version
+     * @return New Version
+     */
+    private int conditionalUpdated(int _updated, UUID _productId, int _version) {
+        if(_updated == 0) {
+            if(!productRepository.existsById(_productId)) {
+                throw new DataNotFoundException("Data not found with id : " + _productId);
+            }
+            throw new DataVersionMismatchException("Product "+_productId+" is NOT at the Version "+_version,
+                    HttpStatus.PRECONDITION_FAILED);
+        }
+        productQueryCache.bumpCatalogVersion();
+        return _version + 1;
+    }
+
     /**
      * Update Product (Name & Details)
      *
@@ -206,11 +909,16 @@ public class ProductServiceImpl implements ProductService {
      */
     @Override
     @Transactional(rollbackFor = { SQLException.class })
+    @CachePut(cacheNames = CacheConfig.PRODUCT_CACHE, key = "#result.uuid")
     public ProductEntity updateProductDetails(ProductEntity product) {
         ProductEntity productUpdate = getProductById(product.getUuid()) ;
         productUpdate.setProductName(product.getProductName());
         productUpdate.setProductDetails(product.getProductDetails());
         productRepository.saveAndFlush(productUpdate);
+        productNameIndex.put(productUpdate.getUuid(), productUpdate.getProductName());
+        productOutbox.detailsChanged(productUpdate.getUuid(), productUpdate.getProductName(),
+                productUpdate.getProductDetails());
+        productQueryCache.bumpCatalogVersion();
         return productUpdate;
     }
 
@@ -222,10 +930,14 @@ public class ProductServiceImpl implements ProductService {
      */
     @Override
     @Transactional(rollbackFor = { SQLException.class })
+    @CachePut(cacheNames = CacheConfig.PRODUCT_CACHE, key = "#result.uuid")
     public ProductEntity deActivateProduct(UUID _productId) {
         ProductEntity product = getProductById(_productId);
         product.deActivateProduct();
         productRepository.saveAndFlush(product);
+        productPriceIndex.put(product.getUuid(), product.getProductPrice(), false);
+        productOutbox.activeChanged(Collections.singletonList(_productId), false);
+        productQueryCache.bumpCatalogVersion();
         return product;
     }
 
@@ -237,10 +949,14 @@ public class ProductServiceImpl implements ProductService {
      */
     @Override
     @Transactional(rollbackFor = { SQLException.class })
+    @CachePut(cacheNames = CacheConfig.PRODUCT_CACHE, key = "#result.uuid")
     public ProductEntity activateProduct(UUID _productId) {
         ProductEntity product = getProductById(_productId);
         product.activateProduct();
         productRepository.saveAndFlush(product);
+        productPriceIndex.put(product.getUuid(), product.getProductPrice(), true);
+        productOutbox.activeChanged(Collections.singletonList(_productId), true);
+        productQueryCache.bumpCatalogVersion();
         return product;
     }
 
@@ -250,8 +966,14 @@ public class ProductServiceImpl implements ProductService {
      */
     @Override
     @Transactional(rollbackFor = { SQLException.class })
+    @CacheEvict(cacheNames = CacheConfig.PRODUCT_CACHE, key = "#_productId")
     public void deleteProduct(UUID _productId) {
+        productPriceBuffer.discard(Collections.singletonList(_productId));
         ProductEntity product = getProductById(_productId);
         productRepository.delete(product);
+        productNameIndex.remove(_productId);
+        productPriceIndex.remove(_productId);
+        productOutbox.deleted(_productId);
+        productQueryCache.bumpCatalogVersion();
     }
 }
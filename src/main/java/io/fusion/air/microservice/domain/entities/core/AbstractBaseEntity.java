@@ -39,6 +39,22 @@ public class AbstractBaseEntity {
     @Embedded
     private AuditLog auditLog = new AuditLog();
 
+    /**
+     * Default Constructor
+     */
+    public AbstractBaseEntity() {
+    }
+
+    /**
+     * Copy the Base Fields (Status, Version and Audit Log) of the Record
+     * @param _entity
+     */
+    protected AbstractBaseEntity(AbstractBaseEntity _entity) {
+        this.isActive   = _entity.isActive;
+        this.version    = _entity.version;
+        this.auditLog   = new AuditLog(_entity.auditLog);
+    }
+
     /**
      * Init Audit Log
      */
@@ -18,6 +18,7 @@ package io.fusion.air.microservice.domain.entities.core;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.UuidGenerator;
 import java.util.UUID;
 
 /**
@@ -29,12 +30,30 @@ import java.util.UUID;
 public class AbstractBaseEntityWithUUID extends AbstractBaseEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    // Time Ordered UUIDs are generated in Memory (No Database Round Trip), so the Inserts can be
+    // Batched and the new Rows are appended to the end of the Primary Key Index.
+    @GeneratedValue
+    @UuidGenerator(style = UuidGenerator.Style.TIME)
     @Column(name = "uuid", unique = true)
     // @Size(min = 36, max = 36, message = "The length of Product ID Name must be 36 characters.")
     // @Pattern(regexp = "^[0-9a-fA-F]{8}\\b-[0-9a-fA-F]{4}\\b-[0-9a-fA-F]{4}\\b-[0-9a-fA-F]{4}\\b-[0-9a-fA-F]{12}$", message = "Invalid UUID")
     private UUID uuid;
 
+    /**
+     * Default Constructor
+     */
+    public AbstractBaseEntityWithUUID() {
+    }
+
+    /**
+     * Copy the ID and the Base Fields of the Record
+     * @param _entity
+     */
+    protected AbstractBaseEntityWithUUID(AbstractBaseEntityWithUUID _entity) {
+        super(_entity);
+        this.uuid = _entity.uuid;
+    }
+
     /**
      * Returns the UUID
      * @return
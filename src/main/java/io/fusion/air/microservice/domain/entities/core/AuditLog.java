@@ -81,6 +81,17 @@ public class AuditLog  {
     public AuditLog() {
     }
 
+    /**
+     * Copy the Audit Log
+     * @param _auditLog
+     */
+    public AuditLog(AuditLog _auditLog) {
+        this.createdBy      = _auditLog.createdBy;
+        this.createdTime    = _auditLog.createdTime;
+        this.updatedBy      = _auditLog.updatedBy;
+        this.updatedTime    = _auditLog.updatedTime;
+    }
+
     /**
      * Init Audit Log At the time of Record Insert
      */
@@ -99,7 +110,15 @@ public class AuditLog  {
     // @PreUpdate()
     public void setUpdatedBy() {
         updatedTime	= new Timestamp(new Date().getTime());
-        updatedBy	= MDC.get("user") == null ? "User" : MDC.get("user");
+        updatedBy	= currentUser();
+    }
+
+    /**
+     * Returns the Session User for the Updates (Ex. Bulk Updates without loading the Entity)
+     * @return
+     */
+    public static String currentUser() {
+        return MDC.get("user") == null ? "User" : MDC.get("user");
     }
 
     /**
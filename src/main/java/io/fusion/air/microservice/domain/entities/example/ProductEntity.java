@@ -35,7 +35,9 @@ import java.util.UUID;
  */
 
 @Entity
-@Table(name = "products_m")
+@Table(name = "products_m",
+        // Keyset Pagination (Created Time, UUID)
+        indexes = { @Index(name = "idx_products_created_uuid", columnList = "createdTime, uuid") })
 public class ProductEntity extends AbstractBaseEntityWithUUID {
 
     @NotBlank(message = "The Product Name is required.")
@@ -72,6 +74,18 @@ public class ProductEntity extends AbstractBaseEntityWithUUID {
                 _product.getProductPrice(), _product.getProductLocationZipCode());
     }
 
+    /**
+     * Copy the Product Entity (Detached Copy, Ex. Cached Products are Shared and NOT changed)
+     * @param _product
+     */
+    public ProductEntity(ProductEntity _product) {
+        super(_product);
+        this.productName            = _product.productName;
+        this.productDetails         = _product.productDetails;
+        this.productPrice           = _product.productPrice;
+        this.productLocationZipCode = _product.productLocationZipCode;
+    }
+
     /**
      * Create Product Entity
      * @param _pName
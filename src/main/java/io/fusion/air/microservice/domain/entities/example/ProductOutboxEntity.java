@@ -0,0 +1,137 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.domain.entities.example;
+
+import io.fusion.air.microservice.domain.models.example.ProductEvent;
+
+import jakarta.persistence.*;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Product Outbox - Product Change Events written in the same Transaction as the Product Change
+ * and Published to Kafka by the Outbox Relay. A Relay claims the Events (Claimed By / Claimed
+ * Until) before Publishing, Events with an expired Claim are picked up again.
+ *
+ * Created Time is set when the Event is written, i.e. AFTER the Product Row is Updated (Locked),
+ * so the Events of a Product are in the Commit Order of the Changes (Across the Nodes, within the
+ * Clock Skew of the Nodes). The Relay publishes the Events in the Created Time Order.
+ *
+ * IDs come from a Sequence with the Allocation Size = JDBC Batch Size, so the Inserts are
+ * Batched and need a Sequence Round Trip for every 50 Events ONLY.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@Entity
+@Table(name = "product_outbox_t",
+        indexes = { @Index(name = "idx_product_outbox_created_id", columnList = "createdTime, id"),
+                    @Index(name = "idx_product_outbox_product_claim", columnList = "productId, claimedUntil") })
+public class ProductOutboxEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_outbox_seq")
+    @SequenceGenerator(name = "product_outbox_seq", sequenceName = "product_outbox_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "productId", nullable = false)
+    private UUID productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "eventType", nullable = false, length = 32)
+    private ProductEvent eventType;
+
+    @Column(name = "payload", length = 4000)
+    private String payload;
+
+    @Column(name = "createdTime", nullable = false)
+    private Timestamp createdTime;
+
+    @Column(name = "claimedBy", length = 64)
+    private String claimedBy;
+
+    @Column(name = "claimedUntil")
+    private Timestamp claimedUntil;
+
+    /**
+     * Empty Outbox Entity
+     */
+    protected ProductOutboxEntity() {
+    }
+
+    /**
+     * Create the Outbox Event
+     * @param _eventType
+     * @param _productId
+     * @param _payload JSON
+     */
+    public ProductOutboxEntity(ProductEvent _eventType, UUID _productId, String _payload) {
+        this.eventType      = _eventType;
+        this.productId      = _productId;
+        this.payload        = _payload;
+        this.createdTime    = new Timestamp(System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the Event ID
+     * @return
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the Product ID
+     * @return
+     */
+    public UUID getProductId() {
+        return productId;
+    }
+
+    /**
+     * Returns the Event Type
+     * @return
+     */
+    public ProductEvent getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Returns the Payload (JSON)
+     * @return
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * Returns the Created Time
+     * @return
+     */
+    public Timestamp getCreatedTime() {
+        return createdTime;
+    }
+
+    /**
+     * Returns the Event ID + Event Type + Product ID
+     * @return
+     */
+    public String toString() {
+        return id + "|" + eventType + "|" + productId;
+    }
+}
@@ -32,6 +32,15 @@ public class DataVersionMismatchException extends DatabaseException {
         super(_msg);
     }
 
+    /**
+     * Data Version Mismatch Exception (Ex. Precondition Failed for the Conditional Updates)
+     * @param _msg
+     * @param _status
+     */
+    public DataVersionMismatchException(String _msg, HttpStatus _status) {
+        super(_msg, _status, null);
+    }
+
     /**
      * Data Version Mismatch Exception
      * @param _msg
@@ -0,0 +1,98 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.domain.models.example;
+
+import io.fusion.air.microservice.domain.entities.example.CountryEntity;
+
+import java.util.Objects;
+
+/**
+ * Country (Immutable Value Object of the Reference Data)
+ * Created from the Country Entity, so the Countries in the Snapshot are NOT shared with the
+ * Persistence Context and can NOT be changed by the Callers.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class Country {
+
+    private final int countryId;
+    private final String countryCode;
+    private final String countryName;
+    private final String countryOfficialName;
+
+    /**
+     * Create the Country from the Country Entity
+     * @param _country
+     */
+    public Country(CountryEntity _country) {
+        this(_country.getCountryId(), _country.getCountryCode(), _country.getCountryName(),
+                _country.getCountryOfficialName());
+    }
+
+    /**
+     * Create the Country
+     * @param _countryId
+     * @param _countryCode
+     * @param _countryName
+     * @param _countryOfficialName
+     */
+    public Country(int _countryId, String _countryCode, String _countryName, String _countryOfficialName) {
+        this.countryId              = _countryId;
+        this.countryCode            = _countryCode;
+        this.countryName            = _countryName;
+        this.countryOfficialName    = _countryOfficialName;
+    }
+
+    public int getCountryId() {
+        return countryId;
+    }
+
+    public String getCountryCode() {
+        return countryCode;
+    }
+
+    public String getCountryName() {
+        return countryName;
+    }
+
+    public String getCountryOfficialName() {
+        return countryOfficialName;
+    }
+
+    @Override
+    public String toString() {
+        return countryId + "|" + countryName;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(countryId, countryCode, countryName, countryOfficialName);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof Country))
+            return false;
+        Country country = (Country) o;
+        return countryId == country.countryId && Objects.equals(countryCode, country.countryCode)
+                && Objects.equals(countryName, country.countryName)
+                && Objects.equals(countryOfficialName, country.countryOfficialName);
+    }
+}
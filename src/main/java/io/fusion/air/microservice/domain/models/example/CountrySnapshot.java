@@ -0,0 +1,171 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.domain.models.example;
+
+import io.fusion.air.microservice.domain.entities.example.CountryEntity;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable Snapshot of the Countries (Reference Data)
+ *
+ * Countries (Immutable Value Objects, NOT the Entities) are held in an Array (sorted by the
+ * Country ID) with the Lookups by the Country Code and the Country ID. The JSON of the Countries
+ * is serialized once when the Snapshot is created, and served as is. The ETag is the Hash of
+ * the JSON, so it's the same on all the Nodes and changes ONLY if the Countries change.
+ * A Reload creates a new Snapshot which is swapped in atomically.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class CountrySnapshot {
+
+    private final Country[] countries;
+    private final List<Country> countryList;
+    private final Map<String, Country> byCode;
+    private final Map<Integer, Country> byId;
+    private final byte[] json;
+    private final String eTag;
+    private final long version;
+
+    /**
+     * Create the Snapshot
+     * @param _countries
+     * @param _json Serialized Countries (same Order as the Countries)
+     * @param _version Snapshot Version (Ex. Load Time)
+     */
+    public CountrySnapshot(Country[] _countries, byte[] _json, long _version) {
+        this.countries      = _countries.clone();
+        this.countryList    = Collections.unmodifiableList(Arrays.asList(this.countries));
+        this.json           = _json;
+        this.eTag           = "\"country." + hash(_json) + "\"";
+        this.version        = _version;
+        Map<String, Country> codes = new HashMap<String, Country>(_countries.length * 2);
+        Map<Integer, Country> ids = new HashMap<Integer, Country>(_countries.length * 2);
+        for(Country country : this.countries) {
+            if(country.getCountryCode() != null) {
+                codes.put(normalize(country.getCountryCode()), country);
+            }
+            ids.put(country.getCountryId(), country);
+        }
+        this.byCode = codes;
+        this.byId   = ids;
+    }
+
+    /**
+     * Create the Countries from the Entities sorted by the Country ID (Order of the Snapshot)
+     * @param _countries
+     * @return
+     */
+    public static Country[] sort(List<CountryEntity> _countries) {
+        Country[] countries = new Country[_countries.size()];
+        for(int x=0; x<countries.length; x++) {
+            countries[x] = new Country(_countries.get(x));
+        }
+        Arrays.sort(countries, Comparator.comparingInt(Country::getCountryId));
+        return countries;
+    }
+
+    /**
+     * Returns All the Countries (Read Only)
+     * @return
+     */
+    public List<Country> getCountries() {
+        return countryList;
+    }
+
+    /**
+     * Returns the Country for the Country Code (Case Insensitive) or null
+     * @param _countryCode
+     * @return
+     */
+    public Country getByCode(String _countryCode) {
+        return (_countryCode != null) ? byCode.get(normalize(_countryCode)) : null;
+    }
+
+    /**
+     * Returns the Country for the Country ID or null
+     * @param _countryId
+     * @return
+     */
+    public Country getById(int _countryId) {
+        return byId.get(_countryId);
+    }
+
+    /**
+     * Returns the Serialized Countries (JSON Array). Shared - Do NOT Modify.
+     * @return
+     */
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * Returns the ETag (Strong) of the Countries = Hash of the JSON
+     * @return
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Returns the No. of Countries
+     * @return
+     */
+    public int size() {
+        return countries.length;
+    }
+
+    /**
+     * Returns the Snapshot Version
+     * @return
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Country Code Key
+     * @param _countryCode
+     * @return
+     */
+    private static String normalize(String _countryCode) {
+        return _countryCode.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * SHA-256 Hash (Hex) of the JSON
+     * @param _json
+     * @return
+     */
+    private static String hash(byte[] _json) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(_json));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is NOT available", e);
+        }
+    }
+}
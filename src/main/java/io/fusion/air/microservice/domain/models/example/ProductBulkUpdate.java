@@ -0,0 +1,106 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.domain.models.example;
+
+import io.fusion.air.microservice.utils.Utils;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bulk Update of the Products - Selected by the Product IDs OR by the Criteria (Zip Code)
+ * Product IDs take precedence over the Criteria.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class ProductBulkUpdate implements Serializable {
+
+    private List<UUID> productIds;
+
+    private String productLocationZipCode;
+
+    private BigDecimal productPrice;
+
+    /**
+     * Create Empty Bulk Update
+     */
+    public ProductBulkUpdate() {
+    }
+
+    /**
+     * Create Bulk Update
+     * @param _productIds
+     * @param _zipCode
+     * @param _price
+     */
+    public ProductBulkUpdate(List<UUID> _productIds, String _zipCode, BigDecimal _price) {
+        this.productIds             = _productIds;
+        this.productLocationZipCode = _zipCode;
+        this.productPrice           = _price;
+    }
+
+    /**
+     * Returns the Product IDs
+     * @return
+     */
+    public List<UUID> getProductIds() {
+        return productIds;
+    }
+
+    /**
+     * Returns the Product Location Zip Code (Criteria)
+     * @return
+     */
+    public String getProductLocationZipCode() {
+        return productLocationZipCode;
+    }
+
+    /**
+     * Returns the Product Price (Price Updates ONLY)
+     * @return
+     */
+    public BigDecimal getProductPrice() {
+        return productPrice;
+    }
+
+    /**
+     * Returns True if the Products are selected by the Product IDs
+     * @return
+     */
+    public boolean hasProductIds() {
+        return productIds != null && !productIds.isEmpty();
+    }
+
+    /**
+     * Returns True if the Products are selected by the Zip Code
+     * @return
+     */
+    public boolean hasZipCode() {
+        return productLocationZipCode != null && !productLocationZipCode.isBlank();
+    }
+
+    /**
+     * Creates a JSON String
+     * @return
+     */
+    public String toString() {
+        return Utils.toJsonString(this);
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.domain.models.example;
+
+import io.fusion.air.microservice.domain.entities.example.ProductEntity;
+import io.fusion.air.microservice.domain.exceptions.InputDataException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Product Cursor for the Keyset (Seek) Pagination over (Created Time, UUID)
+ *
+ * The Cursor is sent to the Client as an Opaque String (Base64 URL Safe) and points to the
+ * last Product of the Page. The Next Page starts right after it.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class ProductCursor {
+
+    private final Timestamp createdTime;
+    private final UUID uuid;
+
+    /**
+     * Create Product Cursor
+     * @param _createdTime
+     * @param _uuid
+     */
+    public ProductCursor(Timestamp _createdTime, UUID _uuid) {
+        this.createdTime    = _createdTime;
+        this.uuid           = _uuid;
+    }
+
+    /**
+     * Create the Cursor pointing to the Product
+     * @param _product
+     * @return
+     */
+    public static ProductCursor of(ProductEntity _product) {
+        return new ProductCursor(_product.getAuditLog().getCreatedTime(), _product.getUuid());
+    }
+
+    /**
+     * Decode the Opaque Cursor
+     * @param _cursor
+     * @return
+     */
+    public static ProductCursor decode(String _cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(_cursor), StandardCharsets.UTF_8).split(":");
+            if(parts.length != 3) {
+                throw new IllegalArgumentException("Invalid Cursor Format");
+            }
+            Timestamp createdTime = new Timestamp(Long.parseLong(parts[0]));
+            createdTime.setNanos(Integer.parseInt(parts[1]));
+            return new ProductCursor(createdTime, UUID.fromString(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new InputDataException("Invalid Cursor = "+_cursor, e);
+        }
+    }
+
+    /**
+     * Encode the Cursor as an Opaque String
+     * @return
+     */
+    public String encode() {
+        String cursor = createdTime.getTime() + ":" + createdTime.getNanos() + ":" + uuid;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the Created Time
+     * @return
+     */
+    public Timestamp getCreatedTime() {
+        return createdTime;
+    }
+
+    /**
+     * Returns the UUID
+     * @return
+     */
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public String toString() {
+        return createdTime + "|" + uuid;
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.domain.models.example;
+
+import io.fusion.air.microservice.domain.exceptions.DataVersionMismatchException;
+import io.fusion.air.microservice.domain.exceptions.InputDataException;
+import org.springframework.http.HttpStatus;
+
+import java.util.UUID;
+
+/**
+ * Product Entity Tag (Strong ETag) = "Product UUID.Version"
+ * Product List / Search Tag (Strong ETag) = "catalog.Catalog Version"
+ *
+ * The Version is the Optimistic Lock Version of the Product, so the ETag changes with every
+ * Update. Clients send it back in If-Match for the Conditional Updates and in If-None-Match
+ * for the Conditional Reads (304 Not Modified). The Catalog Version changes with every Product
+ * Mutation, so it covers all the List / Search Results.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class ProductETag {
+
+    public static final String ANY = "*";
+
+    private ProductETag() {
+    }
+
+    /**
+     * Create the ETag for the Product Version
+     * @param _productId
+     * @param _version
+     * @return
+     */
+    public static String of(UUID _productId, int _version) {
+        return "\"" + _productId + "." + _version + "\"";
+    }
+
+    /**
+     * Create the ETag for the Catalog Version (List / Search Results)
+     * @param _catalogVersion
+     * @return null if the Catalog Version is NOT available
+     */
+    public static String ofCatalog(long _catalogVersion) {
+        return (_catalogVersion >= 0) ? "\"catalog." + _catalogVersion + "\"" : null;
+    }
+
+    /**
+     * Returns True if the If-Match matches any Version of the Product (*)
+     * @param _ifMatch
+     * @return
+     */
+    public static boolean isAny(String _ifMatch) {
+        return _ifMatch == null || _ifMatch.isBlank() || ANY.equals(_ifMatch.trim());
+    }
+
+    /**
+     * Returns the Version from the If-Match ("UUID.Version" or the Version).
+     * Weak ETags and Lists of ETags are NOT accepted for the Conditional Updates.
+     *
+     * @param _ifMatch
+     * @param _productId
+     * @return
+     */
+    public static int parseVersion(String _ifMatch, UUID _productId) {
+        if(_productId == null) {
+            throw new InputDataException("Product ID is required for the Conditional Update!");
+        }
+        String tag = _ifMatch.trim();
+        if(tag.startsWith("W/") || tag.indexOf(',') >= 0) {
+            throw new InputDataException("If-Match requires a Single Strong ETag = "+_ifMatch);
+        }
+        if(tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        int dot = tag.lastIndexOf('.');
+        try {
+            if(dot >= 0 && !UUID.fromString(tag.substring(0, dot)).equals(_productId)) {
+                throw new DataVersionMismatchException("ETag is NOT for the Product "+_productId+" = "+_ifMatch,
+                        HttpStatus.PRECONDITION_FAILED);
+            }
+            return Integer.parseInt(tag.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new InputDataException("Invalid If-Match = "+_ifMatch, e);
+        }
+    }
+}
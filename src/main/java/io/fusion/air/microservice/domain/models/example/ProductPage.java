@@ -0,0 +1,67 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.domain.models.example;
+
+import io.fusion.air.microservice.domain.entities.example.ProductEntity;
+
+import java.util.List;
+
+/**
+ * Page of Products (Keyset Pagination) with the Cursor for the Next Page
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class ProductPage {
+
+    private final List<ProductEntity> products;
+    private final String nextCursor;
+
+    /**
+     * Create Product Page
+     * @param _products
+     * @param _nextCursor null if this is the Last Page
+     */
+    public ProductPage(List<ProductEntity> _products, String _nextCursor) {
+        this.products   = _products;
+        this.nextCursor = _nextCursor;
+    }
+
+    /**
+     * Returns the Products
+     * @return
+     */
+    public List<ProductEntity> getProducts() {
+        return products;
+    }
+
+    /**
+     * Returns the Cursor for the Next Page (null if this is the Last Page)
+     * @return
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Returns True if there are more Pages
+     * @return
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -1,6 +1,7 @@
 package io.fusion.air.microservice.domain.ports.services;
 
-import io.fusion.air.microservice.domain.entities.example.CountryEntity;
+import io.fusion.air.microservice.domain.models.example.Country;
+import io.fusion.air.microservice.domain.models.example.CountrySnapshot;
 import java.util.List;
 
 /**
@@ -14,5 +15,31 @@ public interface CountryService {
      * Returns all the Countryy
      * @return
      */
-    public List<CountryEntity> getAllCountries();
+    public List<Country> getAllCountries();
+
+    /**
+     * Returns the Country for the Country Code
+     * @param _countryCode
+     * @return
+     */
+    public Country getCountryByCode(String _countryCode);
+
+    /**
+     * Returns the Country for the Country ID
+     * @param _countryId
+     * @return
+     */
+    public Country getCountryById(int _countryId);
+
+    /**
+     * Returns the Current Snapshot of the Countries
+     * @return
+     */
+    public CountrySnapshot getSnapshot();
+
+    /**
+     * Reload the Countries from the Database
+     * @return New Snapshot
+     */
+    public CountrySnapshot reload();
 }
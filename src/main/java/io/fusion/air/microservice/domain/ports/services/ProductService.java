@@ -17,12 +17,15 @@ package io.fusion.air.microservice.domain.ports.services;
 
 import io.fusion.air.microservice.domain.entities.example.ProductEntity;
 import io.fusion.air.microservice.domain.models.example.Product;
+import io.fusion.air.microservice.domain.models.example.ProductBulkUpdate;
+import io.fusion.air.microservice.domain.models.example.ProductPage;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 
 /**
@@ -38,6 +41,21 @@ public interface ProductService {
      */
     public List<ProductEntity> getAllProduct();
 
+    /**
+     * Get the Products (Keyset Pagination ordered by Created Time, UUID)
+     * @param _cursor Cursor from the Previous Page (null for the First Page)
+     * @param _size Page Size (0 = Default Page Size)
+     * @return
+     */
+    public ProductPage getProducts(String _cursor, int _size);
+
+    /**
+     * Stream All the Products (One at a time) to the Consumer
+     * @param _consumer
+     * @return No. of Products
+     */
+    public long streamAllProducts(Consumer<ProductEntity> _consumer);
+
     /**
      * Get Product By Product ID
      * @param productId
@@ -45,6 +63,13 @@ public interface ProductService {
      */
     public ProductEntity getProductById(UUID productId);
 
+    /**
+     * Get the Products By Product IDs (in the same Order). Products NOT Found are skipped.
+     * @param _productIds
+     * @return
+     */
+    public List<ProductEntity> getProductsByIds(List<UUID> _productIds);
+
     /**
      * Search for the Product By the Product Names Like 'name'
      * @param _name
@@ -59,6 +84,17 @@ public interface ProductService {
      */
     public List<ProductEntity> fetchProductsByPriceGreaterThan(BigDecimal price);
 
+    /**
+     * Search for the Products with the Price between Min and Max (Inclusive) sorted by the Price
+     * @param _min Min Price (null = No Lower Bound)
+     * @param _max Max Price (null = No Upper Bound)
+     * @param _activeOnly
+     * @param _limit Max Products (0 = Default)
+     * @return
+     */
+    public List<ProductEntity> fetchProductsByPriceRange(BigDecimal _min, BigDecimal _max,
+                                                         boolean _activeOnly, int _limit);
+
     /**
      * Returns Active Products Only
      * @return
@@ -93,6 +129,74 @@ public interface ProductService {
      */
     public List<ProductEntity> createProductsEntity(List<ProductEntity> products);
 
+    /**
+     * Bulk Create Products (JDBC Batched Inserts)
+     * @param _products
+     * @return Product IDs (in the same Order)
+     */
+    public List<UUID> createProductsBulk(List<Product> _products);
+
+    /**
+     * Bulk Update the Product Price (Product IDs or Zip Code)
+     * @param _update
+     * @return No. of Products Updated
+     */
+    public int updatePrices(ProductBulkUpdate _update);
+
+    /**
+     * Bulk Activate the Products (Product IDs or Zip Code)
+     * @param _update
+     * @return No. of Products Updated
+     */
+    public int activateProducts(ProductBulkUpdate _update);
+
+    /**
+     * Bulk De-Activate the Products (Product IDs or Zip Code)
+     * @param _update
+     * @return No. of Products Updated
+     */
+    public int deActivateProducts(ProductBulkUpdate _update);
+
+    /**
+     * Conditional Update of the Product Price (Expected Version)
+     * @param _productId
+     * @param _price
+     * @param _version Expected Version
+     * @return New Version
+     */
+    public int updatePrice(UUID _productId, BigDecimal _price, int _version);
+
+    /**
+     * Returns the Product Version (null if NOT Found)
+     * @param _productId
+     * @return
+     */
+    public Integer getProductVersion(UUID _productId);
+
+    /**
+     * Returns the Catalog Version (-1 if NOT available)
+     * @return
+     */
+    public long getCatalogVersion();
+
+    /**
+     * Auto Complete - Products with the Names starting with the Prefix (Shortest Names first)
+     * @param _prefix
+     * @param _limit Max Products (0 = Default)
+     * @return
+     */
+    public List<ProductEntity> autocompleteProducts(String _prefix, int _limit);
+
+    /**
+     * Conditional Update of the Product Name & Details (Expected Version)
+     * @param _productId
+     * @param _name
+     * @param _details
+     * @param _version Expected Version
+     * @return New Version
+     */
+    public int updateProductDetails(UUID _productId, String _name, String _details, int _version);
+
     /**
      * Update Product
      * @param product
@@ -0,0 +1,40 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+/**
+ * Binary Codec for a Type registered in the Compact Binary Serializer
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public interface BinaryCodec<T> {
+
+    /**
+     * Write the Value
+     * @param _value
+     * @param _out
+     */
+    public void write(T _value, BinaryWriter _out);
+
+    /**
+     * Read the Value
+     * @param _in
+     * @return
+     */
+    public T read(BinaryReader _in);
+}
@@ -0,0 +1,210 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * Binary Reader for the Compact Binary Serializer
+ * @see BinaryWriter
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class BinaryReader {
+
+    private final byte[] buffer;
+    private int position;
+
+    /**
+     * Create Binary Reader
+     * @param _buffer
+     * @param _position
+     */
+    public BinaryReader(byte[] _buffer, int _position) {
+        this.buffer     = _buffer;
+        this.position   = _position;
+    }
+
+    /**
+     * Read a Byte
+     * @return
+     */
+    public int readByte() {
+        if(position >= buffer.length) {
+            throw new IllegalStateException("Unexpected end of data at position "+position);
+        }
+        return buffer[position++];
+    }
+
+    /**
+     * Read Boolean
+     * @return
+     */
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    /**
+     * Read Unsigned Variable Length Long
+     * @return
+     */
+    public long readVarLong() {
+        long value = 0;
+        for(int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed Variable Length Long at position "+position);
+    }
+
+    /**
+     * Read Unsigned Variable Length Int
+     * @return
+     */
+    public int readVarInt() {
+        return (int) readVarLong();
+    }
+
+    /**
+     * Read Signed Long (ZigZag + Variable Length)
+     * @return
+     */
+    public long readSignedLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Read Signed Int (ZigZag + Variable Length)
+     * @return
+     */
+    public int readSignedInt() {
+        return (int) readSignedLong();
+    }
+
+    /**
+     * Read Fixed 8 Byte Long
+     * @return
+     */
+    public long readFixedLong() {
+        long value = 0;
+        for(int x=0; x < 8; x++) {
+            value = (value << 8) | (readByte() & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Read Length Prefixed Bytes
+     * @return
+     */
+    public byte[] readBytes() {
+        return readRawBytes(readVarInt());
+    }
+
+    /**
+     * Read the Given No. of Bytes
+     * @param _length
+     * @return
+     */
+    public byte[] readRawBytes(int _length) {
+        if(_length < 0 || position + _length > buffer.length) {
+            throw new IllegalStateException("Invalid length "+_length+" at position "+position);
+        }
+        byte[] bytes = new byte[_length];
+        System.arraycopy(buffer, position, bytes, 0, _length);
+        position += _length;
+        return bytes;
+    }
+
+    /**
+     * Read String (Nullable)
+     * @return
+     */
+    public String readString() {
+        int length = readVarInt();
+        if(length == 0) {
+            return null;
+        }
+        length--;
+        if(length < 0 || position + length > buffer.length) {
+            throw new IllegalStateException("Invalid String length "+length+" at position "+position);
+        }
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Read UUID (Nullable)
+     * @return
+     */
+    public UUID readUUID() {
+        if(!readBoolean()) {
+            return null;
+        }
+        return new UUID(readFixedLong(), readFixedLong());
+    }
+
+    /**
+     * Read BigDecimal (Nullable)
+     * @return
+     */
+    public BigDecimal readBigDecimal() {
+        int type = readByte();
+        switch(type) {
+            case 0:
+                return null;
+            case 1:
+                int scale = readSignedInt();
+                return BigDecimal.valueOf(readSignedLong(), scale);
+            case 2:
+                int bigScale = readSignedInt();
+                return new BigDecimal(new BigInteger(readBytes()), bigScale);
+        }
+        throw new IllegalStateException("Invalid BigDecimal marker "+type+" at position "+position);
+    }
+
+    /**
+     * Read Timestamp (Nullable)
+     * @return
+     */
+    public Timestamp readTimestamp() {
+        if(!readBoolean()) {
+            return null;
+        }
+        Timestamp timestamp = new Timestamp(readSignedLong());
+        timestamp.setNanos(timestamp.getNanos() + readVarInt());
+        return timestamp;
+    }
+
+    /**
+     * Returns True if there is more data to Read
+     * @return
+     */
+    public boolean hasMore() {
+        return position < buffer.length;
+    }
+}
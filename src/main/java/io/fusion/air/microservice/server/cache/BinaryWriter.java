@@ -0,0 +1,219 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Binary Writer for the Compact Binary Serializer
+ *
+ * 1. Integers are Variable Length (LEB128) encoded. Signed values are ZigZag encoded.
+ * 2. Strings are Length (+1) prefixed UTF-8 Bytes (Length 0 = null)
+ * 3. UUID, BigDecimal and Timestamp are packed natively (with a Null Marker)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class BinaryWriter {
+
+    private byte[] buffer;
+    private int position;
+
+    /**
+     * Create Binary Writer
+     * @param _initialSize
+     */
+    public BinaryWriter(int _initialSize) {
+        buffer = new byte[Math.max(16, _initialSize)];
+    }
+
+    /**
+     * Write a Byte
+     * @param _value
+     */
+    public void writeByte(int _value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) _value;
+    }
+
+    /**
+     * Write Boolean
+     * @param _value
+     */
+    public void writeBoolean(boolean _value) {
+        writeByte(_value ? 1 : 0);
+    }
+
+    /**
+     * Write Unsigned Variable Length Long
+     * @param _value
+     */
+    public void writeVarLong(long _value) {
+        ensureCapacity(10);
+        while ((_value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((_value & 0x7F) | 0x80);
+            _value >>>= 7;
+        }
+        buffer[position++] = (byte) _value;
+    }
+
+    /**
+     * Write Unsigned Variable Length Int
+     * @param _value
+     */
+    public void writeVarInt(int _value) {
+        writeVarLong(_value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Write Signed Long (ZigZag + Variable Length)
+     * @param _value
+     */
+    public void writeSignedLong(long _value) {
+        writeVarLong((_value << 1) ^ (_value >> 63));
+    }
+
+    /**
+     * Write Signed Int (ZigZag + Variable Length)
+     * @param _value
+     */
+    public void writeSignedInt(int _value) {
+        writeSignedLong(_value);
+    }
+
+    /**
+     * Write Fixed 8 Byte Long
+     * @param _value
+     */
+    public void writeFixedLong(long _value) {
+        ensureCapacity(8);
+        for(int x=56; x >= 0; x -= 8) {
+            buffer[position++] = (byte) (_value >>> x);
+        }
+    }
+
+    /**
+     * Write Length Prefixed Bytes
+     * @param _bytes
+     */
+    public void writeBytes(byte[] _bytes) {
+        writeVarInt(_bytes.length);
+        writeRawBytes(_bytes);
+    }
+
+    /**
+     * Write Bytes (without Length)
+     * @param _bytes
+     */
+    public void writeRawBytes(byte[] _bytes) {
+        ensureCapacity(_bytes.length);
+        System.arraycopy(_bytes, 0, buffer, position, _bytes.length);
+        position += _bytes.length;
+    }
+
+    /**
+     * Write String (Nullable)
+     * @param _value
+     */
+    public void writeString(String _value) {
+        if(_value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = _value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        writeRawBytes(bytes);
+    }
+
+    /**
+     * Write UUID (Nullable) - 16 Bytes
+     * @param _value
+     */
+    public void writeUUID(UUID _value) {
+        writeBoolean(_value != null);
+        if(_value != null) {
+            writeFixedLong(_value.getMostSignificantBits());
+            writeFixedLong(_value.getLeastSignificantBits());
+        }
+    }
+
+    /**
+     * Write BigDecimal (Nullable)
+     * Scale + Unscaled Value (as Signed Long if it fits in 64 bits else as Bytes)
+     * @param _value
+     */
+    public void writeBigDecimal(BigDecimal _value) {
+        if(_value == null) {
+            writeByte(0);
+            return;
+        }
+        BigInteger unscaled = _value.unscaledValue();
+        if(unscaled.bitLength() < 64) {
+            writeByte(1);
+            writeSignedInt(_value.scale());
+            writeSignedLong(unscaled.longValue());
+        } else {
+            writeByte(2);
+            writeSignedInt(_value.scale());
+            writeBytes(unscaled.toByteArray());
+        }
+    }
+
+    /**
+     * Write Timestamp (Nullable)
+     * Epoch Milli Seconds + Sub Milli Second Nanos
+     * @param _value
+     */
+    public void writeTimestamp(Timestamp _value) {
+        writeBoolean(_value != null);
+        if(_value != null) {
+            writeSignedLong(_value.getTime());
+            writeVarInt(_value.getNanos() % 1_000_000);
+        }
+    }
+
+    /**
+     * Returns the Bytes Written
+     * @return
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * Returns the No. of Bytes Written
+     * @return
+     */
+    public int size() {
+        return position;
+    }
+
+    /**
+     * Grow the Buffer if Required
+     * @param _bytes
+     */
+    private void ensureCapacity(int _bytes) {
+        if(position + _bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + _bytes));
+        }
+    }
+}
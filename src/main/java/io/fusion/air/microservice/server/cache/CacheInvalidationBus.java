@@ -0,0 +1,270 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Cache Invalidation Bus (Kafka)
+ *
+ * Every Cache Update / Eviction on this Node is collected and published (in batches) to the
+ * Invalidation Topic. Every Node consumes the Topic (with a Node specific Consumer Group) and
+ * evicts the Keys from the Local (L1) Cache. Events published by this Node are ignored.
+ *
+ * The Consumer Group is stable for the Instance (Instance ID, default = Host Name + Server Port),
+ * so a Restart doesn't leave an orphan Consumer Group behind. Failed Sends are Logged, Counted
+ * (cache.invalidation.send.failures) and Re-Queued for the next Flush.
+ *
+ * Event Format (Kafka Key = Cache Key Ex. Product UUID)
+ * Node ID | Cache Name | Cache Key      (Cache Key = * for Clear Cache)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@Component
+@ConditionalOnProperty(name = "cache.invalidation.enabled", havingValue = "true")
+public class CacheInvalidationBus implements CacheInvalidationListener {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    public static final String SEPARATOR = "|";
+    public static final String ALL_KEYS  = "*";
+
+    @Autowired
+    private TwoTierCacheManager cacheManager;
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Value("${cache.invalidation.topic:ms-cache.invalidation}")
+    private String topic;
+
+    @Value("${service.name:NameNotDefined}")
+    private String serviceName;
+
+    @Value("${cache.invalidation.instance-id:}")
+    private String instanceId;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    // Events Published by this Process (Ignored by the Consumer)
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong sendFailures = new AtomicLong();
+
+    // Pending Invalidations (Cache Name -> Keys) collected between the Flushes
+    private final Map<String, Set<String>> pending = new ConcurrentHashMap<String, Set<String>>();
+
+    /**
+     * Register the Bus with the Cache Manager
+     */
+    @PostConstruct
+    public void init() {
+        if(instanceId == null || instanceId.isBlank()) {
+            instanceId = hostName() + "-" + serverPort;
+        }
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if(registry != null) {
+            FunctionCounter.builder("cache.invalidation.send.failures", sendFailures, AtomicLong::get)
+                    .description("The number of Cache Invalidations failed to Publish (Re-Queued)")
+                    .register(registry);
+        }
+        cacheManager.setInvalidationListener(this);
+        log.info("Cache Invalidation Bus Started. Node = {} Group = {} Topic = {}", nodeId, getGroupId(), topic);
+    }
+
+    /**
+     * Publish the Pending Invalidations before Shutdown
+     */
+    @PreDestroy
+    public void shutdown() {
+        cacheManager.setInvalidationListener(null);
+        flush();
+    }
+
+    /**
+     * Returns the Node ID
+     * @return
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Consumer Group is unique for every Instance. Every Instance has to receive all the
+     * Invalidations. Stable across the Restarts of the Instance.
+     * @return
+     */
+    public String getGroupId() {
+        return serviceName + "-cache-" + instanceId;
+    }
+
+    /**
+     * Returns the No. of Invalidations failed to Publish
+     * @return
+     */
+    public long getSendFailures() {
+        return sendFailures.get();
+    }
+
+    /**
+     * Cache Entry Updated or Evicted on this Node
+     * @param _cacheName
+     * @param _key
+     */
+    @Override
+    public void invalidated(String _cacheName, String _key) {
+        pending.computeIfAbsent(_cacheName, k -> ConcurrentHashMap.newKeySet()).add(_key);
+    }
+
+    /**
+     * Cache Cleared on this Node
+     * @param _cacheName
+     */
+    @Override
+    public void cleared(String _cacheName) {
+        invalidated(_cacheName, ALL_KEYS);
+    }
+
+    /**
+     * Publish the Pending Invalidations (Duplicate Keys within the Interval are Published Once)
+     */
+    @Scheduled(fixedDelayString = "${cache.invalidation.flush.interval:50}")
+    public void flush() {
+        int events = 0;
+        for(Map.Entry<String, Set<String>> entry : pending.entrySet()) {
+            String cacheName = entry.getKey();
+            Set<String> keys = entry.getValue();
+            for(String key : keys) {
+                // Keys added during the Flush will be picked up in the next Flush
+                if(keys.remove(key)) {
+                    send(cacheName, key);
+                    events++;
+                }
+            }
+        }
+        if(events == 0) {
+            return;
+        }
+        kafkaTemplate.flush();
+        log.debug("Cache Invalidations Published = {}", events);
+    }
+
+    /**
+     * Publish the Invalidation (Failed Sends are Re-Queued for the next Flush)
+     * @param _cacheName
+     * @param _key
+     */
+    private void send(String _cacheName, String _key) {
+        try {
+            kafkaTemplate.send(topic, _key, nodeId + SEPARATOR + _cacheName + SEPARATOR + _key)
+                    .whenComplete((result, error) -> {
+                        if(error != null) {
+                            sendFailed(_cacheName, _key, error);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            sendFailed(_cacheName, _key, e);
+        }
+    }
+
+    /**
+     * Count, Log and Re-Queue the Failed Invalidation
+     * @param _cacheName
+     * @param _key
+     * @param _error
+     */
+    private void sendFailed(String _cacheName, String _key, Throwable _error) {
+        long failures = sendFailures.incrementAndGet();
+        log.warn("Cache Invalidation Publish Failed {}:{} (Failures = {}) = {}",
+                _cacheName, _key, failures, _error.getMessage());
+        invalidated(_cacheName, _key);
+    }
+
+    /**
+     * Returns the Host Name (Node ID if the Host Name is NOT available)
+     * @return
+     */
+    private String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return nodeId;
+        }
+    }
+
+    /**
+     * Consume the Invalidations from the other Nodes and Evict the Local (L1) Cache
+     * @param _records
+     */
+    @KafkaListener(topics = "${cache.invalidation.topic:ms-cache.invalidation}",
+            groupId = "#{__listener.groupId}", batch = "true",
+            properties = { "auto.offset.reset=latest" })
+    public void consume(List<ConsumerRecord<String, String>> _records) {
+        // Cache Name -> Keys
+        Map<String, List<String>> evictions = new ConcurrentHashMap<String, List<String>>();
+        for(ConsumerRecord<String, String> record : _records) {
+            // Ignore the Tombstones (NO Value)
+            if(record.value() == null) {
+                continue;
+            }
+            String[] event = record.value().split("\\" + SEPARATOR, 3);
+            // Ignore Invalid Events and the Events Published by this Node
+            if(event.length < 3 || nodeId.equals(event[0])) {
+                continue;
+            }
+            evictions.computeIfAbsent(event[1], k -> new ArrayList<String>()).add(event[2]);
+        }
+        for(Map.Entry<String, List<String>> entry : evictions.entrySet()) {
+            if(entry.getValue().contains(ALL_KEYS)) {
+                cacheManager.clearLocal(entry.getKey());
+            } else {
+                cacheManager.evictLocal(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}
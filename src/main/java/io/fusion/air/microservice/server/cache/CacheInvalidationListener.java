@@ -0,0 +1,40 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+/**
+ * Cache Invalidation Listener
+ * Gets notified whenever a Cache Entry is Updated / Evicted (or the Cache is Cleared) on this Node.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public interface CacheInvalidationListener {
+
+    /**
+     * Cache Entry Updated or Evicted
+     * @param _cacheName
+     * @param _key
+     */
+    public void invalidated(String _cacheName, String _key);
+
+    /**
+     * All the Entries in the Cache Cleared
+     * @param _cacheName
+     */
+    public void cleared(String _cacheName);
+}
@@ -0,0 +1,162 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import java.time.Duration;
+
+/**
+ * Cache Specification for a Named Cache
+ *
+ * 1. Remote (L2 - Redis) Time To Live
+ * 2. Local  (L1 - In Heap) Max Entries and Time To Live
+ *
+ * 3. Refresh Ahead (Fraction of the TTL) and Stale While Revalidate Window
+ *
+ * Local TTL is always capped by the Remote TTL. Local Max Entries = 0 disables the Local Cache.
+ *
+ * Refresh Ahead: Once a Value is older than (TTL x Refresh Ahead) the next Read returns the Value
+ * and reloads it in the Background. Stale While Revalidate: Values expired less than the Stale
+ * Window ago are still returned (and reloaded in the Background). Refresh Ahead = 0 disables both.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class CacheSpec {
+
+    private final String name;
+    private final Duration ttl;
+
+    private long localMaxEntries = 0;
+    private Duration localTtl = Duration.ZERO;
+
+    private double refreshAhead = 0;
+    private Duration staleWindow = Duration.ZERO;
+
+    /**
+     * Create Cache Spec
+     * @param _name
+     * @param _ttl Remote (L2) Time To Live
+     */
+    public CacheSpec(String _name, Duration _ttl) {
+        this.name   = _name;
+        this.ttl    = _ttl;
+    }
+
+    /**
+     * Set the Local (L1) Cache Size and Time To Live
+     * @param _maxEntries
+     * @param _ttl
+     * @return
+     */
+    public CacheSpec local(long _maxEntries, Duration _ttl) {
+        this.localMaxEntries = Math.max(0, _maxEntries);
+        this.localTtl        = (_ttl.compareTo(ttl) > 0) ? ttl : _ttl;
+        return this;
+    }
+
+    /**
+     * Set the Refresh Ahead and the Stale While Revalidate Window
+     * @param _refreshAhead Fraction of the TTL (0 - 1). 0 disables Refresh Ahead.
+     * @param _staleWindow
+     * @return
+     */
+    public CacheSpec refreshAhead(double _refreshAhead, Duration _staleWindow) {
+        this.refreshAhead   = Math.min(1, Math.max(0, _refreshAhead));
+        this.staleWindow    = (_staleWindow.isNegative()) ? Duration.ZERO : _staleWindow;
+        return this;
+    }
+
+    /**
+     * Returns the Cache Name
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the Remote (L2) Time To Live
+     * @return
+     */
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Returns the Time To Live in Redis (TTL + Stale While Revalidate Window)
+     * @return
+     */
+    public Duration getRemoteTtl() {
+        return isRefreshAheadEnabled() ? ttl.plus(staleWindow) : ttl;
+    }
+
+    /**
+     * Returns the Refresh Ahead (Fraction of the TTL)
+     * @return
+     */
+    public double getRefreshAhead() {
+        return refreshAhead;
+    }
+
+    /**
+     * Returns the Stale While Revalidate Window
+     * @return
+     */
+    public Duration getStaleWindow() {
+        return staleWindow;
+    }
+
+    /**
+     * Returns True if Refresh Ahead is Enabled
+     * @return
+     */
+    public boolean isRefreshAheadEnabled() {
+        return refreshAhead > 0;
+    }
+
+    /**
+     * Returns the Max Entries in the Local (L1) Cache
+     * @return
+     */
+    public long getLocalMaxEntries() {
+        return localMaxEntries;
+    }
+
+    /**
+     * Returns the Local (L1) Time To Live
+     * @return
+     */
+    public Duration getLocalTtl() {
+        return localTtl;
+    }
+
+    /**
+     * Returns True if the Local (L1) Cache is Enabled
+     * @return
+     */
+    public boolean isLocalEnabled() {
+        return localMaxEntries > 0 && !localTtl.isZero() && !localTtl.isNegative();
+    }
+
+    /**
+     * Returns Cache Name | TTL | Local Max Entries | Local TTL | Refresh Ahead | Stale Window
+     * @return
+     */
+    public String toString() {
+        return name + "|" + ttl + "|" + localMaxEntries + "|" + localTtl + "|" + refreshAhead + "|" + staleWindow;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import org.springframework.cache.Cache;
+
+/**
+ * Cached Value with the Time it was Loaded
+ *
+ * Used by the Caches with Refresh Ahead / Stale While Revalidate to find the Age of the Value.
+ * Stored as is in both the Tiers (L1 and L2).
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class CachedValue implements Cache.ValueWrapper {
+
+    private Object value;
+    private long loadedAt;
+
+    /**
+     * For the Serializers ONLY
+     */
+    private CachedValue() {
+    }
+
+    /**
+     * Create Cached Value
+     * @param _value
+     * @param _loadedAt Epoch Milli Seconds
+     */
+    public CachedValue(Object _value, long _loadedAt) {
+        this.value      = _value;
+        this.loadedAt   = _loadedAt;
+    }
+
+    /**
+     * Returns the Value
+     * @return
+     */
+    @Override
+    public Object get() {
+        return value;
+    }
+
+    /**
+     * Returns the Load Time (Epoch Milli Seconds)
+     * @return
+     */
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * Returns the Age in Milli Seconds
+     * @param _now
+     * @return
+     */
+    public long age(long _now) {
+        return _now - loadedAt;
+    }
+
+    public String toString() {
+        return loadedAt + "|" + value;
+    }
+}
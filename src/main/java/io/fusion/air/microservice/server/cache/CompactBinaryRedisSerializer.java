@@ -0,0 +1,291 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact Binary Redis Serializer for the Cached Values
+ *
+ * Format = Magic Byte | Type ID (Variable Length) | Value
+ *
+ * 1. Types are identified by a Registered Type ID (instead of the Class Name).
+ * 2. Fields are written by the Type's Codec using Variable Length Integers and native
+ *    encoding for BigDecimal, UUID and Timestamp (See BinaryWriter).
+ * 3. Values of Unregistered Types are serialized by the Fallback (JSON) Serializer. Data without
+ *    the Magic Byte is handed over to the Fallback Serializer, so Values already cached as JSON
+ *    are still readable after switching to the Binary Serializer.
+ *
+ * Type IDs 1 - 15 are reserved for the Built-in Types. Type IDs are written into Redis and MUST
+ * NOT be changed (or reused) once assigned.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class CompactBinaryRedisSerializer implements RedisSerializer<Object> {
+
+    // Not a valid first byte for JSON (or UTF-8) data
+    public static final byte MAGIC = (byte) 0xB1;
+
+    public static final int MIN_USER_TYPE_ID = 16;
+    public static final int MAX_TYPE_ID = 1023;
+
+    // Built-in Types
+    private static final int TYPE_JSON       = 1;
+    private static final int TYPE_STRING     = 2;
+    private static final int TYPE_LONG       = 3;
+    private static final int TYPE_INTEGER    = 4;
+    private static final int TYPE_BOOLEAN    = 5;
+    private static final int TYPE_UUID       = 6;
+    private static final int TYPE_BIGDECIMAL = 7;
+    private static final int TYPE_TIMESTAMP  = 8;
+    private static final int TYPE_LIST       = 9;
+    private static final int TYPE_CACHED     = 10;
+
+    private final RedisSerializer<Object> fallback;
+    private final Map<Class<?>, Registration<?>> typeRegistry = new ConcurrentHashMap<Class<?>, Registration<?>>();
+    private volatile Registration<?>[] idRegistry = new Registration<?>[MIN_USER_TYPE_ID * 2];
+
+    /**
+     * Create Compact Binary Serializer
+     * @param _fallback Serializer for the Unregistered Types
+     */
+    public CompactBinaryRedisSerializer(RedisSerializer<Object> _fallback) {
+        this.fallback = _fallback;
+        registerType(TYPE_STRING, String.class, new BinaryCodec<String>() {
+            public void write(String _value, BinaryWriter _out) { _out.writeString(_value); }
+            public String read(BinaryReader _in) { return _in.readString(); }
+        });
+        registerType(TYPE_LONG, Long.class, new BinaryCodec<Long>() {
+            public void write(Long _value, BinaryWriter _out) { _out.writeSignedLong(_value); }
+            public Long read(BinaryReader _in) { return _in.readSignedLong(); }
+        });
+        registerType(TYPE_INTEGER, Integer.class, new BinaryCodec<Integer>() {
+            public void write(Integer _value, BinaryWriter _out) { _out.writeSignedInt(_value); }
+            public Integer read(BinaryReader _in) { return _in.readSignedInt(); }
+        });
+        registerType(TYPE_BOOLEAN, Boolean.class, new BinaryCodec<Boolean>() {
+            public void write(Boolean _value, BinaryWriter _out) { _out.writeBoolean(_value); }
+            public Boolean read(BinaryReader _in) { return _in.readBoolean(); }
+        });
+        registerType(TYPE_UUID, UUID.class, new BinaryCodec<UUID>() {
+            public void write(UUID _value, BinaryWriter _out) { _out.writeUUID(_value); }
+            public UUID read(BinaryReader _in) { return _in.readUUID(); }
+        });
+        registerType(TYPE_BIGDECIMAL, BigDecimal.class, new BinaryCodec<BigDecimal>() {
+            public void write(BigDecimal _value, BinaryWriter _out) { _out.writeBigDecimal(_value); }
+            public BigDecimal read(BinaryReader _in) { return _in.readBigDecimal(); }
+        });
+        registerType(TYPE_TIMESTAMP, Timestamp.class, new BinaryCodec<Timestamp>() {
+            public void write(Timestamp _value, BinaryWriter _out) { _out.writeTimestamp(_value); }
+            public Timestamp read(BinaryReader _in) { return _in.readTimestamp(); }
+        });
+        registerType(TYPE_LIST, ArrayList.class, new BinaryCodec<ArrayList>() {
+            public void write(ArrayList _value, BinaryWriter _out) { writeList(_value, _out); }
+            public ArrayList read(BinaryReader _in) { return readList(_in); }
+        });
+        registerType(TYPE_CACHED, CachedValue.class, new BinaryCodec<CachedValue>() {
+            public void write(CachedValue _value, BinaryWriter _out) {
+                _out.writeSignedLong(_value.getLoadedAt());
+                writeObject(_value.get(), _out);
+            }
+            public CachedValue read(BinaryReader _in) {
+                long loadedAt = _in.readSignedLong();
+                return new CachedValue(readObject(_in), loadedAt);
+            }
+        });
+    }
+
+    /**
+     * Register a Type with its Codec
+     * @param _typeId Unique ID (16 - 1023) for the Type. Must NOT change once the data is cached.
+     * @param _type
+     * @param _codec
+     * @return
+     */
+    public <T> CompactBinaryRedisSerializer register(int _typeId, Class<T> _type, BinaryCodec<T> _codec) {
+        if(_typeId < MIN_USER_TYPE_ID || _typeId > MAX_TYPE_ID) {
+            throw new IllegalArgumentException("Type ID for "+_type.getName()
+                    +" must be between "+MIN_USER_TYPE_ID+" and "+MAX_TYPE_ID+" = "+_typeId);
+        }
+        registerType(_typeId, _type, _codec);
+        return this;
+    }
+
+    /**
+     * Returns True if the Type is Registered
+     * @param _type
+     * @return
+     */
+    public boolean isRegistered(Class<?> _type) {
+        return typeRegistry.containsKey(_type);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if(value == null) {
+            return new byte[0];
+        }
+        if(!isRegistered(value.getClass()) && !(value instanceof List)) {
+            return fallback.serialize(value);
+        }
+        try {
+            BinaryWriter out = new BinaryWriter(128);
+            out.writeByte(MAGIC);
+            writeObject(value, out);
+            return out.toByteArray();
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not write "+value.getClass().getName()+": "+e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if(bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if(bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        try {
+            return readObject(new BinaryReader(bytes, 1));
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not read the Binary Data: "+e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write the Type ID and the Value. (Can be used by the Codecs for nested Values)
+     * Values of Unregistered Types are written as Length Prefixed JSON.
+     * @param _value
+     * @param _out
+     */
+    @SuppressWarnings("unchecked")
+    public void writeObject(Object _value, BinaryWriter _out) {
+        if(_value == null) {
+            _out.writeVarInt(0);
+            return;
+        }
+        Registration<Object> registration = (Registration<Object>) typeRegistry.get(_value.getClass());
+        if(registration == null && _value instanceof List) {
+            _out.writeVarInt(TYPE_LIST);
+            writeList((List<?>) _value, _out);
+            return;
+        }
+        if(registration == null) {
+            _out.writeVarInt(TYPE_JSON);
+            _out.writeBytes(fallback.serialize(_value));
+            return;
+        }
+        _out.writeVarInt(registration.typeId);
+        registration.codec.write(_value, _out);
+    }
+
+    /**
+     * Read the Type ID and the Value. (Can be used by the Codecs for nested Values)
+     * @param _in
+     * @return
+     */
+    public Object readObject(BinaryReader _in) {
+        int typeId = _in.readVarInt();
+        if(typeId == 0) {
+            return null;
+        }
+        if(typeId == TYPE_JSON) {
+            return fallback.deserialize(_in.readBytes());
+        }
+        Registration<?>[] registrations = idRegistry;
+        Registration<?> registration = (typeId > 0 && typeId < registrations.length) ? registrations[typeId] : null;
+        if(registration == null) {
+            throw new IllegalStateException("Unknown Type ID = "+typeId);
+        }
+        return registration.codec.read(_in);
+    }
+
+    /**
+     * Write the List (Size + Elements)
+     * @param _list
+     * @param _out
+     */
+    private void writeList(List<?> _list, BinaryWriter _out) {
+        _out.writeVarInt(_list.size());
+        for(Object element : _list) {
+            writeObject(element, _out);
+        }
+    }
+
+    /**
+     * Read the List (Size + Elements)
+     * @param _in
+     * @return
+     */
+    private ArrayList<Object> readList(BinaryReader _in) {
+        int size = _in.readVarInt();
+        ArrayList<Object> list = new ArrayList<Object>(Math.min(size, 1024));
+        for(int x=0; x<size; x++) {
+            list.add(readObject(_in));
+        }
+        return list;
+    }
+
+    /**
+     * Register the Type
+     * @param _typeId
+     * @param _type
+     * @param _codec
+     */
+    private synchronized <T> void registerType(int _typeId, Class<T> _type, BinaryCodec<T> _codec) {
+        Registration<?>[] registrations = idRegistry;
+        if(_typeId < registrations.length && registrations[_typeId] != null) {
+            throw new IllegalArgumentException("Type ID "+_typeId+" already registered for "
+                    +registrations[_typeId].type.getName());
+        }
+        if(typeRegistry.containsKey(_type)) {
+            throw new IllegalArgumentException("Type "+_type.getName()+" already registered");
+        }
+        Registration<T> registration = new Registration<T>(_typeId, _type, _codec);
+        Registration<?>[] copy = Arrays.copyOf(registrations, Math.max(registrations.length, _typeId + 1));
+        copy[_typeId] = registration;
+        idRegistry = copy;
+        typeRegistry.put(_type, registration);
+    }
+
+    /**
+     * Registered Type
+     */
+    private static final class Registration<T> {
+        private final int typeId;
+        private final Class<T> type;
+        private final BinaryCodec<T> codec;
+
+        private Registration(int _typeId, Class<T> _type, BinaryCodec<T> _codec) {
+            this.typeId = _typeId;
+            this.type   = _type;
+            this.codec  = _codec;
+        }
+    }
+}
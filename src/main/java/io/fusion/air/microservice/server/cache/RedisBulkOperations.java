@@ -0,0 +1,198 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk Operations on the Redis Caches (RedisCache)
+ *
+ * 1. Multi Get = Single MGET for all the Keys
+ * 2. Multi Put = Pipelined SET (with the Cache TTL) for all the Entries
+ * 3. Multi Evict = Single DEL for all the Keys
+ *
+ * Keys and Values are converted using the Cache's Configuration (Key Prefix, Conversion Service
+ * and the Serializers), so the Entries are the same as the ones written by the RedisCache.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class RedisBulkOperations {
+
+    private final RedisConnectionFactory connectionFactory;
+
+    /**
+     * Create Redis Bulk Operations
+     * @param _connectionFactory
+     */
+    public RedisBulkOperations(RedisConnectionFactory _connectionFactory) {
+        this.connectionFactory = _connectionFactory;
+    }
+
+    /**
+     * Returns True if the Bulk Operations are supported for the Cache
+     * @param _cache
+     * @return
+     */
+    public boolean supports(Cache _cache) {
+        return _cache instanceof RedisCache;
+    }
+
+    /**
+     * Get the Values (in the same Order as the Keys, null for a Miss) with a Single MGET
+     * @param _cache
+     * @param _keys
+     * @return
+     */
+    public List<Object> multiGet(Cache _cache, List<?> _keys) {
+        if(_keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        RedisCache cache = (RedisCache) _cache;
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+        byte[][] redisKeys = new byte[_keys.size()][];
+        for(int x=0; x<_keys.size(); x++) {
+            redisKeys[x] = redisKey(cache.getName(), config, _keys.get(x));
+        }
+        List<byte[]> values;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            values = connection.stringCommands().mGet(redisKeys);
+        }
+        List<Object> result = new ArrayList<Object>(_keys.size());
+        for(int x=0; x<_keys.size(); x++) {
+            byte[] value = (values != null && x < values.size()) ? values.get(x) : null;
+            result.add((value != null && value.length > 0)
+                    ? config.getValueSerializationPair().read(ByteBuffer.wrap(value))
+                    : null);
+        }
+        return result;
+    }
+
+    /**
+     * Put the Entries (with the Cache TTL) in a Single Pipeline
+     * @param _cache
+     * @param _entries
+     */
+    public void multiPut(Cache _cache, Map<?, ?> _entries) {
+        if(_entries.isEmpty()) {
+            return;
+        }
+        RedisCache cache = (RedisCache) _cache;
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+        Duration ttl = config.getTtl();
+        Expiration expiration = (ttl != null && !ttl.isZero() && !ttl.isNegative())
+                ? Expiration.from(ttl)
+                : Expiration.persistent();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            try {
+                for(Map.Entry<?, ?> entry : _entries.entrySet()) {
+                    if(entry.getValue() == null) {
+                        continue;
+                    }
+                    connection.stringCommands().set(
+                            redisKey(cache.getName(), config, entry.getKey()),
+                            bytes(config.getValueSerializationPair().write(entry.getValue())),
+                            expiration, RedisStringCommands.SetOption.upsert());
+                }
+            } finally {
+                connection.closePipeline();
+            }
+        }
+    }
+
+    /**
+     * Evict the Keys with a Single DEL
+     * @param _cache
+     * @param _keys
+     * @return No. of Keys Removed
+     */
+    public long multiEvict(Cache _cache, Collection<?> _keys) {
+        if(_keys.isEmpty()) {
+            return 0;
+        }
+        RedisCache cache = (RedisCache) _cache;
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+        byte[][] redisKeys = new byte[_keys.size()][];
+        int x = 0;
+        for(Object key : _keys) {
+            redisKeys[x++] = redisKey(cache.getName(), config, key);
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Long removed = connection.keyCommands().del(redisKeys);
+            return (removed != null) ? removed : 0;
+        }
+    }
+
+    /**
+     * Redis Key = Key Prefix (Ex. productCache::) + Key (converted to String)
+     * @param _cacheName
+     * @param _config
+     * @param _key
+     * @return
+     */
+    private byte[] redisKey(String _cacheName, RedisCacheConfiguration _config, Object _key) {
+        String key = (_key instanceof String) ? (String) _key : convertKey(_config.getConversionService(), _key);
+        if(_config.usePrefix()) {
+            key = _config.getKeyPrefixFor(_cacheName) + key;
+        }
+        return bytes(_config.getKeySerializationPair().write(key));
+    }
+
+    /**
+     * Convert the Key to String (Same as the RedisCache)
+     * @param _conversionService
+     * @param _key
+     * @return
+     */
+    private String convertKey(ConversionService _conversionService, Object _key) {
+        if(_conversionService.canConvert(_key.getClass(), String.class)) {
+            return _conversionService.convert(_key, String.class);
+        }
+        return String.valueOf(_key);
+    }
+
+    /**
+     * Returns the Bytes from the Byte Buffer
+     * @param _buffer
+     * @return
+     */
+    private byte[] bytes(ByteBuffer _buffer) {
+        if(_buffer.hasArray() && _buffer.arrayOffset() == 0 && _buffer.position() == 0
+                && _buffer.remaining() == _buffer.array().length) {
+            return _buffer.array();
+        }
+        byte[] bytes = new byte[_buffer.remaining()];
+        _buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,821 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Two Tier Cache
+ *
+ * L1 = Bounded In Heap Cache (Per Node) with a short TTL
+ * L2 = Remote Cache (Redis) shared by all the Nodes
+ *
+ * Reads are served from L1, then L2 (and L1 is populated from L2). Every write on this
+ * Node updates / evicts L1 along with L2, so L1 stays consistent with the writes made on the
+ * same Node. Writes made on other Nodes are visible once the L1 entry expires (or it's
+ * invalidated by the Cache Invalidation Bus).
+ *
+ * L1 stores the ValueWrapper itself, so a L1 hit doesn't allocate anything.
+ *
+ * Updates and Evictions are notified to the CacheInvalidationListener (to invalidate L1 in
+ * other Nodes). Populating the Cache after a Miss (Cache Loader) is NOT notified.
+ *
+ * Single Flight Loading: On a Miss (get with a Value Loader / @Cacheable(sync = true)) only one
+ * Load per Key runs on this Node. Concurrent callers for the same Key wait for the same Load and
+ * get its result (or its failure). Failures are NOT cached.
+ *
+ * Refresh Ahead / Stale While Revalidate (if enabled in the Cache Spec): Values are stored as
+ * CachedValue (Value + Load Time). A Read with a Value Loader returns an aged (or slightly expired)
+ * Value immediately and reloads it on the Refresh Executor. Reads without a Value Loader treat the
+ * expired Values as a Miss.
+ *
+ * Evictions & Updates abandon the In Flight Load of the Key (it's removed from the In Flight Loads).
+ * The Load may have read the Value before the Update, so after populating the Tiers it checks that
+ * it's still In Flight and evicts its (Stale) Value again if it was abandoned meanwhile. Evictions
+ * abandon the Load BEFORE removing the Value, so either the Load sees it or the Eviction removes it.
+ *
+ * Bulk Reads (getAll) check L1 first and fetch the rest from L2 with a single Multi Get.
+ * Bulk Loaded Values (populateAll) are written to L2 in a single Pipeline.
+ *
+ * Remote (L2) Failures on the Read Path (Lookups & Populating after a Load) are Logged and Counted
+ * and the Read falls back to L1 / the Value Loader. @Cacheable(sync = true) calls get(key, loader)
+ * directly (the CacheErrorHandler is NOT used), so a Redis Outage must NOT fail the Read here.
+ *
+ * Statistics (Hits, Misses, Puts, Evictions, Loads) are kept in LongAdders, so that recording
+ * them adds only a few Nano Seconds to the Reads. Load Time is given to the Load Recorder (if set).
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class TwoTierCache implements Cache {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private final CacheSpec spec;
+    private final Cache remote;
+    private final CacheInvalidationListener listener;
+    private final com.google.common.cache.Cache<String, ValueWrapper> local;
+    private final Executor refreshExecutor;
+    private final RedisBulkOperations bulkOperations;
+
+    // Refresh Ahead in Milli Seconds
+    private final long refreshAfter;
+    private final long expireAfter;
+    private final long staleAfter;
+
+    // Single Flight Loads (In Flight) and Counters. Evictions remove the Key (abandon the Load)
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlightLoads =
+            new ConcurrentHashMap<String, CompletableFuture<Object>>();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder loadTime = new LongAdder();
+
+    // Statistics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder remoteErrors = new LongAdder();
+    private volatile LongConsumer loadRecorder;
+
+    /**
+     * Create Two Tier Cache
+     * @param _spec
+     * @param _remote
+     * @param _listener
+     * @param _refreshExecutor Executor for the Refresh Ahead Reloads
+     * @param _bulkOperations Bulk Operations on the Remote Cache (Optional)
+     */
+    public TwoTierCache(CacheSpec _spec, Cache _remote, CacheInvalidationListener _listener,
+                        Executor _refreshExecutor, RedisBulkOperations _bulkOperations) {
+        this.spec       = _spec;
+        this.remote     = _remote;
+        this.listener   = _listener;
+        this.refreshExecutor = _refreshExecutor;
+        this.bulkOperations  = (_bulkOperations != null && _bulkOperations.supports(_remote)) ? _bulkOperations : null;
+        this.expireAfter    = _spec.getTtl().toMillis();
+        this.refreshAfter   = (long) (expireAfter * _spec.getRefreshAhead());
+        this.staleAfter     = expireAfter + _spec.getStaleWindow().toMillis();
+        this.local  = (_spec.isLocalEnabled())
+                ? CacheBuilder.newBuilder()
+                    .maximumSize(_spec.getLocalMaxEntries())
+                    .expireAfterWrite(_spec.getLocalTtl())
+                    .build()
+                : null;
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    /**
+     * Returns the Cache Spec
+     * @return
+     */
+    public CacheSpec getSpec() {
+        return spec;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = lookupValue(key, localKey(key));
+        if(value == null || isExpired(value, System.currentTimeMillis())) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return value;
+    }
+
+    /**
+     * Get the Values for the Keys. L1 is checked first and the rest are fetched from L2 with a
+     * single Multi Get (and put in L1). Returns Key -> Value for the Hits ONLY (in the Key Order).
+     * @param _keys
+     * @return
+     */
+    public Map<Object, Object> getAll(List<?> _keys) {
+        Map<Object, Object> values = new LinkedHashMap<Object, Object>();
+        long now = System.currentTimeMillis();
+        List<Object> remoteKeys = new ArrayList<Object>();
+        for(Object key : _keys) {
+            ValueWrapper value = getLocal(localKey(key));
+            if(value != null && !isExpired(value, now)) {
+                localHits.increment();
+                values.put(key, value.get());
+            } else {
+                remoteKeys.add(key);
+            }
+        }
+        if(!remoteKeys.isEmpty()) {
+            List<Object> remoteValues = multiGetRemote(remoteKeys);
+            for(int x=0; x<remoteKeys.size(); x++) {
+                Object key = remoteKeys.get(x);
+                Object remoteValue = remoteValues.get(x);
+                ValueWrapper value = (remoteValue instanceof CachedValue) ? (CachedValue) remoteValue
+                        : (remoteValue != null) ? new SimpleValueWrapper(remoteValue) : null;
+                if(value != null && !isExpired(value, now)) {
+                    putLocal(localKey(key), value);
+                    values.put(key, value.get());
+                }
+            }
+        }
+        hits.add(values.size());
+        misses.add(_keys.size() - values.size());
+        // Return in the Key Order
+        if(remoteKeys.isEmpty() || remoteKeys.size() == _keys.size()) {
+            return values;
+        }
+        Map<Object, Object> ordered = new LinkedHashMap<Object, Object>();
+        for(Object key : _keys) {
+            Object value = values.get(key);
+            if(value != null) {
+                ordered.put(key, value);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Put the Loaded Values in both the Tiers (without notifying the Listener).
+     * L2 is updated with a single Pipeline.
+     * @param _values
+     */
+    public void populateAll(Map<?, ?> _values) {
+        if(_values.isEmpty()) {
+            return;
+        }
+        if(bulkOperations == null) {
+            for(Map.Entry<?, ?> entry : _values.entrySet()) {
+                populate(entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+        Map<Object, Object> stored = new HashMap<Object, Object>();
+        for(Map.Entry<?, ?> entry : _values.entrySet()) {
+            if(entry.getValue() != null) {
+                invalidateLocal(localKey(entry.getKey()));
+                stored.put(entry.getKey(), wrap(entry.getValue()));
+            }
+        }
+        try {
+            bulkOperations.multiPut(remote, stored);
+        } catch (RuntimeException e) {
+            remoteFailed("Multi Put", stored.size() + " Keys", e);
+        }
+        for(Map.Entry<Object, Object> entry : stored.entrySet()) {
+            Object value = entry.getValue();
+            putLocal(localKey(entry.getKey()),
+                    (value instanceof CachedValue) ? (CachedValue) value : new SimpleValueWrapper(value));
+        }
+        puts.add(stored.size());
+    }
+
+    /**
+     * Get the Values from the Remote (L2) Cache (Multi Get if Supported)
+     * @param _keys
+     * @return
+     */
+    private List<Object> multiGetRemote(List<Object> _keys) {
+        if(bulkOperations != null) {
+            try {
+                return bulkOperations.multiGet(remote, _keys);
+            } catch (RuntimeException e) {
+                remoteFailed("Multi Get", _keys.size() + " Keys", e);
+                return new ArrayList<Object>(Collections.nCopies(_keys.size(), null));
+            }
+        }
+        List<Object> values = new ArrayList<Object>(_keys.size());
+        for(Object key : _keys) {
+            ValueWrapper value = remoteGet(key);
+            values.add((value != null) ? value.get() : null);
+        }
+        return values;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        Object data = (value != null) ? value.get() : null;
+        if (data != null && type != null && !type.isInstance(data)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + data);
+        }
+        return (T) data;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        ValueWrapper value = lookupValue(key, localKey);
+        if(value != null) {
+            if(!(value instanceof CachedValue)) {
+                hits.increment();
+                return (T) value.get();
+            }
+            long age = ((CachedValue) value).age(System.currentTimeMillis());
+            if(age < refreshAfter) {
+                hits.increment();
+                return (T) value.get();
+            }
+            if(age < staleAfter) {
+                hits.increment();
+                if(age >= expireAfter) {
+                    staleHits.increment();
+                }
+                refresh(key, localKey, valueLoader, value.get());
+                return (T) value.get();
+            }
+        }
+        misses.increment();
+        return (T) load(key, localKey, valueLoader);
+    }
+
+    /**
+     * Load the Value (Single Flight) and put it in both the Tiers
+     * @param key
+     * @param localKey
+     * @param valueLoader
+     * @return
+     */
+    private Object load(Object key, String localKey, Callable<?> valueLoader) {
+        CompletableFuture<Object> load = new CompletableFuture<Object>();
+        CompletableFuture<Object> inFlight = inFlightLoads.putIfAbsent(localKey, load);
+        if(inFlight != null) {
+            coalescedLoads.increment();
+            return await(key, valueLoader, inFlight);
+        }
+        try {
+            // A Load may have completed between the Miss and the Registration
+            ValueWrapper value = getLocal(localKey);
+            if(value != null && !isExpired(value, System.currentTimeMillis())) {
+                load.complete(value.get());
+                return value.get();
+            }
+            loads.increment();
+            Object data = timedLoad(valueLoader);
+            populateLoaded(key, localKey, data, load);
+            load.complete(data);
+            return data;
+        } catch (Throwable e) {
+            loadFailures.increment();
+            load.completeExceptionally(e);
+            if(e instanceof Error) {
+                throw (Error) e;
+            }
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            inFlightLoads.remove(localKey, load);
+        }
+    }
+
+    /**
+     * Reload the Value in the Background (Skipped if a Load is already In Flight for the Key).
+     * If the Executor is full the current Value is served till the next Read.
+     * @param key
+     * @param localKey
+     * @param valueLoader
+     * @param _current Current Value (given to the Callers waiting for this Reload, if it's rejected)
+     */
+    private void refresh(Object key, String localKey, Callable<?> valueLoader, Object _current) {
+        if(refreshExecutor == null) {
+            return;
+        }
+        CompletableFuture<Object> reload = new CompletableFuture<Object>();
+        if(inFlightLoads.putIfAbsent(localKey, reload) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    Object data = timedLoad(valueLoader);
+                    populateLoaded(key, localKey, data, reload);
+                    refreshes.increment();
+                    reload.complete(data);
+                } catch (Throwable e) {
+                    loadFailures.increment();
+                    log.warn("Cache Refresh Failed {}::{} = {}", getName(), localKey, e.toString());
+                    reload.completeExceptionally(e);
+                } finally {
+                    inFlightLoads.remove(localKey, reload);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightLoads.remove(localKey, reload);
+            reload.complete(_current);
+            log.debug("Cache Refresh Rejected {}::{}", getName(), localKey);
+        }
+    }
+
+    /**
+     * Put the Loaded Value in both the Tiers. If the Key was Evicted (or Updated) while Loading, the
+     * Load was abandoned and the Value may be Stale, so it's Evicted again from both the Tiers.
+     * @param key
+     * @param localKey
+     * @param data
+     * @param _load
+     */
+    private void populateLoaded(Object key, String localKey, Object data, CompletableFuture<Object> _load) {
+        populate(key, data);
+        if(inFlightLoads.get(localKey) == _load) {
+            return;
+        }
+        invalidateLocal(localKey);
+        try {
+            remote.evict(key);
+        } catch (RuntimeException e) {
+            remoteFailed("Evict", localKey, e);
+        }
+        log.debug("Cache Load Abandoned (Evicted while Loading) {}::{}", getName(), localKey);
+    }
+
+    /**
+     * Abandon the In Flight Load (if any) of the Key. Its Value will NOT stay in the Cache.
+     * @param _localKey
+     */
+    private void abandonLoad(String _localKey) {
+        inFlightLoads.remove(_localKey);
+    }
+
+    /**
+     * Call the Value Loader and Record the Load Time
+     * @param valueLoader
+     * @return
+     * @throws Exception
+     */
+    private Object timedLoad(Callable<?> valueLoader) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return valueLoader.call();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            loadTime.add(elapsed);
+            LongConsumer recorder = loadRecorder;
+            if(recorder != null) {
+                recorder.accept(elapsed);
+            }
+        }
+    }
+
+    /**
+     * Set the Load Recorder (Load Time in Nano Seconds). Ex. Micrometer Timer
+     * @param _recorder
+     */
+    public void setLoadRecorder(LongConsumer _recorder) {
+        this.loadRecorder = _recorder;
+    }
+
+    /**
+     * Wait for the In Flight Load (of the same Key) to Complete
+     * @param key
+     * @param valueLoader
+     * @param _load
+     * @return
+     */
+    private Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> _load) {
+        try {
+            return _load.join();
+        } catch (CompletionException e) {
+            Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+            if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ValueRetrievalException(key, valueLoader, cause);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        abandonLoad(localKey(key));
+        String localKey = populate(key, value);
+        listener.invalidated(getName(), localKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        String localKey = localKey(key);
+        evictLocal(localKey);
+        ValueWrapper existing = unwrap(remote.putIfAbsent(key, wrap(value)));
+        puts.increment();
+        listener.invalidated(getName(), localKey);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = localKey(key);
+        evictLocal(localKey);
+        remote.evict(key);
+        evictions.increment();
+        listener.invalidated(getName(), localKey);
+    }
+
+    /**
+     * Evict the Keys from both the Tiers. L2 is updated with a single Multi Evict (if Supported)
+     * @param _keys
+     */
+    public void evictAll(Collection<?> _keys) {
+        if(_keys.isEmpty()) {
+            return;
+        }
+        List<String> localKeys = new ArrayList<String>(_keys.size());
+        for(Object key : _keys) {
+            String localKey = localKey(key);
+            abandonLoad(localKey);
+            localKeys.add(localKey);
+        }
+        if(local != null) {
+            local.invalidateAll(localKeys);
+        }
+        if(bulkOperations != null) {
+            bulkOperations.multiEvict(remote, _keys);
+        } else {
+            for(Object key : _keys) {
+                remote.evict(key);
+            }
+        }
+        evictions.add(_keys.size());
+        for(String localKey : localKeys) {
+            listener.invalidated(getName(), localKey);
+        }
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        String localKey = localKey(key);
+        evictLocal(localKey);
+        boolean evicted = remote.evictIfPresent(key);
+        evictions.increment();
+        listener.invalidated(getName(), localKey);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        clearLocal();
+        remote.clear();
+        listener.cleared(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        clearLocal();
+        boolean invalidated = remote.invalidate();
+        listener.cleared(getName());
+        return invalidated;
+    }
+
+    /**
+     * Put the Value in both the Tiers (without notifying the Listener)
+     * Used for the Values Loaded from the Source (Ex. after a Miss). Use put() for the Updates.
+     * @param key
+     * @param value
+     * @return Local Key
+     */
+    public String populate(Object key, Object value) {
+        String localKey = localKey(key);
+        invalidateLocal(localKey);
+        Object stored = wrap(value);
+        try {
+            remote.put(key, stored);
+        } catch (RuntimeException e) {
+            remoteFailed("Put", localKey, e);
+        }
+        puts.increment();
+        putLocal(localKey, (stored instanceof CachedValue) ? (CachedValue) stored : new SimpleValueWrapper(value));
+        return localKey;
+    }
+
+    /**
+     * Get the Value from L1 (or L2 and populate L1). Expired Values are NOT filtered here.
+     * @param key
+     * @param localKey
+     * @return
+     */
+    private ValueWrapper lookupValue(Object key, String localKey) {
+        ValueWrapper value = getLocal(localKey);
+        if(value != null) {
+            localHits.increment();
+            return value;
+        }
+        value = unwrap(remoteGet(key));
+        putLocal(localKey, value);
+        return value;
+    }
+
+    /**
+     * Get the Value from the Remote (L2) Cache (null if the Remote Cache Failed)
+     * @param key
+     * @return
+     */
+    private ValueWrapper remoteGet(Object key) {
+        try {
+            return remote.get(key);
+        } catch (RuntimeException e) {
+            remoteFailed("Get", localKey(key), e);
+            return null;
+        }
+    }
+
+    /**
+     * Log and Count the Remote (L2) Failure
+     * @param _operation
+     * @param _key
+     * @param _e
+     */
+    private void remoteFailed(String _operation, String _key, RuntimeException _e) {
+        remoteErrors.increment();
+        log.warn("Remote Cache {} Failed {}::{} = {}", _operation, getName(), _key, _e.getMessage());
+    }
+
+    /**
+     * Wrap the Value with the Load Time (if Refresh Ahead is Enabled)
+     * @param value
+     * @return
+     */
+    private Object wrap(Object value) {
+        return (spec.isRefreshAheadEnabled() && value != null)
+                ? new CachedValue(value, System.currentTimeMillis())
+                : value;
+    }
+
+    /**
+     * Unwrap the Cached Value from the Remote Value Wrapper
+     * @param _value
+     * @return
+     */
+    private ValueWrapper unwrap(ValueWrapper _value) {
+        if(_value != null && _value.get() instanceof CachedValue) {
+            return (CachedValue) _value.get();
+        }
+        return _value;
+    }
+
+    /**
+     * Returns True if the Value is older than the TTL
+     * @param _value
+     * @param _now
+     * @return
+     */
+    private boolean isExpired(ValueWrapper _value, long _now) {
+        return (_value instanceof CachedValue) && ((CachedValue) _value).age(_now) >= expireAfter;
+    }
+
+    /**
+     * Evict the Key from the Local (L1) Cache ONLY (and abandon its In Flight Load)
+     * @param _localKey
+     */
+    public void evictLocal(String _localKey) {
+        abandonLoad(_localKey);
+        invalidateLocal(_localKey);
+    }
+
+    /**
+     * Remove the Key from the Local (L1) Cache
+     * @param _localKey
+     */
+    private void invalidateLocal(String _localKey) {
+        if(local != null) {
+            local.invalidate(_localKey);
+        }
+    }
+
+    /**
+     * Clear the Local (L1) Cache ONLY (and abandon the In Flight Loads)
+     */
+    public void clearLocal() {
+        inFlightLoads.clear();
+        if(local != null) {
+            local.invalidateAll();
+        }
+    }
+
+    /**
+     * Returns the No. of Entries in the Local (L1) Cache
+     * @return
+     */
+    public long localSize() {
+        return (local != null) ? local.size() : 0;
+    }
+
+    /**
+     * Returns the No. of Hits (L1 + L2)
+     * @return
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the No. of Reads served from the Local (L1) Cache
+     * @return
+     */
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    /**
+     * Returns the No. of Misses
+     * @return
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the No. of Puts
+     * @return
+     */
+    public long getPuts() {
+        return puts.sum();
+    }
+
+    /**
+     * Returns the No. of Evictions
+     * @return
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the No. of Remote (L2) Failures on the Read Path (Served from L1 / the Loader)
+     * @return
+     */
+    public long getRemoteErrors() {
+        return remoteErrors.sum();
+    }
+
+    /**
+     * Returns the Total Load Time in Nano Seconds
+     * @return
+     */
+    public long getLoadTime() {
+        return loadTime.sum();
+    }
+
+    /**
+     * Returns the No. of Loads (Cache Loader Calls) on a Miss
+     * @return
+     */
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * Returns the No. of Loads avoided by waiting for an In Flight Load of the same Key
+     * @return
+     */
+    public long getCoalescedLoads() {
+        return coalescedLoads.sum();
+    }
+
+    /**
+     * Returns the No. of Failed Loads
+     * @return
+     */
+    public long getLoadFailures() {
+        return loadFailures.sum();
+    }
+
+    /**
+     * Returns the No. of Background Reloads (Refresh Ahead)
+     * @return
+     */
+    public long getRefreshes() {
+        return refreshes.sum();
+    }
+
+    /**
+     * Returns the No. of Expired (Stale) Values served while Revalidating
+     * @return
+     */
+    public long getStaleHits() {
+        return staleHits.sum();
+    }
+
+    /**
+     * Returns the No. of Loads In Flight
+     * @return
+     */
+    public int getInFlightLoads() {
+        return inFlightLoads.size();
+    }
+
+    /**
+     * Key used in the Local (L1) Cache. Same as the String representation used for the Redis Key.
+     * @param key
+     * @return
+     */
+    public static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    /**
+     * Get the Value from the Local (L1) Cache
+     * @param _localKey
+     * @return
+     */
+    private ValueWrapper getLocal(String _localKey) {
+        return (local != null) ? local.getIfPresent(_localKey) : null;
+    }
+
+    /**
+     * Put the Value in the Local (L1) Cache. Null Values are NOT cached.
+     * @param _localKey
+     * @param _value
+     */
+    private void putLocal(String _localKey, ValueWrapper _value) {
+        if(local != null && _value != null && _value.get() != null) {
+            local.put(_localKey, _value);
+        }
+    }
+}
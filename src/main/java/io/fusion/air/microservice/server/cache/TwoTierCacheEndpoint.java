@@ -0,0 +1,106 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Actuator Endpoint (/actuator/cachestats) with the Statistics Summary of every Two Tier Cache
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@Endpoint(id = "cachestats")
+public class TwoTierCacheEndpoint {
+
+    private final TwoTierCacheManager cacheManager;
+
+    /**
+     * Create Cache Stats Endpoint
+     * @param _cacheManager
+     */
+    public TwoTierCacheEndpoint(TwoTierCacheManager _cacheManager) {
+        this.cacheManager = _cacheManager;
+    }
+
+    /**
+     * Returns the Statistics of all the Caches
+     * @return
+     */
+    @ReadOperation
+    public Map<String, Map<String, Object>> caches() {
+        Map<String, Map<String, Object>> caches = new LinkedHashMap<String, Map<String, Object>>();
+        for(String name : new TreeSet<String>(cacheManager.getCacheNames())) {
+            Map<String, Object> stats = cache(name);
+            if(stats != null) {
+                caches.put(name, stats);
+            }
+        }
+        return caches;
+    }
+
+    /**
+     * Returns the Statistics of the Cache
+     * @param name
+     * @return
+     */
+    @ReadOperation
+    public Map<String, Object> cache(@Selector String name) {
+        TwoTierCache cache = cacheManager.getTwoTierCache(name);
+        if(cache == null) {
+            return null;
+        }
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+        long loads = cache.getLoads() + cache.getRefreshes() + cache.getLoadFailures();
+        Map<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("spec", cache.getSpec().toString());
+        stats.put("hits", hits);
+        stats.put("localHits", cache.getLocalHits());
+        stats.put("misses", misses);
+        stats.put("hitRatio", ratio(hits, hits + misses));
+        stats.put("localHitRatio", ratio(cache.getLocalHits(), hits + misses));
+        stats.put("puts", cache.getPuts());
+        stats.put("evictions", cache.getEvictions());
+        stats.put("loads", cache.getLoads());
+        stats.put("coalescedLoads", cache.getCoalescedLoads());
+        stats.put("loadFailures", cache.getLoadFailures());
+        stats.put("refreshes", cache.getRefreshes());
+        stats.put("staleHits", cache.getStaleHits());
+        stats.put("inFlightLoads", cache.getInFlightLoads());
+        stats.put("remoteErrors", cache.getRemoteErrors());
+        stats.put("averageLoadMillis", ratio(cache.getLoadTime(), loads * 1_000_000L));
+        stats.put("localSize", cache.localSize());
+        return stats;
+    }
+
+    /**
+     * Returns the Ratio (0 if the Total is 0)
+     * @param _value
+     * @param _total
+     * @return
+     */
+    private double ratio(long _value, long _total) {
+        return (_total > 0) ? (double) _value / _total : 0;
+    }
+}
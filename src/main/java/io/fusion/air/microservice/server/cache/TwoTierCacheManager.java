@@ -0,0 +1,187 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import org.slf4j.Logger;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Two Tier Cache Manager
+ *
+ * Creates a TwoTierCache (L1 In Heap + L2 Remote) for every Cache in the Remote Cache Manager.
+ * Transaction Awareness is handled here (for both the Tiers) and NOT in the Remote Cache Manager.
+ *
+ * Cache Updates / Evictions are forwarded to the Invalidation Listener (if registered) to
+ * invalidate the Local (L1) Caches in the other Nodes.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class TwoTierCacheManager extends AbstractTransactionSupportingCacheManager
+        implements CacheInvalidationListener {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private final CacheManager remoteCacheManager;
+    private final Map<String, CacheSpec> cacheSpecs;
+    private final CacheSpec defaultSpec;
+    private final Executor refreshExecutor;
+    private final RedisBulkOperations bulkOperations;
+
+    private volatile CacheInvalidationListener invalidationListener;
+
+    /**
+     * Create Two Tier Cache Manager
+     * @param _remoteCacheManager
+     * @param _cacheSpecs
+     * @param _defaultSpec
+     * @param _refreshExecutor Executor for the Refresh Ahead Reloads
+     * @param _bulkOperations Bulk Operations (Multi Get / Put) on the Remote Caches
+     */
+    public TwoTierCacheManager(CacheManager _remoteCacheManager, Map<String, CacheSpec> _cacheSpecs,
+                               CacheSpec _defaultSpec, Executor _refreshExecutor,
+                               RedisBulkOperations _bulkOperations) {
+        this.remoteCacheManager = _remoteCacheManager;
+        this.cacheSpecs         = _cacheSpecs;
+        this.defaultSpec        = _defaultSpec;
+        this.refreshExecutor    = _refreshExecutor;
+        this.bulkOperations     = _bulkOperations;
+    }
+
+    /**
+     * Load the Caches defined in the Remote Cache Manager
+     * @return
+     */
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        List<Cache> caches = new ArrayList<Cache>();
+        for(String name : remoteCacheManager.getCacheNames()) {
+            caches.add(createCache(name));
+        }
+        return caches;
+    }
+
+    /**
+     * Create the Cache on Demand
+     * @param name
+     * @return
+     */
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    /**
+     * Returns the Two Tier Cache (without the Transaction Aware Decorator)
+     * @param _name
+     * @return
+     */
+    public TwoTierCache getTwoTierCache(String _name) {
+        Cache cache = getCache(_name);
+        if(cache instanceof TransactionAwareCacheDecorator) {
+            cache = ((TransactionAwareCacheDecorator) cache).getTargetCache();
+        }
+        return (cache instanceof TwoTierCache) ? (TwoTierCache) cache : null;
+    }
+
+    /**
+     * Set the Invalidation Listener (Ex. Cross Node Invalidation Bus)
+     * @param _listener
+     */
+    public void setInvalidationListener(CacheInvalidationListener _listener) {
+        this.invalidationListener = _listener;
+    }
+
+    /**
+     * Cache Entry Updated or Evicted on this Node
+     * @param _cacheName
+     * @param _key
+     */
+    @Override
+    public void invalidated(String _cacheName, String _key) {
+        CacheInvalidationListener listener = invalidationListener;
+        if(listener != null) {
+            listener.invalidated(_cacheName, _key);
+        }
+    }
+
+    /**
+     * Cache Cleared on this Node
+     * @param _cacheName
+     */
+    @Override
+    public void cleared(String _cacheName) {
+        CacheInvalidationListener listener = invalidationListener;
+        if(listener != null) {
+            listener.cleared(_cacheName);
+        }
+    }
+
+    /**
+     * Evict the Keys from the Local (L1) Cache ONLY
+     * @param _cacheName
+     * @param _keys
+     */
+    public void evictLocal(String _cacheName, Collection<String> _keys) {
+        TwoTierCache cache = getTwoTierCache(_cacheName);
+        if(cache != null) {
+            for(String key : _keys) {
+                cache.evictLocal(key);
+            }
+        }
+    }
+
+    /**
+     * Clear the Local (L1) Cache ONLY
+     * @param _cacheName
+     */
+    public void clearLocal(String _cacheName) {
+        TwoTierCache cache = getTwoTierCache(_cacheName);
+        if(cache != null) {
+            cache.clearLocal();
+        }
+    }
+
+    /**
+     * Create Two Tier Cache
+     * @param _name
+     * @return
+     */
+    private TwoTierCache createCache(String _name) {
+        Cache remote = remoteCacheManager.getCache(_name);
+        CacheSpec spec = cacheSpecs.get(_name);
+        if(spec == null) {
+            spec = new CacheSpec(_name, defaultSpec.getTtl())
+                    .local(defaultSpec.getLocalMaxEntries(), defaultSpec.getLocalTtl());
+        }
+        log.info("Two Tier Cache Created = {}", spec);
+        return new TwoTierCache(spec, remote, this, refreshExecutor, bulkOperations);
+    }
+}
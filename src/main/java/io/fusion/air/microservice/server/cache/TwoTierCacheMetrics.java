@@ -0,0 +1,130 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer Metrics for the Two Tier Cache
+ *
+ * Standard Cache Metrics (cache.gets, cache.puts, cache.evictions, cache.size = L1 Entries) and
+ * 1. cache.local.gets          Reads served from the Local (L1) Cache
+ * 2. cache.loads               Loads on a Miss (result = success | coalesced | failure)
+ * 3. cache.refreshes           Background Reloads (Refresh Ahead)
+ * 4. cache.stale.gets          Expired Values served while Revalidating
+ * 5. cache.loads.inflight      Loads In Flight
+ * 6. cache.load.duration       Load Time (Histogram)
+ *
+ * Counters are read from the Cache's LongAdders when the Metrics are published.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class TwoTierCacheMetrics extends CacheMeterBinder<TwoTierCache> {
+
+    /**
+     * Create Two Tier Cache Metrics
+     * @param _cache
+     * @param _tags
+     */
+    public TwoTierCacheMetrics(TwoTierCache _cache, Iterable<Tag> _tags) {
+        super(_cache, _cache.getName(), _tags);
+    }
+
+    @Override
+    protected Long size() {
+        TwoTierCache cache = getCache();
+        return (cache != null) ? cache.localSize() : null;
+    }
+
+    @Override
+    protected long hitCount() {
+        TwoTierCache cache = getCache();
+        return (cache != null) ? cache.getHits() : 0;
+    }
+
+    @Override
+    protected Long missCount() {
+        TwoTierCache cache = getCache();
+        return (cache != null) ? cache.getMisses() : null;
+    }
+
+    @Override
+    protected Long evictionCount() {
+        TwoTierCache cache = getCache();
+        return (cache != null) ? cache.getEvictions() : null;
+    }
+
+    @Override
+    protected long putCount() {
+        TwoTierCache cache = getCache();
+        return (cache != null) ? cache.getPuts() : 0;
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry _registry) {
+        TwoTierCache cache = getCache();
+        if(cache == null) {
+            return;
+        }
+        FunctionCounter.builder("cache.local.gets", cache, TwoTierCache::getLocalHits)
+                .tags(getTagsWithCacheName())
+                .description("The number of times cache lookup methods were served from the local (L1) cache")
+                .register(_registry);
+        FunctionCounter.builder("cache.loads", cache, TwoTierCache::getLoads)
+                .tags(getTagsWithCacheName()).tag("result", "success")
+                .description("The number of loads on a cache miss")
+                .register(_registry);
+        FunctionCounter.builder("cache.loads", cache, TwoTierCache::getCoalescedLoads)
+                .tags(getTagsWithCacheName()).tag("result", "coalesced")
+                .description("The number of loads avoided by waiting for an in flight load of the same key")
+                .register(_registry);
+        FunctionCounter.builder("cache.loads", cache, TwoTierCache::getLoadFailures)
+                .tags(getTagsWithCacheName()).tag("result", "failure")
+                .description("The number of failed loads")
+                .register(_registry);
+        FunctionCounter.builder("cache.refreshes", cache, TwoTierCache::getRefreshes)
+                .tags(getTagsWithCacheName())
+                .description("The number of background reloads (refresh ahead)")
+                .register(_registry);
+        FunctionCounter.builder("cache.stale.gets", cache, TwoTierCache::getStaleHits)
+                .tags(getTagsWithCacheName())
+                .description("The number of expired values served while revalidating")
+                .register(_registry);
+        FunctionCounter.builder("cache.remote.errors", cache, TwoTierCache::getRemoteErrors)
+                .tags(getTagsWithCacheName())
+                .description("The number of remote (L2) failures served from the local cache or the loader")
+                .register(_registry);
+        Gauge.builder("cache.loads.inflight", cache, TwoTierCache::getInFlightLoads)
+                .tags(getTagsWithCacheName())
+                .description("The number of loads in flight")
+                .register(_registry);
+        Timer loadTimer = Timer.builder("cache.load.duration")
+                .tags(getTagsWithCacheName())
+                .description("The time taken to load a value on a cache miss")
+                .publishPercentileHistogram()
+                .register(_registry);
+        cache.setLoadRecorder(nanos -> loadTimer.record(nanos, TimeUnit.NANOSECONDS));
+    }
+}
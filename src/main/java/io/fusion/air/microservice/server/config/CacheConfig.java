@@ -15,15 +15,43 @@
  */
 package io.fusion.air.microservice.server.config;
 
-import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import io.fusion.air.microservice.adapters.cache.ProductEntityCodec;
+import io.fusion.air.microservice.domain.entities.example.ProductEntity;
+import io.fusion.air.microservice.server.cache.CacheSpec;
+import io.fusion.air.microservice.server.cache.CompactBinaryRedisSerializer;
+import io.fusion.air.microservice.server.cache.RedisBulkOperations;
+import io.fusion.air.microservice.server.cache.TwoTierCacheEndpoint;
+import io.fusion.air.microservice.server.cache.TwoTierCacheManager;
+import io.fusion.air.microservice.server.cache.TwoTierCacheMeterBinderProvider;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
+import org.springframework.cache.support.NullValue;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import static org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Redis Cache Configuration for Product Microservice
@@ -32,23 +60,268 @@ import java.time.Duration;
  * @date:
  */
 @Configuration
-public class CacheConfig {
+public class CacheConfig implements CachingConfigurer {
 
+    // Cache Names
+    public static final String PRODUCT_CACHE = "productCache";
+    public static final String REVIEW_CACHE  = "reviewCache";
+    // Negative Cache (Tombstones) for the Products NOT Found
+    public static final String PRODUCT_NOT_FOUND_CACHE = "productNotFoundCache";
+    // Query Result Cache (Product IDs) keyed by the Catalog Version
+    public static final String PRODUCT_QUERY_CACHE = "productQueryCache";
+
+    // Cache Value Serializer (binary | json)
+    public static final String SERIALIZER_BINARY = "binary";
+    @Value("${cache.serializer:binary}")
+    private String serializer;
+
+    // Binary Serializer Type IDs. Stored in Redis - DO NOT change once assigned.
+    public static final int TYPE_PRODUCT_ENTITY = 16;
+
+    // Cache TTLs in Seconds
+    @Value("${cache.default.ttl:3600}")
+    private long defaultTtl;
+    @Value("${cache.default.local.max-entries:1000}")
+    private long defaultLocalMaxEntries;
+    @Value("${cache.default.local.ttl:30}")
+    private long defaultLocalTtl;
+
+    @Value("${cache.product.ttl:600}")
+    private long productTtl;
+    @Value("${cache.product.local.max-entries:10000}")
+    private long productLocalMaxEntries;
+    @Value("${cache.product.local.ttl:30}")
+    private long productLocalTtl;
+    @Value("${cache.product.refresh-ahead:0.8}")
+    private double productRefreshAhead;
+    @Value("${cache.product.stale-while-revalidate:60}")
+    private long productStaleWindow;
+
+    @Value("${cache.product-not-found.ttl:30}")
+    private long productNotFoundTtl;
+    @Value("${cache.product-not-found.local.max-entries:10000}")
+    private long productNotFoundLocalMaxEntries;
+    @Value("${cache.product-not-found.local.ttl:10}")
+    private long productNotFoundLocalTtl;
+
+    @Value("${cache.product-query.ttl:300}")
+    private long productQueryTtl;
+    @Value("${cache.product-query.local.max-entries:1000}")
+    private long productQueryLocalMaxEntries;
+    @Value("${cache.product-query.local.ttl:30}")
+    private long productQueryLocalTtl;
+
+    @Value("${cache.review.ttl:300}")
+    private long reviewTtl;
+    @Value("${cache.review.local.max-entries:5000}")
+    private long reviewLocalMaxEntries;
+    @Value("${cache.review.local.ttl:15}")
+    private long reviewLocalTtl;
+
+    // Refresh Ahead Executor (Bounded)
+    @Value("${cache.refresh.threads:4}")
+    private int refreshThreads;
+    @Value("${cache.refresh.queue:1000}")
+    private int refreshQueue;
+    private ThreadPoolTaskExecutor refreshExecutor;
+
+    /**
+     * Two Tier Cache Manager
+     * L1 = In Heap Cache (Per Node), L2 = Redis Cache
+     *
+     * Cache updates (Put / Evict) are deferred till the Transaction Commits.
+     * This ensures that a Rolled back Transaction never leaves data in the Cache.
+     * @param connectionFactory
+     * @return
+     */
+    @Bean
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+        Map<String, CacheSpec> cacheSpecs = cacheSpecs();
+        Map<String, RedisCacheConfiguration> redisConfigs = new HashMap<String, RedisCacheConfiguration>();
+        for(CacheSpec spec : cacheSpecs.values()) {
+            redisConfigs.put(spec.getName(), cacheConfiguration().entryTtl(spec.getRemoteTtl()));
+        }
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(cacheConfiguration())
+                .withInitialCacheConfigurations(redisConfigs)
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        CacheSpec defaultSpec = new CacheSpec("default", Duration.ofSeconds(defaultTtl))
+                .local(defaultLocalMaxEntries, Duration.ofSeconds(defaultLocalTtl));
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(redisCacheManager, cacheSpecs, defaultSpec,
+                cacheRefreshExecutor(), new RedisBulkOperations(connectionFactory));
+        cacheManager.setTransactionAware(true);
+        return cacheManager;
+    }
+
+    /**
+     * Micrometer Metrics (Hits, Misses, Puts, Evictions, Load Time...) for the Two Tier Caches.
+     * Bound by Spring Boot (Cache Metrics) to all the Caches in the Cache Manager.
+     * @return
+     */
+    @Bean
+    public TwoTierCacheMeterBinderProvider twoTierCacheMeterBinderProvider() {
+        return new TwoTierCacheMeterBinderProvider();
+    }
+
+    /**
+     * Actuator Endpoint (/actuator/cachestats) with the Statistics Summary of the Caches
+     * @param cacheManager
+     * @return
+     */
     @Bean
-    public RedisCacheManagerBuilderCustomizer redisCacheManagerBuilderCustomizer() {
-        return (builder) -> builder
-                .withCacheConfiguration("productCache",
-                        RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(10)))
-                .withCacheConfiguration("reviewCache",
-                        RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(5)));
+    public TwoTierCacheEndpoint twoTierCacheEndpoint(TwoTierCacheManager cacheManager) {
+        return new TwoTierCacheEndpoint(cacheManager);
+    }
+
+    /**
+     * Bounded Executor for the Refresh Ahead Reloads.
+     * Reloads are skipped (the cached Value is served) when the Queue is Full.
+     * NOT exposed as a Bean, so that it doesn't replace the Application Task Executor.
+     * @return
+     */
+    private synchronized Executor cacheRefreshExecutor() {
+        if(refreshExecutor == null) {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(refreshThreads);
+            executor.setMaxPoolSize(refreshThreads);
+            executor.setQueueCapacity(refreshQueue);
+            executor.setThreadNamePrefix("cache-refresh-");
+            executor.setWaitForTasksToCompleteOnShutdown(false);
+            executor.initialize();
+            refreshExecutor = executor;
+        }
+        return refreshExecutor;
+    }
+
+    /**
+     * Shutdown the Refresh Ahead Executor
+     */
+    @PreDestroy
+    public void shutdown() {
+        if(refreshExecutor != null) {
+            refreshExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Cache Specifications (Remote TTL, Local Max Entries, Local TTL and Refresh Ahead) for Each Cache
+     * @return
+     */
+    private Map<String, CacheSpec> cacheSpecs() {
+        Map<String, CacheSpec> specs = new LinkedHashMap<String, CacheSpec>();
+        specs.put(PRODUCT_CACHE, new CacheSpec(PRODUCT_CACHE, Duration.ofSeconds(productTtl))
+                .local(productLocalMaxEntries, Duration.ofSeconds(productLocalTtl))
+                .refreshAhead(productRefreshAhead, Duration.ofSeconds(productStaleWindow)));
+        specs.put(PRODUCT_NOT_FOUND_CACHE, new CacheSpec(PRODUCT_NOT_FOUND_CACHE, Duration.ofSeconds(productNotFoundTtl))
+                .local(productNotFoundLocalMaxEntries, Duration.ofSeconds(productNotFoundLocalTtl)));
+        specs.put(PRODUCT_QUERY_CACHE, new CacheSpec(PRODUCT_QUERY_CACHE, Duration.ofSeconds(productQueryTtl))
+                .local(productQueryLocalMaxEntries, Duration.ofSeconds(productQueryLocalTtl)));
+        specs.put(REVIEW_CACHE, new CacheSpec(REVIEW_CACHE, Duration.ofSeconds(reviewTtl))
+                .local(reviewLocalMaxEntries, Duration.ofSeconds(reviewLocalTtl)));
+        return specs;
     }
 
     @Bean
     public RedisCacheConfiguration cacheConfiguration() {
         return RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(60))
+                .entryTtl(Duration.ofSeconds(defaultTtl))
                 .disableCachingNullValues()
-                .serializeValuesWith(SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
+                .serializeValuesWith(SerializationPair.fromSerializer(cacheValueSerializer()));
+    }
+
+    /**
+     * Cache Value Serializer
+     * binary = Compact Binary Serializer for the Registered Types (JSON for the rest)
+     * json   = JSON Serializer
+     * @return
+     */
+    private RedisSerializer<Object> cacheValueSerializer() {
+        GenericJackson2JsonRedisSerializer json = jsonValueSerializer();
+        if(!SERIALIZER_BINARY.equalsIgnoreCase(serializer)) {
+            return json;
+        }
+        return binaryValueSerializer(json);
+    }
+
+    /**
+     * Compact Binary Serializer with the Registered Types (Falls back to the JSON Serializer)
+     * @param _json
+     * @return
+     */
+    public static CompactBinaryRedisSerializer binaryValueSerializer(RedisSerializer<Object> _json) {
+        return new CompactBinaryRedisSerializer(_json)
+                .register(TYPE_PRODUCT_ENTITY, ProductEntity.class, new ProductEntityCodec());
+    }
+
+    /**
+     * Cache is an Optimization. If Redis is down then the Service falls back to the Database
+     * instead of failing the Request.
+     * @return
+     */
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new LoggingCacheErrorHandler();
+    }
+
+    /**
+     * JSON Serializer for the Cached Values.
+     * Entities are serialized using the Fields (instead of Getters / Setters) as the Entities
+     * doesn't expose Setters for the UUID, Version, Active Flag and the Audit Log.
+     * Type Info in the Cached JSON is restricted to the Service Types and the JDK Value Types
+     * (a Value written into Redis can NOT instantiate any other Class).
+     * @return
+     */
+    public static GenericJackson2JsonRedisSerializer jsonValueSerializer() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.activateDefaultTyping(cacheTypeValidator(),
+                ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        GenericJackson2JsonRedisSerializer.registerNullValueSerializer(mapper, null);
+        return new GenericJackson2JsonRedisSerializer(mapper);
+    }
+
+    /**
+     * Types allowed in the Cached JSON = Service Types, JDK Value Types & Collections, and the
+     * Cache Null Value
+     * @return
+     */
+    private static PolymorphicTypeValidator cacheTypeValidator() {
+        return BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("io.fusion.air.microservice.")
+                .allowIfSubType(String.class)
+                .allowIfSubType(Boolean.class)
+                .allowIfSubType(Character.class)
+                .allowIfSubType(Byte.class)
+                .allowIfSubType(Short.class)
+                .allowIfSubType(Integer.class)
+                .allowIfSubType(Long.class)
+                .allowIfSubType(Float.class)
+                .allowIfSubType(Double.class)
+                .allowIfSubType(java.math.BigDecimal.class)
+                .allowIfSubType(java.math.BigInteger.class)
+                .allowIfSubType("java.time.")
+                .allowIfSubType(java.sql.Timestamp.class)
+                .allowIfSubType(java.sql.Date.class)
+                .allowIfSubType(java.util.UUID.class)
+                .allowIfSubType(java.util.Date.class)
+                .allowIfSubType(java.util.ArrayList.class)
+                .allowIfSubType(java.util.LinkedList.class)
+                .allowIfSubType(java.util.HashMap.class)
+                .allowIfSubType(java.util.LinkedHashMap.class)
+                .allowIfSubType(java.util.TreeMap.class)
+                .allowIfSubType(java.util.HashSet.class)
+                .allowIfSubType(java.util.LinkedHashSet.class)
+                .allowIfSubType(java.util.TreeSet.class)
+                .allowIfSubType("java.util.Collections$")
+                .allowIfSubType("java.util.ImmutableCollections$")
+                .allowIfSubType("java.util.Arrays$ArrayList")
+                .allowIfSubType(NullValue.class)
+                .allowIfSubTypeIsArray()
+                .build();
     }
 
 }
@@ -15,23 +15,32 @@
  */
 package io.fusion.air.microservice.server.config;
 
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
+import io.fusion.air.microservice.server.db.DataSourcePoolFactory;
+import io.fusion.air.microservice.server.db.ReadWriteRoutingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * @author: Araf Karsh Hamid
@@ -44,38 +53,81 @@ import javax.sql.DataSource;
 @EnableTransactionManagement
 public class JpaConfig {
 
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
     @Autowired
     private ServiceConfiguration serviceConfig;
 
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private ReadWriteRoutingDataSource routingDataSource;
+
     /**
-     * Create the DataSource for H2 Database
+     * Create the DataSource - Read Only Transactions are routed to the Replica (if Enabled)
+     * and everything else to the Primary. The Lazy Connection Proxy fetches the Connection on
+     * the First Statement, after the Read Only Flag is set on the Transaction.
+     * Primary & Replica are Pooled (Hikari) with the Pool Metrics in Micrometer.
      * @return
      */
     @Bean
     public DataSource dataSource() {
-        switch(serviceConfig.getDataSourceVendor()) {
-            case ServiceConfiguration.DB_H2:
-                // For H2 Database
-                EmbeddedDatabaseBuilder builder = new EmbeddedDatabaseBuilder();
-                return builder.setType(EmbeddedDatabaseType.H2).build();
-            case ServiceConfiguration.DB_POSTGRESQL:
-                // For PostgreSQL Database
-                HikariConfig config = new HikariConfig();
-
-                config.setDataSourceClassName(serviceConfig.getDataSourceDriverClassName());
-                config.addDataSourceProperty("serverName", serviceConfig.getDataSourceServer());
-                config.addDataSourceProperty("portNumber", ""+serviceConfig.getDataSourcePort());
-                config.addDataSourceProperty("databaseName", serviceConfig.getDataSourceName());
-                config.addDataSourceProperty("user", serviceConfig.getDataSourceUserName());
-                config.addDataSourceProperty("password", serviceConfig.getDataSourcePassword());
-                config.setSchema(serviceConfig.getDataSourceSchema());
-
-                // postgress configuration for Hikari
-                return new HikariDataSource(config);
+        DataSourcePoolFactory poolFactory = new DataSourcePoolFactory(serviceConfig, meterRegistry.getIfAvailable());
+        DataSource replica = null;
+        if(serviceConfig.isDataSourceReplicaEnabled()) {
+            replica = replicaDataSource(poolFactory);
+            log.info("Read Replica Enabled for the Read Only Transactions");
+        }
+        routingDataSource = new ReadWriteRoutingDataSource(
+                primaryDataSource(poolFactory), replica, serviceConfig.getDataSourceReplicaRetryInterval());
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    /**
+     * Close the Connection Pools on Shutdown
+     */
+    @PreDestroy
+    public void closeDataSource() {
+        if(routingDataSource != null) {
+            routingDataSource.close();
+        }
+    }
+
+    /**
+     * Create the Primary DataSource (H2 / PostgreSQL)
+     * @param _poolFactory
+     * @return
+     */
+    private DataSource primaryDataSource(DataSourcePoolFactory _poolFactory) {
+        if(ServiceConfiguration.DB_POSTGRESQL.equals(serviceConfig.getDataSourceVendor())) {
+            return _poolFactory.createPostgreSQL(ReadWriteRoutingDataSource.PRIMARY,
+                    serviceConfig.getDataSourceServer(), serviceConfig.getDataSourcePort(), false);
         }
         // Returns H2 Database if Nothing Matches
-        EmbeddedDatabaseBuilder builder = new EmbeddedDatabaseBuilder();
-        return builder.setType(EmbeddedDatabaseType.H2).build();
+        return _poolFactory.createH2(ReadWriteRoutingDataSource.PRIMARY, serviceConfig.getDataSourceURL(), false);
+    }
+
+    /**
+     * Create the Read Replica DataSource (H2 = Replica URL, PostgreSQL = Replica Server & Port)
+     * @param _poolFactory
+     * @return
+     */
+    private DataSource replicaDataSource(DataSourcePoolFactory _poolFactory) {
+        if(ServiceConfiguration.DB_POSTGRESQL.equals(serviceConfig.getDataSourceVendor())) {
+            return _poolFactory.createPostgreSQL(ReadWriteRoutingDataSource.REPLICA,
+                    serviceConfig.getDataSourceReplicaServer(), serviceConfig.getDataSourceReplicaPort(), true);
+        }
+        return _poolFactory.createH2(ReadWriteRoutingDataSource.REPLICA, serviceConfig.getDataSourceReplicaURL(), true);
+    }
+
+    /**
+     * JDBC Template (Batched Writes) on the same DataSource, joins the JPA Transactions
+     * @return
+     */
+    @Bean
+    public JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(dataSource());
     }
 
     /**
@@ -93,6 +145,7 @@ public class JpaConfig {
         factory.setJpaVendorAdapter(vendorAdapter);
         String[] pkgs = {"io.fusion.air.microservice.domain.*"};
         factory.setPackagesToScan(pkgs);
+        factory.setJpaPropertyMap(jpaProperties());
         // Set Database Source
         factory.setDataSource(dataSource());
         factory.afterPropertiesSet();
@@ -100,6 +153,21 @@ public class JpaConfig {
         return factory.getObject();
     }
 
+    /**
+     * Hibernate Properties
+     * JDBC Batching for Inserts and Updates (including the Versioned Entities). Statements are
+     * ordered by Entity so that the Batches are NOT broken by interleaved Inserts / Updates.
+     * @return
+     */
+    private Map<String, Object> jpaProperties() {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("hibernate.jdbc.batch_size", serviceConfig.getDataSourceBatchSize());
+        properties.put("hibernate.order_inserts", true);
+        properties.put("hibernate.order_updates", true);
+        properties.put("hibernate.jdbc.batch_versioned_data", true);
+        return properties;
+    }
+
     /**
      * Create PlatformTransactionManager
      * @return
@@ -0,0 +1,142 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+/**
+ * Kafka Configuration
+ * Producer / Consumer Factories and the Kafka Template are created by Spring Boot (spring.kafka.*)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@Configuration
+public class KafkaConfig {
+
+    @Value("${cache.invalidation.topic:ms-cache.invalidation}")
+    private String cacheInvalidationTopic;
+
+    @Value("${cache.invalidation.topic.partitions:3}")
+    private int cacheInvalidationPartitions;
+
+    @Value("${service.product.outbox.topic:ms-cache.product-events}")
+    private String productEventsTopic;
+
+    @Value("${service.product.outbox.topic.partitions:3}")
+    private int productEventsPartitions;
+
+    @Value("${service.product.ingest.topic:ms-cache.product-feed}")
+    private String productFeedTopic;
+
+    @Value("${service.product.ingest.topic.partitions:3}")
+    private int productFeedPartitions;
+
+    @Value("${service.product.ingest.retry.interval:1000}")
+    private long productFeedRetryInterval;
+
+    @Value("${service.product.ingest.retry.attempts:9}")
+    private long productFeedRetryAttempts;
+
+    /**
+     * Cache Invalidation Topic (Created by Kafka Admin if it doesn't exist)
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(name = "cache.invalidation.enabled", havingValue = "true")
+    public NewTopic cacheInvalidationTopic() {
+        return TopicBuilder.name(cacheInvalidationTopic)
+                .partitions(cacheInvalidationPartitions)
+                .replicas(1)
+                .build();
+    }
+
+    /**
+     * Product Events Topic (Product Outbox Relay)
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(name = "service.product.outbox.enabled", havingValue = "true")
+    public NewTopic productEventsTopic() {
+        return TopicBuilder.name(productEventsTopic)
+                .partitions(productEventsPartitions)
+                .replicas(1)
+                .build();
+    }
+
+    /**
+     * Product Feed Topic (Product Feed Listener)
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(name = "service.product.ingest.enabled", havingValue = "true")
+    public NewTopic productFeedTopic() {
+        return TopicBuilder.name(productFeedTopic)
+                .partitions(productFeedPartitions)
+                .replicas(1)
+                .build();
+    }
+
+    /**
+     * Product Feed Dead Letter Topic (Records failed after the Retries, Same Partitions as the Feed)
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(name = "service.product.ingest.enabled", havingValue = "true")
+    public NewTopic productFeedDeadLetterTopic() {
+        return TopicBuilder.name(productFeedTopic + ".DLT")
+                .partitions(productFeedPartitions)
+                .replicas(1)
+                .build();
+    }
+
+    /**
+     * Product Feed Listener Container Factory - Batch Listener with the Manual Ack (Offsets are
+     * Committed after the DB Commit)
+     * The Listener reports the Failed Record (BatchListenerFailedException), the Error Handler
+     * Commits the Records before it, Retries from the Failed Record (Fixed Back Off) and then
+     * Publishes the Failed Record to the Dead Letter Topic (Feed Topic + .DLT).
+     * @param _consumerFactory
+     * @param _kafkaTemplate
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(name = "service.product.ingest.enabled", havingValue = "true")
+    public ConcurrentKafkaListenerContainerFactory<String, String> productFeedContainerFactory(
+            ConsumerFactory<String, String> _consumerFactory, KafkaTemplate<String, String> _kafkaTemplate) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<String, String>();
+        factory.setConsumerFactory(_consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new DeadLetterPublishingRecoverer(_kafkaTemplate),
+                new FixedBackOff(productFeedRetryInterval, productFeedRetryAttempts)));
+        return factory;
+    }
+}
@@ -244,7 +244,7 @@ public class ServiceConfiguration implements Serializable {
 	@Value("${db.vendor:H2}")
 	private String dataSourceVendor;
 
-	@Value("${spring.datasource.url:jdbc:h2:mem:demo;DB_CLOSE_ON_EXIT=FALSE}")
+	@Value("${spring.datasource.url:jdbc:h2:mem:demo;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE}")
 	private String dataSourceURL;
 
 	@Value("${spring.datasource.driverClassName:org.h2.Driver}")
@@ -259,6 +259,55 @@ public class ServiceConfiguration implements Serializable {
 	@Value("${spring.jpa.database-platform:org.hibernate.dialect.H2Dialect}")
 	private String dataSourceDialect;
 
+	// JDBC Batch Size (Inserts / Updates)
+	@Value("${db.batch.size:50}")
+	private int dataSourceBatchSize;
+
+	// Read Replica (Read Only Transactions). Retry Interval (Milli Seconds) after the Replica is Down
+	@Value("${db.replica.enabled:false}")
+	private boolean dataSourceReplicaEnabled;
+
+	@Value("${db.replica.server:${db.server:localhost}}")
+	private String dataSourceReplicaServer;
+
+	@Value("${db.replica.port:${db.port:5432}}")
+	private int dataSourceReplicaPort;
+
+	@Value("${db.replica.url:jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1}")
+	private String dataSourceReplicaURL;
+
+	@Value("${db.replica.retry.interval:30000}")
+	private long dataSourceReplicaRetryInterval;
+
+	// Connection Pool (Timeouts in Milli Seconds, Leak Detection 0 = Disabled)
+	@Value("${db.pool.max-size:10}")
+	private int dataSourcePoolMaxSize;
+
+	@Value("${db.pool.min-idle:10}")
+	private int dataSourcePoolMinIdle;
+
+	@Value("${db.pool.connection-timeout:30000}")
+	private long dataSourcePoolConnectionTimeout;
+
+	@Value("${db.pool.idle-timeout:600000}")
+	private long dataSourcePoolIdleTimeout;
+
+	@Value("${db.pool.max-lifetime:1800000}")
+	private long dataSourcePoolMaxLifetime;
+
+	@Value("${db.pool.leak-detection-threshold:0}")
+	private long dataSourcePoolLeakDetectionThreshold;
+
+	@Value("${db.pool.statement-cache.size:256}")
+	private int dataSourcePoolStatementCacheSize;
+
+	// Product Listing (Keyset Pagination) Default & Max Page Size
+	@Value("${service.product.page.size:20}")
+	private int productPageSize;
+
+	@Value("${service.product.page.max-size:100}")
+	private int productPageMaxSize;
+
 	// @Value("${logging.level}")
 	// private String loggingLevel;
 	
@@ -598,6 +647,111 @@ public class ServiceConfiguration implements Serializable {
 		return dataSourceDialect;
 	}
 
+	/**
+	 * Returns the JDBC Batch Size (Inserts / Updates)
+	 * @return
+	 */
+	public int getDataSourceBatchSize() {
+		return dataSourceBatchSize;
+	}
+
+	/**
+	 * Returns True if the Read Replica is Enabled
+	 * @return
+	 */
+	public boolean isDataSourceReplicaEnabled() {
+		return dataSourceReplicaEnabled;
+	}
+
+	/**
+	 * Read Replica Server
+	 * @return
+	 */
+	public String getDataSourceReplicaServer() {
+		return dataSourceReplicaServer;
+	}
+
+	/**
+	 * Read Replica Port
+	 * @return
+	 */
+	public int getDataSourceReplicaPort() {
+		return dataSourceReplicaPort;
+	}
+
+	/**
+	 * Read Replica JDBC URL (H2)
+	 * @return
+	 */
+	public String getDataSourceReplicaURL() {
+		return dataSourceReplicaURL;
+	}
+
+	/**
+	 * Milli Seconds before a Read Replica which is Down is tried again
+	 * @return
+	 */
+	public long getDataSourceReplicaRetryInterval() {
+		return dataSourceReplicaRetryInterval;
+	}
+
+	/**
+	 * Connection Pool - Max Size
+	 * @return
+	 */
+	public int getDataSourcePoolMaxSize() {
+		return dataSourcePoolMaxSize;
+	}
+
+	/**
+	 * Connection Pool - Min Idle Connections
+	 * @return
+	 */
+	public int getDataSourcePoolMinIdle() {
+		return dataSourcePoolMinIdle;
+	}
+
+	/**
+	 * Connection Pool - Max Milli Seconds to wait for a Connection
+	 * @return
+	 */
+	public long getDataSourcePoolConnectionTimeout() {
+		return dataSourcePoolConnectionTimeout;
+	}
+
+	/**
+	 * Connection Pool - Milli Seconds after which an Idle Connection is Retired
+	 * @return
+	 */
+	public long getDataSourcePoolIdleTimeout() {
+		return dataSourcePoolIdleTimeout;
+	}
+
+	/**
+	 * Connection Pool - Max Lifetime (Milli Seconds) of a Connection
+	 * @return
+	 */
+	public long getDataSourcePoolMaxLifetime() {
+		return dataSourcePoolMaxLifetime;
+	}
+
+	/**
+	 * Connection Pool - Milli Seconds a Connection can be out of the Pool before a Leak is
+	 * Logged (0 = Disabled)
+	 * @return
+	 */
+	public long getDataSourcePoolLeakDetectionThreshold() {
+		return dataSourcePoolLeakDetectionThreshold;
+	}
+
+	/**
+	 * Connection Pool - Prepared Statement Cache Size (per Connection)
+	 * @return
+	 */
+	public int getDataSourcePoolStatementCacheSize() {
+		return dataSourcePoolStatementCacheSize;
+	}
+
 	/**
 	 * DataSource Server
 	 * @return
@@ -718,4 +872,20 @@ public class ServiceConfiguration implements Serializable {
 	public String getServerResourceUrl() {
 		return serverResourceUrl;
 	}
+
+	/**
+	 * Returns the Default Page Size for the Product Listing
+	 * @return
+	 */
+	public int getProductPageSize() {
+		return productPageSize;
+	}
+
+	/**
+	 * Returns the Max Page Size for the Product Listing
+	 * @return
+	 */
+	public int getProductPageMaxSize() {
+		return productPageMaxSize;
+	}
 }
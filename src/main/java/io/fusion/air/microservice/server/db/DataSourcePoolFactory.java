@@ -0,0 +1,133 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.db;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.fusion.air.microservice.server.config.ServiceConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Connection Pool (Hikari) Factory for all the DB Vendors (H2, PostgreSQL)
+ *
+ * Pool Size, Timeouts, Max Lifetime & Leak Detection are taken from the Service Configuration.
+ * Pool Metrics are registered with Micrometer (Pool Name as the Tag)
+ * - hikaricp.connections.active / idle / pending
+ * - hikaricp.connections.acquire (Connection Acquire Latency)
+ * - hikaricp.connections.usage / creation / timeout
+ *
+ * Prepared Statements are cached by the Driver (PostgreSQL) / Query Cache (H2).
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class DataSourcePoolFactory {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    private final ServiceConfiguration serviceConfig;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Create the Pool Factory
+     * @param _serviceConfig
+     * @param _meterRegistry Meter Registry (null = No Pool Metrics)
+     */
+    public DataSourcePoolFactory(ServiceConfiguration _serviceConfig, MeterRegistry _meterRegistry) {
+        this.serviceConfig  = _serviceConfig;
+        this.meterRegistry  = _meterRegistry;
+    }
+
+    /**
+     * Create the Pool for H2 (JDBC URL)
+     * @param _poolName
+     * @param _jdbcUrl
+     * @param _readOnly
+     * @return
+     */
+    public HikariDataSource createH2(String _poolName, String _jdbcUrl, boolean _readOnly) {
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName("org.h2.Driver");
+        config.setJdbcUrl(_jdbcUrl);
+        config.setUsername(serviceConfig.getDataSourceUserName());
+        config.setPassword(serviceConfig.getDataSourcePassword());
+        // Compiled Statements Cache (per Session)
+        config.addDataSourceProperty("QUERY_CACHE_SIZE", ""+serviceConfig.getDataSourcePoolStatementCacheSize());
+        return create(config, _poolName, _readOnly);
+    }
+
+    /**
+     * Create the Pool for PostgreSQL
+     * @param _poolName
+     * @param _server
+     * @param _port
+     * @param _readOnly
+     * @return
+     */
+    public HikariDataSource createPostgreSQL(String _poolName, String _server, int _port, boolean _readOnly) {
+        HikariConfig config = new HikariConfig();
+        config.setDataSourceClassName(serviceConfig.getDataSourceDriverClassName());
+        config.addDataSourceProperty("serverName", _server);
+        config.addDataSourceProperty("portNumber", ""+_port);
+        config.addDataSourceProperty("databaseName", serviceConfig.getDataSourceName());
+        config.addDataSourceProperty("user", serviceConfig.getDataSourceUserName());
+        config.addDataSourceProperty("password", serviceConfig.getDataSourcePassword());
+        config.setSchema(serviceConfig.getDataSourceSchema());
+        // Rewrite the Batched Inserts into Multi Row Inserts
+        config.addDataSourceProperty("reWriteBatchedInserts", "true");
+        // Server Side Prepared Statements (after the 1st Execution) & the Driver Statement Cache
+        config.addDataSourceProperty("prepareThreshold", "1");
+        config.addDataSourceProperty("preparedStatementCacheQueries", ""+serviceConfig.getDataSourcePoolStatementCacheSize());
+        config.addDataSourceProperty("preparedStatementCacheSizeMiB", "5");
+        return create(config, _poolName, _readOnly);
+    }
+
+    /**
+     * Apply the Pool Settings & Metrics and Start the Pool
+     * @param _config
+     * @param _poolName
+     * @param _readOnly
+     * @return
+     */
+    private HikariDataSource create(HikariConfig _config, String _poolName, boolean _readOnly) {
+        _config.setPoolName(_poolName);
+        _config.setReadOnly(_readOnly);
+        _config.setMaximumPoolSize(serviceConfig.getDataSourcePoolMaxSize());
+        _config.setMinimumIdle(Math.min(serviceConfig.getDataSourcePoolMinIdle(), serviceConfig.getDataSourcePoolMaxSize()));
+        _config.setConnectionTimeout(serviceConfig.getDataSourcePoolConnectionTimeout());
+        _config.setIdleTimeout(serviceConfig.getDataSourcePoolIdleTimeout());
+        _config.setMaxLifetime(serviceConfig.getDataSourcePoolMaxLifetime());
+        _config.setLeakDetectionThreshold(serviceConfig.getDataSourcePoolLeakDetectionThreshold());
+        if(_readOnly) {
+            // Replica may be Down at Startup (Reads fall back to the Primary)
+            _config.setInitializationFailTimeout(-1);
+        }
+        if(meterRegistry != null) {
+            _config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        }
+        log.info("Connection Pool [{}] Max Size = {}, Min Idle = {}, Connection Timeout = {} ms, Max Lifetime = {} ms, Leak Detection = {} ms",
+                _poolName, _config.getMaximumPoolSize(), _config.getMinimumIdle(), _config.getConnectionTimeout(),
+                _config.getMaxLifetime(), _config.getLeakDetectionThreshold());
+        return new HikariDataSource(_config);
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.db;
+
+import io.fusion.air.microservice.server.config.ServiceConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Primary Reader - Runs the Queries on the Primary, even if the Caller is in a Read Only
+ * Transaction (which is routed to the Replica).
+ *
+ * Used for the Reads which fill the Caches (Ex. Product Cache). Replicas are asynchronous, a
+ * Row read from the Replica right after an Update (and the Eviction after the Commit) is the
+ * Old Row, and it would be cached for the full TTL.
+ *
+ * If the Replica is NOT Enabled, or the Caller is in a Read Write Transaction (Primary), the
+ * Query runs in the Caller's Transaction.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@Component
+public class PrimaryReader {
+
+    @Autowired
+    private ServiceConfiguration serviceConfig;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Run the Query on the Primary
+     * @param _query
+     * @return
+     */
+    public <T> T read(Supplier<T> _query) {
+        if(!isReplicaRoute()) {
+            return _query.get();
+        }
+        // New Read Write Transaction = Connection from the Primary
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return tx.execute(status -> _query.get());
+    }
+
+    /**
+     * Returns True if the Query would be routed to the Replica (No Transaction = the Read Only
+     * Transaction of the Repository)
+     * @return
+     */
+    private boolean isReplicaRoute() {
+        return serviceConfig.isDataSourceReplicaEnabled()
+                && (!TransactionSynchronizationManager.isActualTransactionActive()
+                    || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.db;
+
+import org.slf4j.Logger;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Read / Write Routing DataSource
+ *
+ * Read Only Transactions (@Transactional(readOnly = true)) are routed to the Replica and
+ * everything else to the Primary. The Read Only Flag is set on the Transaction AFTER the
+ * Connection is requested by the Transaction Manager, so this DataSource MUST be wrapped in a
+ * LazyConnectionDataSourceProxy (Connection is fetched on the First Statement).
+ *
+ * If the Replica is Down the Reads fall back to the Primary, and the Replica is NOT tried again
+ * till the Retry Interval is over.
+ *
+ * Replicas are asynchronous, a Read Only Transaction right after a Write may NOT see the Write.
+ * The Reads which fill the Caches run on the Primary (PrimaryReader), else the Old Row read
+ * from the Replica after an Update would be cached for the full TTL.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    // Set Logger -> Lookup will automatically determine the class name.
+    private static final Logger log = getLogger(lookup().lookupClass());
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long retryInterval;
+
+    private volatile long replicaDownUntil = 0;
+
+    /**
+     * Create the Routing DataSource
+     * @param _primary Primary (Read / Write)
+     * @param _replica Replica (Read Only) - null = All Connections from the Primary
+     * @param _retryInterval Milli Seconds before a Replica which is Down is tried again
+     */
+    public ReadWriteRoutingDataSource(DataSource _primary, DataSource _replica, long _retryInterval) {
+        this.primary        = _primary;
+        this.replica        = _replica;
+        this.retryInterval  = _retryInterval;
+        Map<Object, Object> targets = new HashMap<Object, Object>();
+        targets.put(PRIMARY, _primary);
+        if(_replica != null) {
+            targets.put(REPLICA, _replica);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(_primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Replica for the Read Only Transactions (if the Replica is Up), else the Primary
+     * @return
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return (isReplicaRoute()) ? REPLICA : PRIMARY;
+    }
+
+    /**
+     * Returns the Connection (Falls back to the Primary if the Replica is Down)
+     * @return
+     * @throws SQLException
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if(isReplicaRoute()) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                replicaDown(e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Returns the Connection (Falls back to the Primary if the Replica is Down)
+     * @param _userName
+     * @param _password
+     * @return
+     * @throws SQLException
+     */
+    @Override
+    public Connection getConnection(String _userName, String _password) throws SQLException {
+        if(isReplicaRoute()) {
+            try {
+                return replica.getConnection(_userName, _password);
+            } catch (SQLException e) {
+                replicaDown(e);
+            }
+        }
+        return primary.getConnection(_userName, _password);
+    }
+
+    /**
+     * Returns True if the Replica is Configured
+     * @return
+     */
+    public boolean hasReplica() {
+        return replica != null;
+    }
+
+    /**
+     * Returns True if the Replica is Down (Reads are served by the Primary)
+     * @return
+     */
+    public boolean isReplicaDown() {
+        return System.currentTimeMillis() < replicaDownUntil;
+    }
+
+    /**
+     * Close the Primary & Replica (Connection Pools)
+     */
+    @Override
+    public void close() {
+        close(replica);
+        close(primary);
+    }
+
+    /**
+     * Close the DataSource (if it's Closeable)
+     * @param _dataSource
+     */
+    private void close(DataSource _dataSource) {
+        if(_dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) _dataSource).close();
+            } catch (Exception e) {
+                log.warn("DataSource Close Failed = {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Read Only Transaction & the Replica is Up
+     * @return
+     */
+    private boolean isReplicaRoute() {
+        return replica != null
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !isReplicaDown();
+    }
+
+    /**
+     * Mark the Replica as Down for the Retry Interval
+     * @param _error
+     */
+    private void replicaDown(SQLException _error) {
+        replicaDownUntil = System.currentTimeMillis() + retryInterval;
+        log.warn("Replica DataSource is Down, Reads routed to the Primary for {} ms = {}",
+                retryInterval, _error.getMessage());
+    }
+}
@@ -1,70 +1,508 @@
 package io.fusion.air.microservice.utils.algos;
 
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
 /**
+ * Trie (Radix Tree / Path Compressed Prefix Tree) with optional Values attached to the Words.
+ * Ex. Product Name -> Product IDs for the Prefix Search (Auto Complete)
+ *
+ * 1. Path Compression - Each Node holds a Label (Chain of Chars), NOT a single Char. Children
+ *    are kept in a Compact Array sorted by the First Char of the Label.
+ * 2. Unicode - Words are NFKC Normalized and Case Folded (Optional), so any Char is allowed.
+ * 3. Weights - Each Value has a Weight (Ex. Frequency / Popularity). Completion returns the
+ *    Top K Values by Weight (Best First Search, Sub Trees are pruned with the Max Weight).
+ * 4. Thread Safety - Nodes are Immutable. Writes copy the Path from the Root (Copy On Write)
+ *    and publish the new Root, Writes are serialized. Reads are Lock Free.
+ *
  * @author: Araf Karsh Hamid
  * @version:
  * @date:
  */
-public class Trie {
-    private TrieNode root;
+public class Trie<V> {
+
+    private final boolean foldCase;
+    private final Object writeLock = new Object();
+    private volatile TrieNode<V> root = TrieNode.empty("");
 
+    /**
+     * Create Trie (Case Insensitive)
+     */
     public Trie() {
-        root = new TrieNode();
+        this(true);
+    }
+
+    /**
+     * Create Trie
+     * @param _foldCase True = Case Insensitive (Unicode Case Folding)
+     */
+    public Trie(boolean _foldCase) {
+        this.foldCase = _foldCase;
     }
 
     // Insert a word into the Trie
     public void insert(String word) {
-        TrieNode node = root;
-        for (char c : word.toCharArray()) {
-            if (node.children[c - 'a'] == null) {
-                node.children[c - 'a'] = new TrieNode();
+        update(word, null, 0, false);
+    }
+
+    // Insert a word into the Trie with the Value (null = No Value) with Weight 0
+    public void insert(String word, V value) {
+        update(word, value, 0, false);
+    }
+
+    // Insert a word into the Trie with the Value and the Weight (Replaces the existing Weight)
+    public void insert(String word, V value, long weight) {
+        update(word, value, weight, false);
+    }
+
+    // Add the Delta to the Weight of the Value (Value is inserted if it's NOT there)
+    public void addWeight(String word, V value, long delta) {
+        update(word, value, delta, true);
+    }
+
+    // Remove the Value from the word. Word is removed when it has no more Values.
+    public boolean remove(String word, V value) {
+        String key = normalize(word);
+        synchronized (writeLock) {
+            TrieNode<V> current = root;
+            TrieNode<V> node = delete(current, key, 0, value);
+            if (node == current) {
+                return false;
             }
-            node = node.children[c - 'a'];
+            root = (node != null) ? node : TrieNode.<V>empty("");
+            return true;
         }
-        node.isEndOfWord = true;
     }
 
     // Returns if the word is in the Trie
     public boolean search(String word) {
-        TrieNode node = root;
-        for (char c : word.toCharArray()) {
-            if (node.children[c - 'a'] == null) {
+        String key = normalize(word);
+        TrieNode<V> node = root;
+        int i = 0;
+        while (i < key.length()) {
+            TrieNode<V> child = node.child(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
                 return false;
             }
-            node = node.children[c - 'a'];
+            i += child.label.length();
+            node = child;
         }
-        return node.isEndOfWord;
+        return node.word;
     }
 
     // Returns if there is any word in the Trie that starts with the given prefix
     public boolean startsWith(String prefix) {
-        TrieNode node = root;
-        for (char c : prefix.toCharArray()) {
-            if (node.children[c - 'a'] == null) {
-                return false;
+        TrieNode<V> node = find(normalize(prefix));
+        return node != null && (node.word || node.children.length > 0);
+    }
+
+    // Returns the Top K Values (by Weight, then the Shortest Words) of the words starting with the prefix
+    public List<V> complete(String prefix, int limit) {
+        TrieNode<V> node = find(normalize(prefix));
+        if (node == null || limit <= 0 || node.count == 0) {
+            return Collections.emptyList();
+        }
+        List<V> values = new ArrayList<V>(Math.min(limit, Math.max(node.count, 1)));
+        PriorityQueue<Candidate<V>> queue = new PriorityQueue<Candidate<V>>();
+        long sequence = 0;
+        queue.add(new Candidate<V>(node, null, node.maxWeight, 0, sequence++));
+        while (!queue.isEmpty() && values.size() < limit) {
+            Candidate<V> candidate = queue.poll();
+            if (candidate.node == null) {
+                values.add(candidate.value);
+                continue;
+            }
+            TrieNode<V> current = candidate.node;
+            for (int x = 0; x < current.values.length; x++) {
+                queue.add(new Candidate<V>(null, current.values[x], current.weights[x], candidate.depth, sequence++));
+            }
+            for (TrieNode<V> child : current.children) {
+                if (child.count > 0) {
+                    queue.add(new Candidate<V>(child, null, child.maxWeight,
+                            candidate.depth + child.label.length(), sequence++));
+                }
+            }
+        }
+        return values;
+    }
+
+    // Returns the No. of Values in the Trie
+    public int size() {
+        return root.count;
+    }
+
+    // Returns the Estimated Memory Footprint of the Trie (Values are NOT included)
+    public Footprint footprint() {
+        Footprint footprint = new Footprint();
+        footprint.add(root);
+        return footprint;
+    }
+
+    /**
+     * Normalize the Word (NFKC and Case Folding)
+     * @param word
+     * @return
+     */
+    private String normalize(String word) {
+        String key = Normalizer.normalize(word, Normalizer.Form.NFKC);
+        // Upper then Lower Case folds the Special Cases (Ex. Final Sigma, Sharp S)
+        return foldCase ? key.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT) : key;
+    }
+
+    /**
+     * Insert / Update the Word (Copy On Write)
+     */
+    private void update(String word, V value, long weight, boolean add) {
+        String key = normalize(word);
+        synchronized (writeLock) {
+            root = put(root, key, 0, value, weight, add);
+        }
+    }
+
+    /**
+     * Returns the Node for the prefix (null if NOT Found). The prefix can end inside the Label.
+     */
+    private TrieNode<V> find(String prefix) {
+        TrieNode<V> node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            TrieNode<V> child = node.child(prefix.charAt(i));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefix(child.label, prefix, i);
+            if (i + common == prefix.length()) {
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            i += common;
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Put the Value in the Word (key from the position i) under the Node. Returns the new Node.
+     */
+    private static <V> TrieNode<V> put(TrieNode<V> node, String key, int i, V value, long weight, boolean add) {
+        if (i == key.length()) {
+            return node.withValue(value, weight, add);
+        }
+        int index = node.childIndex(key.charAt(i));
+        if (index < 0) {
+            TrieNode<V> leaf = TrieNode.<V>empty(key.substring(i)).withValue(value, weight, add);
+            return node.withChild(-index - 1, leaf, true);
+        }
+        TrieNode<V> child = node.children[index];
+        int common = commonPrefix(child.label, key, i);
+        if (common < child.label.length()) {
+            // Split the Label
+            TrieNode<V> tail = child.withLabel(child.label.substring(common));
+            @SuppressWarnings("unchecked")
+            TrieNode<V> middle = new TrieNode<V>(child.label.substring(0, common), new TrieNode[] { tail },
+                    false, TrieNode.NO_VALUES, TrieNode.NO_WEIGHTS);
+            child = middle;
+        }
+        return node.withChild(index, put(child, key, i + common, value, weight, add), false);
+    }
+
+    /**
+     * Delete the Value from the Word (key from the position i) under the Node.
+     * Returns the same Node if NOT Found, null if the Node is Empty after the Delete.
+     */
+    private static <V> TrieNode<V> delete(TrieNode<V> node, String key, int i, V value) {
+        if (i == key.length()) {
+            return node.withoutValue(value);
+        }
+        int index = node.childIndex(key.charAt(i));
+        if (index < 0) {
+            return node;
+        }
+        TrieNode<V> child = node.children[index];
+        if (!key.startsWith(child.label, i)) {
+            return node;
+        }
+        TrieNode<V> updated = delete(child, key, i + child.label.length(), value);
+        if (updated == child) {
+            return node;
+        }
+        if (updated == null) {
+            TrieNode<V> pruned = node.withoutChild(index);
+            if (!pruned.word && pruned.children.length == 0 && !pruned.label.isEmpty()) {
+                return null;
+            }
+            return pruned.compact();
+        }
+        return node.withChild(index, updated.compact(), false);
+    }
+
+    /**
+     * Returns the Length of the Common Prefix of the Label and the Key (from the position i)
+     */
+    private static int commonPrefix(String label, String key, int i) {
+        int max = Math.min(label.length(), key.length() - i);
+        int x = 0;
+        while (x < max && label.charAt(x) == key.charAt(i + x)) {
+            x++;
+        }
+        return x;
+    }
+
+    /**
+     * Immutable Radix Node
+     */
+    static final class TrieNode<V> {
+        static final TrieNode<?>[] NO_CHILDREN = new TrieNode<?>[0];
+        static final Object[] NO_VALUES = new Object[0];
+        static final long[] NO_WEIGHTS = new long[0];
+
+        final String label;
+        // Sorted by the First Char of the Label
+        final TrieNode<V>[] children;
+        final boolean word;
+        final V[] values;
+        final long[] weights;
+        // Max Weight & No. of Values in the Sub Tree
+        final long maxWeight;
+        final int count;
+
+        @SuppressWarnings("unchecked")
+        TrieNode(String label, TrieNode<V>[] children, boolean word, Object[] values, long[] weights) {
+            this.label = label;
+            this.children = children;
+            this.word = word;
+            this.values = (V[]) values;
+            this.weights = weights;
+            long max = Long.MIN_VALUE;
+            int total = values.length;
+            for (long weight : weights) {
+                max = Math.max(max, weight);
             }
-            node = node.children[c - 'a'];
+            for (TrieNode<V> child : children) {
+                max = Math.max(max, child.maxWeight);
+                total += child.count;
+            }
+            this.maxWeight = max;
+            this.count = total;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <V> TrieNode<V> empty(String label) {
+            return new TrieNode<V>(label, (TrieNode<V>[]) NO_CHILDREN, false, NO_VALUES, NO_WEIGHTS);
+        }
+
+        TrieNode<V> child(char c) {
+            int index = childIndex(c);
+            return (index >= 0) ? children[index] : null;
+        }
+
+        // Binary Search on the First Char of the Labels (-(Insert Point) - 1 if NOT Found)
+        int childIndex(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char m = children[mid].label.charAt(0);
+                if (m < c) {
+                    low = mid + 1;
+                } else if (m > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        TrieNode<V> withLabel(String _label) {
+            return new TrieNode<V>(_label, children, word, values, weights);
+        }
+
+        TrieNode<V> withChild(int index, TrieNode<V> child, boolean insert) {
+            TrieNode<V>[] nodes;
+            if (insert) {
+                nodes = Arrays.copyOf(children, children.length + 1);
+                System.arraycopy(children, index, nodes, index + 1, children.length - index);
+            } else {
+                nodes = children.clone();
+            }
+            nodes[index] = child;
+            return new TrieNode<V>(label, nodes, word, values, weights);
+        }
+
+        @SuppressWarnings("unchecked")
+        TrieNode<V> withoutChild(int index) {
+            if (children.length == 1) {
+                return new TrieNode<V>(label, (TrieNode<V>[]) NO_CHILDREN, word, values, weights);
+            }
+            TrieNode<V>[] nodes = Arrays.copyOf(children, children.length - 1);
+            System.arraycopy(children, index + 1, nodes, index, children.length - index - 1);
+            return new TrieNode<V>(label, nodes, word, values, weights);
+        }
+
+        TrieNode<V> withValue(V value, long weight, boolean add) {
+            if (value == null) {
+                return word ? this : new TrieNode<V>(label, children, true, values, weights);
+            }
+            int index = indexOf(value);
+            if (index >= 0) {
+                long[] w = weights.clone();
+                w[index] = add ? w[index] + weight : weight;
+                return new TrieNode<V>(label, children, true, values, w);
+            }
+            Object[] v = Arrays.copyOf(values, values.length + 1, Object[].class);
+            long[] w = Arrays.copyOf(weights, weights.length + 1);
+            v[values.length] = value;
+            w[weights.length] = weight;
+            return new TrieNode<V>(label, children, true, v, w);
+        }
+
+        // Returns the same Node if the Value is NOT Found, null if the Node is Empty
+        TrieNode<V> withoutValue(V value) {
+            int index = indexOf(value);
+            if (index < 0 && (value != null || !word)) {
+                return this;
+            }
+            Object[] v = NO_VALUES;
+            long[] w = NO_WEIGHTS;
+            if (index >= 0 && values.length > 1) {
+                v = new Object[values.length - 1];
+                w = new long[weights.length - 1];
+                System.arraycopy(values, 0, v, 0, index);
+                System.arraycopy(values, index + 1, v, index, values.length - index - 1);
+                System.arraycopy(weights, 0, w, 0, index);
+                System.arraycopy(weights, index + 1, w, index, weights.length - index - 1);
+            }
+            boolean isWord = v.length > 0;
+            if (!isWord && children.length == 0) {
+                return null;
+            }
+            return new TrieNode<V>(label, children, isWord, v, w);
+        }
+
+        // Merge with the Only Child if this Node is NOT a Word (Path Compression)
+        TrieNode<V> compact() {
+            if (word || children.length != 1 || label.isEmpty()) {
+                return this;
+            }
+            TrieNode<V> child = children[0];
+            return new TrieNode<V>(label + child.label, child.children, child.word, child.values, child.weights);
+        }
+
+        int indexOf(V value) {
+            for (int x = 0; x < values.length; x++) {
+                if (values[x].equals(value)) {
+                    return x;
+                }
+            }
+            return -1;
         }
-        return true;
     }
 
-    class TrieNode {
-        public TrieNode[] children;
-        public boolean isEndOfWord;
+    /**
+     * Candidate (Node or Value) for the Top K Completion - Highest Weight first, then the
+     * Shortest Word, then the Char Order
+     */
+    private static final class Candidate<V> implements Comparable<Candidate<V>> {
+        final TrieNode<V> node;
+        final V value;
+        final long weight;
+        final int depth;
+        final long sequence;
 
-        public TrieNode() {
-            children = new TrieNode[26];
-            isEndOfWord = false;
+        Candidate(TrieNode<V> node, V value, long weight, int depth, long sequence) {
+            this.node = node;
+            this.value = value;
+            this.weight = weight;
+            this.depth = depth;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Candidate<V> other) {
+            if (weight != other.weight) {
+                return Long.compare(other.weight, weight);
+            }
+            if (depth != other.depth) {
+                return Integer.compare(depth, other.depth);
+            }
+            // Values before the Nodes at the same Depth
+            if ((node == null) != (other.node == null)) {
+                return (node == null) ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
         }
     }
 
-    public static void main(String[] args) {
-        Trie trie = new Trie();
-        trie.insert("apple");
-        System.out.println("apple = "+trie.search("apple"));   // returns true
-        System.out.println("app   = "+trie.search("app"));     // returns false
-        System.out.println("app   = "+trie.startsWith("app")); // returns true
-        trie.insert("app");
-        System.out.println("app   = "+trie.search("app"));     // returns true
+    /**
+     * Estimated Memory Footprint (64 Bit JVM with Compressed OOPs). Values are NOT included.
+     */
+    public static final class Footprint {
+        private long nodes;
+        private long words;
+        private long values;
+        private long labelChars;
+        private long bytes;
+
+        private void add(TrieNode<?> node) {
+            nodes++;
+            words += node.word ? 1 : 0;
+            values += node.values.length;
+            labelChars += node.label.length();
+            // Node = Header + 5 References + long + int + boolean
+            bytes += align(12 + 5 * 4 + 8 + 4 + 1);
+            // Label = String + byte[] (Latin 1 or UTF 16)
+            bytes += 24 + align(16 + (long) node.label.length() * (isLatin1(node.label) ? 1 : 2));
+            bytes += (node.children.length > 0) ? align(16 + 4L * node.children.length) : 0;
+            bytes += (node.values.length > 0) ? align(16 + 4L * node.values.length) + align(16 + 8L * node.weights.length) : 0;
+            for (TrieNode<?> child : node.children) {
+                add(child);
+            }
+        }
+
+        private static long align(long size) {
+            return (size + 7) & ~7L;
+        }
+
+        private static boolean isLatin1(String text) {
+            for (int x = 0; x < text.length(); x++) {
+                if (text.charAt(x) > 0xFF) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public long getWords() {
+            return words;
+        }
+
+        public long getValues() {
+            return values;
+        }
+
+        public long getLabelChars() {
+            return labelChars;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public String toString() {
+            return "Nodes=" + nodes + "|Words=" + words + "|Values=" + values
+                    + "|Label Chars=" + labelChars + "|Bytes=" + bytes;
+        }
     }
 }
@@ -0,0 +1,245 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.buffer;
+
+import io.fusion.air.microservice.adapters.cache.ProductQueryCache;
+import io.fusion.air.microservice.adapters.outbox.ProductOutbox;
+import io.fusion.air.microservice.server.cache.TwoTierCache;
+import io.fusion.air.microservice.server.cache.TwoTierCacheManager;
+import io.fusion.air.microservice.server.config.CacheConfig;
+import io.fusion.air.microservice.server.config.ServiceConfiguration;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Product Price Buffer (Write Behind) - Coalescing, Flush, Re-Queue, Discard & Drain on Shutdown
+ * (H2 In Memory Database, Mock Outbox & Cache)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class ProductPriceBufferTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ProductOutbox productOutbox;
+    private ProductQueryCache productQueryCache;
+    private TwoTierCache productCache;
+    private ProductPriceBuffer buffer;
+
+    private UUID product1;
+    private UUID product2;
+
+    @BeforeEach
+    public void createBuffer() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:priceBuffer;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE products_m (uuid UUID PRIMARY KEY, price DECIMAL(12,2), "
+                + "version INT, updatedBy VARCHAR(64), updatedTime TIMESTAMP)");
+        product1 = insertProduct(new BigDecimal("1.00"));
+        product2 = insertProduct(new BigDecimal("2.00"));
+
+        ServiceConfiguration serviceConfig = mock(ServiceConfiguration.class);
+        when(serviceConfig.getDataSourceBatchSize()).thenReturn(50);
+        productCache = mock(TwoTierCache.class);
+        TwoTierCacheManager cacheManager = mock(TwoTierCacheManager.class);
+        when(cacheManager.getTwoTierCache(CacheConfig.PRODUCT_CACHE)).thenReturn(productCache);
+        productOutbox = mock(ProductOutbox.class);
+        productQueryCache = mock(ProductQueryCache.class);
+
+        buffer = new ProductPriceBuffer();
+        ReflectionTestUtils.setField(buffer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(buffer, "transactionManager", new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(buffer, "serviceConfig", serviceConfig);
+        ReflectionTestUtils.setField(buffer, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(buffer, "productOutbox", productOutbox);
+        ReflectionTestUtils.setField(buffer, "productQueryCache", productQueryCache);
+        ReflectionTestUtils.setField(buffer, "enabled", true);
+        ReflectionTestUtils.setField(buffer, "maxPending", 100);
+        buffer.start();
+    }
+
+    @AfterEach
+    public void dropDatabase() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    public void updatesAreCoalescedPerProduct() {
+        assertTrue(buffer.put(product1, new BigDecimal("10.00")));
+        assertTrue(buffer.put(product1, new BigDecimal("11.00")));
+        assertTrue(buffer.put(product1, new BigDecimal("12.00")));
+        assertTrue(buffer.put(product2, new BigDecimal("20.00")));
+        assertEquals(2, buffer.size());
+
+        assertEquals(0, buffer.flush());
+
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, new BigDecimal("12.00").compareTo(price(product1)));
+        assertEquals(0, new BigDecimal("20.00").compareTo(price(product2)));
+        // One Write (Version & Event) for the Coalesced Updates
+        assertEquals(1, version(product1));
+        assertEquals(1, version(product2));
+        verify(productOutbox, times(1)).priceChanged(eq(Collections.singletonList(product1)), any(BigDecimal.class));
+        verify(productOutbox).priceChanged(Collections.singletonList(product1), new BigDecimal("12.00"));
+        verify(productCache).evictAll(anyCollection());
+        // Catalog Version is Bumped by the Flush (NOT by the buffered Updates)
+        verify(productQueryCache, times(1)).bumpCatalogVersion();
+    }
+
+    @Test
+    public void failedFlushIsReQueued() {
+        doThrow(new IllegalStateException("Outbox Down")).doNothing()
+                .when(productOutbox).priceChanged(anyCollection(), any(BigDecimal.class));
+        buffer.put(product1, new BigDecimal("10.00"));
+
+        assertEquals(1, buffer.flush());
+        // Rolled Back and Re-Queued
+        assertEquals(0, new BigDecimal("1.00").compareTo(price(product1)));
+        assertEquals(1, buffer.size());
+
+        assertEquals(0, buffer.flush());
+        assertEquals(0, new BigDecimal("10.00").compareTo(price(product1)));
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void discardedUpdatesAreNotWritten() {
+        buffer.put(product1, new BigDecimal("10.00"));
+        buffer.put(product2, new BigDecimal("20.00"));
+
+        buffer.discard(Collections.singletonList(product1));
+        buffer.flush();
+
+        assertEquals(0, new BigDecimal("1.00").compareTo(price(product1)));
+        assertEquals(0, new BigDecimal("20.00").compareTo(price(product2)));
+        verify(productOutbox, never()).priceChanged(eq(Collections.singletonList(product1)), any(BigDecimal.class));
+    }
+
+    @Test
+    public void discardWaitsForTheFlushInFlight() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(productOutbox).priceChanged(anyCollection(), any(BigDecimal.class));
+        buffer.put(product1, new BigDecimal("10.00"));
+
+        CompletableFuture<Integer> flush = CompletableFuture.supplyAsync(buffer::flush);
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        CompletableFuture<Void> discard = CompletableFuture.runAsync(
+                () -> buffer.discard(Collections.singletonList(product1)));
+        Thread.sleep(200);
+        // The Synchronous Update can NOT start till the Buffered Price is written
+        assertFalse(discard.isDone());
+
+        release.countDown();
+        discard.get(10, TimeUnit.SECONDS);
+        assertEquals(0, flush.get(10, TimeUnit.SECONDS));
+        assertTrue(buffer.isEmpty());
+        assertNull(ReflectionTestUtils.getField(buffer, "inFlight"));
+        assertEquals(0, new BigDecimal("10.00").compareTo(price(product1)));
+    }
+
+    @Test
+    public void productsUpdatedAfterTheBufferedUpdateAreNotOverwritten() {
+        buffer.put(product1, new BigDecimal("10.00"));
+        // Synchronous Update on the other Node after the Update was buffered
+        jdbcTemplate.update("UPDATE products_m SET price = ?, version = version + 1, updatedTime = ? WHERE uuid = ?",
+                new BigDecimal("5.00"), new Timestamp(System.currentTimeMillis() + 60_000), product1);
+
+        assertEquals(0, buffer.flush());
+
+        assertEquals(0, new BigDecimal("5.00").compareTo(price(product1)));
+        assertEquals(1, version(product1));
+        verify(productOutbox, never()).priceChanged(anyCollection(), any(BigDecimal.class));
+        verify(productQueryCache, never()).bumpCatalogVersion();
+    }
+
+    @Test
+    public void bufferIsDrainedOnStop() {
+        buffer.put(product1, new BigDecimal("10.00"));
+        buffer.put(product2, new BigDecimal("20.00"));
+
+        buffer.stop();
+
+        assertTrue(buffer.isEmpty());
+        assertFalse(buffer.isRunning());
+        assertEquals(0, new BigDecimal("10.00").compareTo(price(product1)));
+        assertEquals(0, new BigDecimal("20.00").compareTo(price(product2)));
+        // Synchronous Updates after the Shutdown
+        assertFalse(buffer.isEnabled());
+        assertFalse(buffer.put(product1, new BigDecimal("30.00")));
+    }
+
+    @Test
+    public void fullBufferRejectsNewProducts() {
+        ReflectionTestUtils.setField(buffer, "maxPending", 1);
+
+        assertTrue(buffer.put(product1, new BigDecimal("10.00")));
+        assertFalse(buffer.put(product2, new BigDecimal("20.00")));
+        // Updates of the Buffered Products are still Coalesced
+        assertTrue(buffer.put(product1, new BigDecimal("11.00")));
+        assertEquals(1, buffer.size());
+    }
+
+    private UUID insertProduct(BigDecimal _price) {
+        UUID productId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO products_m (uuid, price, version, updatedBy, updatedTime) VALUES (?, ?, 0, ?, ?)",
+                productId, _price, "Admin", new Timestamp(System.currentTimeMillis() - 60_000));
+        return productId;
+    }
+
+    private BigDecimal price(UUID _productId) {
+        return jdbcTemplate.queryForObject("SELECT price FROM products_m WHERE uuid = ?", BigDecimal.class, _productId);
+    }
+
+    private int version(UUID _productId) {
+        return jdbcTemplate.queryForObject("SELECT version FROM products_m WHERE uuid = ?", Integer.class, _productId);
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.index;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product Price Index Benchmark
+ *
+ * Price Range Queries (Narrow and Wide Range, All and Active Only Products) on the Index vs a
+ * Scan & Sort of all the Product Prices, and the Cost of a Price Change (Merge into a New
+ * Snapshot). Prices are 0.01 - 1000.00 (Uniform), 90% of the Products are Active.
+ *
+ * Run: main() (or org.openjdk.jmh.Main ProductPriceIndexBenchmark with the Test Class Path)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductPriceIndexBenchmark {
+
+    private static final int LIMIT = 100;
+    private static final BigDecimal NARROW_MIN = new BigDecimal("500.00");
+    private static final BigDecimal NARROW_MAX = new BigDecimal("505.00");
+    private static final BigDecimal WIDE_MIN = new BigDecimal("100.00");
+    private static final BigDecimal WIDE_MAX = new BigDecimal("900.00");
+
+    @Param({ "10000", "100000" })
+    private int products;
+
+    private ProductPriceIndex index;
+    private Map<UUID, BigDecimal> prices;
+    private List<UUID> productIds;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        Map<UUID, BigDecimal> activePrices = new LinkedHashMap<UUID, BigDecimal>();
+        Map<UUID, BigDecimal> inactivePrices = new LinkedHashMap<UUID, BigDecimal>();
+        prices = new HashMap<UUID, BigDecimal>();
+        productIds = new ArrayList<UUID>(products);
+        for(int x=0; x<products; x++) {
+            UUID productId = new UUID(random.nextLong(), random.nextLong());
+            BigDecimal price = BigDecimal.valueOf(1 + random.nextInt(100000), 2);
+            (random.nextInt(10) == 0 ? inactivePrices : activePrices).put(productId, price);
+            prices.put(productId, price);
+            productIds.add(productId);
+        }
+        // No Transaction: Changes are applied Now
+        index = new ProductPriceIndex();
+        index.putAll(activePrices, true);
+        index.putAll(inactivePrices, false);
+    }
+
+    @Benchmark
+    public List<UUID> rangeNarrow() {
+        return index.range(NARROW_MIN, NARROW_MAX, false, LIMIT);
+    }
+
+    @Benchmark
+    public List<UUID> rangeNarrowActive() {
+        return index.range(NARROW_MIN, NARROW_MAX, true, LIMIT);
+    }
+
+    @Benchmark
+    public List<UUID> rangeWide() {
+        return index.range(WIDE_MIN, WIDE_MAX, false, LIMIT);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<UUID> rangeNarrowConcurrent() {
+        return index.range(NARROW_MIN, NARROW_MAX, false, LIMIT);
+    }
+
+    /**
+     * Base Line: Scan all the Prices, Sort the Products in the Range by the Price
+     * @return
+     */
+    @Benchmark
+    public List<UUID> rangeNarrowScan() {
+        List<Map.Entry<UUID, BigDecimal>> matches = new ArrayList<Map.Entry<UUID, BigDecimal>>();
+        for(Map.Entry<UUID, BigDecimal> entry : prices.entrySet()) {
+            if(entry.getValue().compareTo(NARROW_MIN) >= 0 && entry.getValue().compareTo(NARROW_MAX) <= 0) {
+                matches.add(entry);
+            }
+        }
+        matches.sort(Map.Entry.comparingByValue(Comparator.naturalOrder()));
+        List<UUID> result = new ArrayList<UUID>(Math.min(LIMIT, matches.size()));
+        for(int x=0; x<matches.size() && x<LIMIT; x++) {
+            result.add(matches.get(x).getKey());
+        }
+        return result;
+    }
+
+    /**
+     * Price Change of a Product (New Snapshot is Merged)
+     * @return
+     */
+    @Benchmark
+    public int updatePrice() {
+        UUID productId = productIds.get(next++ % products);
+        BigDecimal price = BigDecimal.valueOf(1 + (next % 100000), 2);
+        index.updatePrices(Collections.singletonMap(productId, price));
+        return index.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProductPriceIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.repository;
+
+import io.fusion.air.microservice.domain.entities.example.ProductOutboxEntity;
+import io.fusion.air.microservice.domain.models.example.ProductEvent;
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Product Outbox Repository - Two Relays never Claim the Events of the same Product
+ * (H2 In Memory Database)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@SpringJUnitConfig(ProductOutboxRepositoryTest.TestConfig.class)
+@DirtiesContext
+public class ProductOutboxRepositoryTest {
+
+    private static final long CLAIM_TIMEOUT = 30_000;
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = ProductOutboxRepository.class)
+    static class TestConfig {
+
+        @Bean
+        public DataSource dataSource() {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:outboxTest;DB_CLOSE_DELAY=-1");
+            dataSource.setUser("sa");
+            return dataSource;
+        }
+
+        @Bean
+        public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource _dataSource) {
+            HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+            vendorAdapter.setGenerateDdl(true);
+            vendorAdapter.setDatabasePlatform("org.hibernate.dialect.H2Dialect");
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setJpaVendorAdapter(vendorAdapter);
+            factory.setPackagesToScan("io.fusion.air.microservice.domain.*");
+            factory.setDataSource(_dataSource);
+            return factory;
+        }
+
+        @Bean
+        public PlatformTransactionManager transactionManager(EntityManagerFactory _entityManagerFactory) {
+            return new JpaTransactionManager(_entityManagerFactory);
+        }
+    }
+
+    @Autowired
+    private ProductOutboxRepository outboxRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long product1Event1;
+    private Long product1Event2;
+    private Long product2Event1;
+
+    @BeforeEach
+    public void createEvents() {
+        outboxRepository.deleteAll();
+        UUID product1 = UUID.randomUUID();
+        UUID product2 = UUID.randomUUID();
+        product1Event1 = save(product1, ProductEvent.CREATED);
+        product1Event2 = save(product1, ProductEvent.PRICE_CHANGED);
+        product2Event1 = save(product2, ProductEvent.CREATED);
+    }
+
+    @Test
+    public void eventsOfAProductClaimedByAnotherRelayAreSkipped() {
+        Timestamp now = now();
+        // Both Relays fetched the same Events, Relay A claims first (a smaller Batch)
+        List<Long> ids = outboxRepository.fetchClaimableIds(now, PageRequest.of(0, 10));
+        assertEquals(Arrays.asList(product1Event1, product1Event2, product2Event1), ids);
+        assertEquals(1, claim(Collections.singletonList(product1Event1), "relay-a", now));
+
+        // Relay B does NOT get the 2nd Event of Product 1
+        assertEquals(1, claim(ids, "relay-b", now));
+        assertEquals(Collections.singletonList(product2Event1), claimed(ids, "relay-b"));
+        assertEquals(Collections.singletonList(product1Event1), claimed(ids, "relay-a"));
+    }
+
+    @Test
+    public void eventsOfAProductAreClaimedAfterTheRelease() {
+        Timestamp now = now();
+        List<Long> ids = Arrays.asList(product1Event1, product1Event2);
+        assertEquals(1, claim(Collections.singletonList(product1Event1), "relay-a", now));
+        assertEquals(0, claim(ids, "relay-b", now));
+
+        release(Collections.singletonList(product1Event1), "relay-a");
+
+        assertEquals(2, claim(ids, "relay-b", now));
+        assertEquals(ids, claimed(ids, "relay-b"));
+    }
+
+    @Test
+    public void eventsOfAProductWithAnExpiredClaimAreClaimed() {
+        Timestamp now = now();
+        List<Long> ids = Arrays.asList(product1Event1, product1Event2);
+        // Relay A claimed a while ago and the Claim has Expired
+        assertEquals(1, claim(Collections.singletonList(product1Event1), "relay-a",
+                new Timestamp(now.getTime() - 2 * CLAIM_TIMEOUT)));
+
+        assertEquals(2, claim(ids, "relay-b", now));
+        assertEquals(ids, claimed(ids, "relay-b"));
+    }
+
+    private Long save(UUID _productId, ProductEvent _event) {
+        return outboxRepository.saveAndFlush(new ProductOutboxEntity(_event, _productId, "{}")).getId();
+    }
+
+    private int claim(Collection<Long> _ids, String _claimedBy, Timestamp _now) {
+        Timestamp claimedUntil = new Timestamp(_now.getTime() + CLAIM_TIMEOUT);
+        return new TransactionTemplate(transactionManager).execute(status ->
+                outboxRepository.claim(_ids, _claimedBy, claimedUntil, _now));
+    }
+
+    private void release(Collection<Long> _ids, String _claimedBy) {
+        new TransactionTemplate(transactionManager).execute(status ->
+                outboxRepository.release(_ids, _claimedBy));
+    }
+
+    private List<Long> claimed(Collection<Long> _ids, String _claimedBy) {
+        return outboxRepository.fetchClaimed(_ids, _claimedBy).stream()
+                .map(ProductOutboxEntity::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static Timestamp now() {
+        return new Timestamp(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.service;
+
+import io.fusion.air.microservice.domain.entities.example.ProductEntity;
+import io.fusion.air.microservice.domain.entities.example.ProductOutboxEntity;
+import io.fusion.air.microservice.domain.models.example.ProductEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk Product Create Benchmark (H2) - Rows / Sec
+ *
+ * Persists the Products and their Outbox Events the way ProductServiceImpl.createProductsBulk()
+ * does (Flush & Clear every Batch) with the Hibernate Properties of the JpaConfig.
+ * Batch Size 1 is the Row by Row Insert (No JDBC Batching).
+ *
+ * Run: main() (or org.openjdk.jmh.Main ProductBulkCreateBenchmark with the Test Class Path)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductBulkCreateBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({ "1", "50" })
+    private int batchSize;
+
+    private LocalContainerEntityManagerFactoryBean factory;
+    private EntityManagerFactory entityManagerFactory;
+
+    @Setup
+    public void setup() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:bulk" + batchSize + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+
+        HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+        vendorAdapter.setGenerateDdl(true);
+        vendorAdapter.setDatabasePlatform("org.hibernate.dialect.H2Dialect");
+
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("hibernate.jdbc.batch_size", batchSize);
+        properties.put("hibernate.order_inserts", true);
+        properties.put("hibernate.order_updates", true);
+        properties.put("hibernate.jdbc.batch_versioned_data", true);
+
+        factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setJpaVendorAdapter(vendorAdapter);
+        factory.setPackagesToScan("io.fusion.air.microservice.domain.*");
+        factory.setJpaPropertyMap(properties);
+        factory.setDataSource(dataSource);
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+    }
+
+    /**
+     * Same No. of Rows in the Tables for every Iteration
+     */
+    @Setup(Level.Iteration)
+    public void truncate() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createNativeQuery("TRUNCATE TABLE product_outbox_t").executeUpdate();
+            em.createNativeQuery("TRUNCATE TABLE products_m").executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int createProducts() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            for(int x=1; x<=ROWS; x++) {
+                ProductEntity product = new ProductEntity("Product " + x, "Product Details of " + x,
+                        new BigDecimal(x + ".99"), "12345");
+                em.persist(product);
+                em.persist(new ProductOutboxEntity(ProductEvent.CREATED, product.getUuid(),
+                        "{\"productName\":\"Product " + x + "\",\"productPrice\":" + x + ".99}"));
+                if(x % batchSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+            em.getTransaction().commit();
+            return ROWS;
+        } finally {
+            em.close();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProductBulkCreateBenchmark.class.getSimpleName()).build()).run();
+    }
+}
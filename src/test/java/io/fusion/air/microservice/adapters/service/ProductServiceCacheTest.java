@@ -0,0 +1,237 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.service;
+
+import io.fusion.air.microservice.adapters.buffer.ProductPriceBuffer;
+import io.fusion.air.microservice.adapters.cache.ProductBulkCache;
+import io.fusion.air.microservice.adapters.cache.ProductQueryCache;
+import io.fusion.air.microservice.adapters.index.ProductNameIndex;
+import io.fusion.air.microservice.adapters.index.ProductPriceIndex;
+import io.fusion.air.microservice.adapters.outbox.ProductOutbox;
+import io.fusion.air.microservice.adapters.repository.ProductRepository;
+import io.fusion.air.microservice.domain.entities.example.ProductEntity;
+import io.fusion.air.microservice.domain.entities.example.TestProducts;
+import io.fusion.air.microservice.domain.exceptions.DataNotFoundException;
+import io.fusion.air.microservice.domain.ports.services.ProductService;
+import io.fusion.air.microservice.server.cache.CacheSpec;
+import io.fusion.air.microservice.server.cache.EmbeddedRedis;
+import io.fusion.air.microservice.server.cache.TwoTierCache;
+import io.fusion.air.microservice.server.cache.TwoTierCacheManager;
+import io.fusion.air.microservice.server.config.CacheConfig;
+import io.fusion.air.microservice.server.config.ServiceConfiguration;
+import io.fusion.air.microservice.server.db.PrimaryReader;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Product Service - Cache Aside Reads (Product Cache & Negative Cache) on the Two Tier Cache
+ *
+ * 1. Hits (L1 and L2) never reach the Product Repository
+ * 2. Misses are loaded from the Repository and cached, Not Found is remembered
+ * 3. Redis Down: Reads fall back to the Repository (and L1)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@SpringJUnitConfig(ProductServiceCacheTest.TestConfig.class)
+@DirtiesContext
+public class ProductServiceCacheTest {
+
+    @Configuration
+    @EnableCaching
+    static class TestConfig {
+
+        @Bean(destroyMethod = "close")
+        public EmbeddedRedis embeddedRedis() {
+            return EmbeddedRedis.start();
+        }
+
+        @Bean
+        public TwoTierCacheManager cacheManager(EmbeddedRedis _redis) {
+            Map<String, CacheSpec> specs = new LinkedHashMap<String, CacheSpec>();
+            specs.put(CacheConfig.PRODUCT_CACHE, new CacheSpec(CacheConfig.PRODUCT_CACHE, Duration.ofSeconds(60))
+                    .local(1000, Duration.ofSeconds(60)));
+            specs.put(CacheConfig.PRODUCT_NOT_FOUND_CACHE, new CacheSpec(CacheConfig.PRODUCT_NOT_FOUND_CACHE,
+                    Duration.ofSeconds(60)).local(1000, Duration.ofSeconds(60)));
+            return _redis.cacheManager(specs, CacheConfig.binaryValueSerializer(CacheConfig.jsonValueSerializer()));
+        }
+
+        @Bean
+        public PrimaryReader primaryReader() {
+            return new PrimaryReader();
+        }
+
+        @Bean
+        public ProductService productService() {
+            return new ProductServiceImpl();
+        }
+    }
+
+    @MockBean
+    private ProductRepository productRepository;
+    @MockBean
+    private ServiceConfiguration serviceConfig;
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+    @MockBean
+    private EntityManagerFactory entityManagerFactory;
+    @MockBean
+    private ProductQueryCache productQueryCache;
+    @MockBean
+    private ProductBulkCache productBulkCache;
+    @MockBean
+    private ProductNameIndex productNameIndex;
+    @MockBean
+    private ProductPriceIndex productPriceIndex;
+    @MockBean
+    private ProductOutbox productOutbox;
+    @MockBean
+    private ProductPriceBuffer productPriceBuffer;
+
+    @Autowired
+    private EmbeddedRedis redis;
+    @Autowired
+    private TwoTierCacheManager cacheManager;
+    @Autowired
+    private ProductService productService;
+
+    private TwoTierCache productCache;
+    private TwoTierCache notFoundCache;
+
+    @BeforeEach
+    public void clearCaches() {
+        productCache = cacheManager.getTwoTierCache(CacheConfig.PRODUCT_CACHE);
+        notFoundCache = cacheManager.getTwoTierCache(CacheConfig.PRODUCT_NOT_FOUND_CACHE);
+        productCache.clear();
+        notFoundCache.clear();
+    }
+
+    @AfterEach
+    public void restartRedis() {
+        if(!redis.isRunning()) {
+            redis.restart();
+        }
+    }
+
+    @Test
+    public void hitsNeverReachTheRepository() {
+        UUID productId = UUID.randomUUID();
+        ProductEntity product = TestProducts.product(productId, new BigDecimal("10.50"));
+        when(productRepository.findById(productId)).thenReturn(Optional.of(product));
+
+        // Miss -> Repository
+        assertEquals(productId, productService.getProductById(productId).getUuid());
+        // L1 Hit
+        assertEquals(productId, productService.getProductById(productId).getUuid());
+        // L2 (Redis) Hit
+        productCache.clearLocal();
+        ProductEntity cached = productService.getProductById(productId);
+
+        assertNotSame(product, cached);
+        assertEquals(productId, cached.getUuid());
+        assertEquals(product.getVersion(), cached.getVersion());
+        assertEquals(0, product.getProductPrice().compareTo(cached.getProductPrice()));
+        verify(productRepository, times(1)).findById(productId);
+        assertTrue(productCache.getHits() >= 2, "L1 & L2 Hits are Counted");
+    }
+
+    @Test
+    public void notFoundIsRemembered() {
+        UUID productId = UUID.randomUUID();
+        when(productRepository.findById(productId)).thenReturn(Optional.empty());
+
+        assertThrows(DataNotFoundException.class, () -> productService.getProductById(productId));
+        assertThrows(DataNotFoundException.class, () -> productService.getProductById(productId));
+        // Tombstone in Redis as well
+        notFoundCache.clearLocal();
+        assertThrows(DataNotFoundException.class, () -> productService.getProductById(productId));
+
+        verify(productRepository, times(1)).findById(productId);
+    }
+
+    @Test
+    public void bufferedPriceIsPutInTheCache() {
+        UUID productId = UUID.randomUUID();
+        when(productRepository.findById(productId))
+                .thenReturn(Optional.of(TestProducts.product(productId, new BigDecimal("10.00"))));
+        when(productPriceBuffer.isEnabled()).thenReturn(true);
+        when(productPriceBuffer.put(eq(productId), any(BigDecimal.class))).thenReturn(true);
+
+        productService.updatePrice(TestProducts.product(productId, new BigDecimal("11.00")));
+        productService.updatePrice(TestProducts.product(productId, new BigDecimal("12.00")));
+
+        // Served from the Cache (L1 & L2) with the buffered Price, the Product is Loaded Once
+        assertEquals(0, new BigDecimal("12.00").compareTo(productService.getProductById(productId).getProductPrice()));
+        productCache.clearLocal();
+        assertEquals(0, new BigDecimal("12.00").compareTo(productService.getProductById(productId).getProductPrice()));
+        verify(productRepository, times(1)).findById(productId);
+        verify(productRepository, never()).saveAndFlush(any(ProductEntity.class));
+        // Catalog Version is Bumped when the Price is written (Price Buffer)
+        verify(productQueryCache, never()).bumpCatalogVersion();
+    }
+
+    @Test
+    public void redisDownFallsBackToTheRepository() {
+        UUID cachedId = UUID.randomUUID();
+        UUID productId = UUID.randomUUID();
+        when(productRepository.findById(cachedId))
+                .thenReturn(Optional.of(TestProducts.product(cachedId, BigDecimal.ONE)));
+        when(productRepository.findById(productId))
+                .thenReturn(Optional.of(TestProducts.product(productId, BigDecimal.TEN)));
+        productService.getProductById(cachedId);
+
+        redis.stop();
+
+        // L1 Hit (Redis is NOT needed)
+        assertEquals(cachedId, productService.getProductById(cachedId).getUuid());
+        // Miss -> Repository, then served from L1
+        assertEquals(productId, productService.getProductById(productId).getUuid());
+        assertEquals(productId, productService.getProductById(productId).getUuid());
+
+        verify(productRepository, times(1)).findById(cachedId);
+        verify(productRepository, times(1)).findById(productId);
+        assertTrue(productCache.getRemoteErrors() > 0, "Redis Failures are Counted");
+    }
+}
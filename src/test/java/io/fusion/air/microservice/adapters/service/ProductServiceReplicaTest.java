@@ -0,0 +1,257 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.adapters.service;
+
+import io.fusion.air.microservice.adapters.buffer.ProductPriceBuffer;
+import io.fusion.air.microservice.adapters.cache.ProductBulkCache;
+import io.fusion.air.microservice.adapters.cache.ProductQueryCache;
+import io.fusion.air.microservice.adapters.index.ProductNameIndex;
+import io.fusion.air.microservice.adapters.index.ProductPriceIndex;
+import io.fusion.air.microservice.adapters.outbox.ProductOutbox;
+import io.fusion.air.microservice.adapters.repository.ProductRepository;
+import io.fusion.air.microservice.domain.entities.example.TestProducts;
+import io.fusion.air.microservice.domain.ports.services.ProductService;
+import io.fusion.air.microservice.server.cache.CacheSpec;
+import io.fusion.air.microservice.server.cache.EmbeddedRedis;
+import io.fusion.air.microservice.server.cache.TwoTierCache;
+import io.fusion.air.microservice.server.cache.TwoTierCacheManager;
+import io.fusion.air.microservice.server.config.CacheConfig;
+import io.fusion.air.microservice.server.config.ServiceConfiguration;
+import io.fusion.air.microservice.server.db.PrimaryReader;
+import io.fusion.air.microservice.server.db.ReadWriteRoutingDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+/**
+ * Product Service - Reads through the Product Cache with a Lagging Replica
+ *
+ * Primary & Replica are two H2 In Memory Databases. The Replica is updated ONLY by the Test
+ * (Replication is NOT running), so it always has the Old Rows. The Products cached after an
+ * Update MUST be the Updated Rows (from the Primary).
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@SpringJUnitConfig(ProductServiceReplicaTest.TestConfig.class)
+@DirtiesContext
+public class ProductServiceReplicaTest {
+
+    private static final JdbcDataSource PRIMARY = h2("replicaTestPrimary");
+    private static final JdbcDataSource REPLICA = h2("replicaTestReplica");
+
+    private static final String INSERT_SQL = "INSERT INTO products_m (uuid, productName, productDetails, "
+            + "price, productLocationZipCode, isActive, version, createdBy, createdTime, updatedBy, updatedTime) "
+            + "VALUES (?, ?, ?, ?, ?, true, 0, 'Admin', ?, 'Admin', ?)";
+
+    @Configuration
+    @EnableCaching
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+    static class TestConfig {
+
+        @Bean(destroyMethod = "close")
+        public EmbeddedRedis embeddedRedis() {
+            return EmbeddedRedis.start();
+        }
+
+        @Bean
+        public TwoTierCacheManager cacheManager(EmbeddedRedis _redis) {
+            Map<String, CacheSpec> specs = new LinkedHashMap<String, CacheSpec>();
+            specs.put(CacheConfig.PRODUCT_CACHE, new CacheSpec(CacheConfig.PRODUCT_CACHE, Duration.ofSeconds(600))
+                    .local(1000, Duration.ofSeconds(600)));
+            specs.put(CacheConfig.PRODUCT_NOT_FOUND_CACHE, new CacheSpec(CacheConfig.PRODUCT_NOT_FOUND_CACHE,
+                    Duration.ofSeconds(60)).local(1000, Duration.ofSeconds(60)));
+            return _redis.cacheManager(specs, CacheConfig.binaryValueSerializer(CacheConfig.jsonValueSerializer()));
+        }
+
+        @Bean
+        public DataSource dataSource() {
+            // Schema on the Replica (the Primary Schema is created by the Entity Manager Factory)
+            LocalContainerEntityManagerFactoryBean replicaSchema = entityManagerFactoryBean(REPLICA);
+            replicaSchema.destroy();
+            return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(PRIMARY, REPLICA, 60_000));
+        }
+
+        @Bean
+        public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource _dataSource) {
+            return entityManagerFactoryBean(_dataSource);
+        }
+
+        @Bean
+        public PlatformTransactionManager transactionManager(EntityManagerFactory _entityManagerFactory) {
+            return new JpaTransactionManager(_entityManagerFactory);
+        }
+
+        @Bean
+        public PrimaryReader primaryReader() {
+            return new PrimaryReader();
+        }
+
+        @Bean
+        public ProductBulkCache productBulkCache() {
+            return new ProductBulkCache();
+        }
+
+        @Bean
+        public ProductService productService() {
+            return new ProductServiceImpl();
+        }
+    }
+
+    @MockBean
+    private ServiceConfiguration serviceConfig;
+    @MockBean
+    private ProductQueryCache productQueryCache;
+    @MockBean
+    private ProductNameIndex productNameIndex;
+    @MockBean
+    private ProductPriceIndex productPriceIndex;
+    @MockBean
+    private ProductOutbox productOutbox;
+    @MockBean
+    private ProductPriceBuffer productPriceBuffer;
+
+    @Autowired
+    private TwoTierCacheManager cacheManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductBulkCache productBulkCache;
+
+    private TwoTierCache productCache;
+    private UUID productId;
+
+    @BeforeEach
+    public void createProduct() {
+        when(serviceConfig.isDataSourceReplicaEnabled()).thenReturn(true);
+        when(serviceConfig.getDataSourceBatchSize()).thenReturn(50);
+        productCache = cacheManager.getTwoTierCache(CacheConfig.PRODUCT_CACHE);
+        productCache.clear();
+        cacheManager.getTwoTierCache(CacheConfig.PRODUCT_NOT_FOUND_CACHE).clear();
+
+        // Created and Replicated
+        productId = UUID.randomUUID();
+        insert(PRIMARY, productId, new BigDecimal("10.00"));
+        insert(REPLICA, productId, new BigDecimal("10.00"));
+    }
+
+    @Test
+    public void productCachedAfterTheUpdateIsFromThePrimary() {
+        assertEquals(0, new BigDecimal("10.00").compareTo(productService.getProductById(productId).getProductPrice()));
+
+        productService.updatePrice(TestProducts.product(productId, new BigDecimal("20.00")));
+
+        // Replica is Lagging
+        assertEquals(0, new BigDecimal("10.00").compareTo(price(REPLICA)));
+        // Miss (Evicted by the Update) is loaded from the Primary and cached
+        assertEquals(0, new BigDecimal("20.00").compareTo(productService.getProductById(productId).getProductPrice()));
+        productCache.clearLocal();
+        assertEquals(0, new BigDecimal("20.00").compareTo(productService.getProductById(productId).getProductPrice()));
+        assertEquals(1, productService.getProductById(productId).getVersion());
+    }
+
+    @Test
+    public void versionAfterTheUpdateIsFromThePrimary() {
+        productService.updatePrice(TestProducts.product(productId, new BigDecimal("20.00")));
+
+        assertEquals(0, version(REPLICA));
+        assertEquals(Integer.valueOf(1), productService.getProductVersion(productId));
+    }
+
+    @Test
+    public void bulkCacheMissesAreLoadedFromThePrimary() {
+        productService.updatePrice(TestProducts.product(productId, new BigDecimal("20.00")));
+
+        // Called from a Read Only Transaction (Routed to the Replica)
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        BigDecimal price = readOnly.execute(status ->
+                productBulkCache.getProducts(Collections.singletonList(productId)).get(0).getProductPrice());
+
+        assertEquals(0, new BigDecimal("20.00").compareTo(price));
+        // Cached by the Bulk Lookup
+        productCache.clearLocal();
+        assertEquals(0, new BigDecimal("20.00").compareTo(productService.getProductById(productId).getProductPrice()));
+    }
+
+    private static LocalContainerEntityManagerFactoryBean entityManagerFactoryBean(DataSource _dataSource) {
+        HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
+        vendorAdapter.setGenerateDdl(true);
+        vendorAdapter.setDatabasePlatform("org.hibernate.dialect.H2Dialect");
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setJpaVendorAdapter(vendorAdapter);
+        factory.setPackagesToScan("io.fusion.air.microservice.domain.*");
+        factory.setDataSource(_dataSource);
+        factory.afterPropertiesSet();
+        return factory;
+    }
+
+    private static JdbcDataSource h2(String _name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + _name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        return dataSource;
+    }
+
+    private static void insert(DataSource _dataSource, UUID _productId, BigDecimal _price) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        new JdbcTemplate(_dataSource).update(INSERT_SQL, _productId, "Product " + _productId, "Product Details",
+                _price, "12345", now, now);
+    }
+
+    private BigDecimal price(DataSource _dataSource) {
+        return new JdbcTemplate(_dataSource).queryForObject("SELECT price FROM products_m WHERE uuid = ?",
+                BigDecimal.class, productId);
+    }
+
+    private int version(DataSource _dataSource) {
+        return new JdbcTemplate(_dataSource).queryForObject("SELECT version FROM products_m WHERE uuid = ?",
+                Integer.class, productId);
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.domain.entities.example;
+
+import io.fusion.air.microservice.domain.entities.core.AbstractBaseEntity;
+import io.fusion.air.microservice.domain.entities.core.AbstractBaseEntityWithUUID;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Test Products - Product Entities as loaded from the Database (UUID, Version & Audit Log set)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class TestProducts {
+
+    private TestProducts() {
+    }
+
+    /**
+     * Create the Product (Active, Version 1)
+     * @param _productId
+     * @param _price
+     * @return
+     */
+    public static ProductEntity product(UUID _productId, BigDecimal _price) {
+        return product(_productId, "Product " + _productId.toString().substring(0, 8),
+                "Product Details of " + _productId, _price, "12345", 1);
+    }
+
+    /**
+     * Create the Product
+     * @param _productId
+     * @param _name
+     * @param _details
+     * @param _price
+     * @param _zipCode
+     * @param _version
+     * @return
+     */
+    public static ProductEntity product(UUID _productId, String _name, String _details, BigDecimal _price,
+                                        String _zipCode, int _version) {
+        ProductEntity product = new ProductEntity(_name, _details, _price, _zipCode);
+        product.initAudit();
+        set(AbstractBaseEntityWithUUID.class, product, "uuid", _productId);
+        set(AbstractBaseEntity.class, product, "version", _version);
+        return product;
+    }
+
+    private static void set(Class<?> _type, Object _target, String _field, Object _value) {
+        try {
+            Field field = _type.getDeclaredField(_field);
+            field.setAccessible(true);
+            field.set(_target, _value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to set the Field " + _field, e);
+        }
+    }
+}
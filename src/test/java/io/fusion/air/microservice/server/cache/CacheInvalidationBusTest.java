@@ -0,0 +1,215 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cache Invalidation Bus - Updates on one Node evict the Local (L1) Cache of the other Nodes
+ *
+ * Two Nodes (Spring Contexts) with their own L1 Caches share the Embedded Redis (L2) and the
+ * Embedded Kafka. The Bus is Flushed by the Tests (NO Scheduler).
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class CacheInvalidationBusTest {
+
+    private static final String TOPIC = "ms-cache.invalidation.test";
+    private static final int PARTITIONS = 1;
+    private static final String CACHE = "invalidationTest";
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+
+    private static EmbeddedKafkaBroker kafka;
+    private static EmbeddedRedis redis;
+    private static AnnotationConfigApplicationContext nodeA;
+    private static AnnotationConfigApplicationContext nodeB;
+
+    @BeforeAll
+    public static void startNodes() {
+        kafka = new EmbeddedKafkaBroker(1, true, PARTITIONS, TOPIC);
+        kafka.afterPropertiesSet();
+        redis = EmbeddedRedis.start();
+        nodeA = startNode("node-a");
+        nodeB = startNode("node-b");
+    }
+
+    @AfterAll
+    public static void stopNodes() {
+        nodeA.close();
+        nodeB.close();
+        redis.close();
+        kafka.destroy();
+    }
+
+    @Test
+    public void updateEvictsTheOtherNodes() {
+        TwoTierCache cacheA = cache(nodeA);
+        TwoTierCache cacheB = cache(nodeB);
+        // Loaded from the Source (NO Invalidation) and read by Node B (L2 -> L1)
+        cacheA.populate("product-1", "v1");
+        assertEquals("v1", cacheB.get("product-1").get());
+
+        cacheA.put("product-1", "v2");
+        // Node B serves its L1 till the Invalidation is Published
+        assertEquals("v1", cacheB.get("product-1").get());
+
+        bus(nodeA).flush();
+        await().atMost(TIMEOUT).until(() -> "v2".equals(cacheB.get("product-1").get()));
+        assertEquals(0, bus(nodeA).getSendFailures());
+    }
+
+    @Test
+    public void evictionAndClearEvictTheOtherNodes() {
+        TwoTierCache cacheA = cache(nodeA);
+        TwoTierCache cacheB = cache(nodeB);
+        cacheA.populate("product-2", "v1");
+        cacheA.populate("product-3", "v1");
+        cacheB.get("product-2");
+        cacheB.get("product-3");
+
+        cacheA.evict("product-2");
+        bus(nodeA).flush();
+        await().atMost(TIMEOUT).until(() -> cacheB.get("product-2") == null);
+        assertEquals("v1", cacheB.get("product-3").get());
+
+        // Clear on Node B (L1 & L2), Node A serves its L1 till the Invalidation is Published
+        cacheB.clear();
+        assertEquals("v1", cacheA.get("product-3").get());
+        bus(nodeB).flush();
+        await().atMost(TIMEOUT).until(() -> cacheA.get("product-3") == null);
+    }
+
+    @Test
+    public void ownInvalidationsAreIgnored() {
+        TwoTierCache cacheA = cache(nodeA);
+        TwoTierCache cacheB = cache(nodeB);
+        cacheA.put("product-4", "v1");
+        cacheA.populate("marker-4", "m1");
+        bus(nodeA).flush();
+
+        // Published after the Invalidation of Node A (Single Partition = Same Order on Node A)
+        cacheB.put("marker-4", "m2");
+        bus(nodeB).flush();
+        await().atMost(TIMEOUT).until(() -> "m2".equals(cacheA.get("marker-4").get()));
+
+        // Own Invalidation was Consumed before the Marker and the Value is still in L1
+        long localHits = cacheA.getLocalHits();
+        assertEquals("v1", cacheA.get("product-4").get());
+        assertEquals(localHits + 1, cacheA.getLocalHits());
+    }
+
+    /**
+     * Start the Node (Spring Context) with the Bus, its own Cache Manager (L1) and Kafka Clients.
+     * Returns after the Invalidation Listener is Assigned the Topic Partitions.
+     * @param _instanceId
+     * @return
+     */
+    private static AnnotationConfigApplicationContext startNode(String _instanceId) {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("cache.invalidation.enabled", "true");
+        properties.put("cache.invalidation.topic", TOPIC);
+        properties.put("cache.invalidation.instance-id", _instanceId);
+        properties.put("service.name", "ms-cache-test");
+        properties.put("spring.kafka.bootstrap-servers", kafka.getBrokersAsString());
+
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("node", properties));
+        context.registerBean(TwoTierCacheManager.class, () -> redis.cacheManager(null));
+        context.register(KafkaNodeConfig.class, CacheInvalidationBus.class);
+        context.refresh();
+        for(MessageListenerContainer container : context.getBean(KafkaListenerEndpointRegistry.class)
+                .getListenerContainers()) {
+            ContainerTestUtils.waitForAssignment(container, PARTITIONS);
+        }
+        return context;
+    }
+
+    private static TwoTierCache cache(AnnotationConfigApplicationContext _node) {
+        return _node.getBean(TwoTierCacheManager.class).getTwoTierCache(CACHE);
+    }
+
+    private static CacheInvalidationBus bus(AnnotationConfigApplicationContext _node) {
+        return _node.getBean(CacheInvalidationBus.class);
+    }
+
+    /**
+     * Kafka Producer & Consumer of a Node
+     */
+    @Configuration
+    @EnableKafka
+    static class KafkaNodeConfig {
+
+        @Value("${spring.kafka.bootstrap-servers}")
+        private String bootstrapServers;
+
+        @Bean
+        public KafkaTemplate<String, String> kafkaTemplate() {
+            Map<String, Object> config = new HashMap<String, Object>();
+            config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+            config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+            config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+            return new KafkaTemplate<String, String>(new DefaultKafkaProducerFactory<String, String>(config));
+        }
+
+        @Bean
+        public ConsumerFactory<String, String> consumerFactory() {
+            Map<String, Object> config = new HashMap<String, Object>();
+            config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+            config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+            config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+            return new DefaultKafkaConsumerFactory<String, String>(config);
+        }
+
+        @Bean
+        public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory(
+                ConsumerFactory<String, String> _consumerFactory) {
+            ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                    new ConcurrentKafkaListenerContainerFactory<String, String>();
+            factory.setConsumerFactory(_consumerFactory);
+            return factory;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import io.fusion.air.microservice.domain.entities.example.ProductEntity;
+import io.fusion.air.microservice.domain.entities.example.TestProducts;
+import io.fusion.air.microservice.server.config.CacheConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache Value Serializer Benchmark - Compact Binary vs Jackson (JSON with Type Info)
+ *
+ * Value = 1 Product (Product Cache) or a List of Products (Query Cache). The Size of the
+ * Serialized Values is printed at the Setup.
+ *
+ * Run: main() (or org.openjdk.jmh.Main CacheSerializerBenchmark with the Test Class Path)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    @Param({ "1", "50" })
+    private int products;
+
+    private GenericJackson2JsonRedisSerializer json;
+    private CompactBinaryRedisSerializer binary;
+
+    private Object value;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setup() {
+        json = CacheConfig.jsonValueSerializer();
+        binary = CacheConfig.binaryValueSerializer(json);
+        List<ProductEntity> list = new ArrayList<ProductEntity>(products);
+        for(int x=0; x<products; x++) {
+            list.add(TestProducts.product(UUID.randomUUID(), "Product Name " + x,
+                    "Product Details of the Product " + x, new BigDecimal(x * 10 + ".99"), "12345", x + 1));
+        }
+        value = (products == 1) ? list.get(0) : list;
+        jsonBytes = json.serialize(value);
+        binaryBytes = binary.serialize(value);
+        System.out.printf("%nProducts = %d : JSON = %d bytes, Binary = %d bytes (%.1f%%)%n",
+                products, jsonBytes.length, binaryBytes.length, 100.0 * binaryBytes.length / jsonBytes.length);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return json.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return binary.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserializeJson() {
+        return json.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public Object deserializeBinary() {
+        return binary.deserialize(binaryBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CacheSerializerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
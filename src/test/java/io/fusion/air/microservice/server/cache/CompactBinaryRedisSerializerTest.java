@@ -0,0 +1,93 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import io.fusion.air.microservice.domain.entities.example.ProductEntity;
+import io.fusion.air.microservice.domain.entities.example.TestProducts;
+import io.fusion.air.microservice.server.config.CacheConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compact Binary Serializer - Round Trip of the Registered Types and the JSON Fall Back
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class CompactBinaryRedisSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json = CacheConfig.jsonValueSerializer();
+    private final CompactBinaryRedisSerializer binary = CacheConfig.binaryValueSerializer(json);
+
+    @Test
+    public void productEntityRoundTrip() {
+        ProductEntity product = TestProducts.product(UUID.randomUUID(), new BigDecimal("1234.50"));
+
+        ProductEntity copy = (ProductEntity) binary.deserialize(binary.serialize(product));
+
+        assertEquals(product.getUuid(), copy.getUuid());
+        assertEquals(product.getVersion(), copy.getVersion());
+        assertEquals(product.isActive(), copy.isActive());
+        assertEquals(product.getProductName(), copy.getProductName());
+        assertEquals(product.getProductDetails(), copy.getProductDetails());
+        assertEquals(product.getProductPrice(), copy.getProductPrice());
+        assertEquals(product.getProductLocationZipCode(), copy.getProductLocationZipCode());
+        assertEquals(product.getAuditLog().getCreatedTime(), copy.getAuditLog().getCreatedTime());
+        assertEquals(product.getAuditLog().getUpdatedBy(), copy.getAuditLog().getUpdatedBy());
+    }
+
+    @Test
+    public void binaryIsSmallerThanJson() {
+        ProductEntity product = TestProducts.product(UUID.randomUUID(), new BigDecimal("99.99"));
+
+        int binarySize = binary.serialize(product).length;
+        int jsonSize = json.serialize(product).length;
+
+        assertTrue(binarySize * 2 < jsonSize, "Binary = " + binarySize + " JSON = " + jsonSize);
+    }
+
+    @Test
+    public void builtInTypesRoundTrip() {
+        UUID productId = UUID.randomUUID();
+        ArrayList<UUID> ids = new ArrayList<UUID>(Arrays.asList(productId, UUID.randomUUID()));
+
+        assertEquals(productId, binary.deserialize(binary.serialize(productId)));
+        assertEquals(Boolean.TRUE, binary.deserialize(binary.serialize(Boolean.TRUE)));
+        assertEquals(ids, binary.deserialize(binary.serialize(ids)));
+        assertEquals(new BigDecimal("-0.001"), binary.deserialize(binary.serialize(new BigDecimal("-0.001"))));
+    }
+
+    @Test
+    public void jsonValuesAreReadByTheBinarySerializer() {
+        ProductEntity product = TestProducts.product(UUID.randomUUID(), BigDecimal.TEN);
+
+        // Values written before the Binary Serializer was enabled
+        Object copy = binary.deserialize(json.serialize(product));
+
+        assertInstanceOf(ProductEntity.class, copy);
+        assertEquals(product.getUuid(), ((ProductEntity) copy).getUuid());
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Embedded Redis for the Cache Tests (Random Free Port)
+ *
+ * The Redis Server can be Stopped & Restarted to test the Redis Outages. Commands Time out
+ * in 500 ms when Redis is down.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public final class EmbeddedRedis implements AutoCloseable {
+
+    public static final Duration COMMAND_TIMEOUT = Duration.ofMillis(500);
+
+    private final int port;
+    private final RedisServer server;
+    private LettuceConnectionFactory connectionFactory;
+
+    private EmbeddedRedis(int _port) {
+        this.port   = _port;
+        this.server = RedisServer.builder().port(_port).setting("maxmemory 64M").build();
+    }
+
+    /**
+     * Start Redis on a Free Port
+     * @return
+     */
+    public static EmbeddedRedis start() {
+        EmbeddedRedis redis = new EmbeddedRedis(freePort());
+        redis.server.start();
+        return redis;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Stop the Redis Server (Redis Outage). The Connection Factory is NOT closed.
+     */
+    public void stop() {
+        server.stop();
+    }
+
+    /**
+     * Start the Redis Server again (Same Port) and wait till the Client is Reconnected
+     */
+    public void restart() {
+        server.start();
+        long deadline = System.currentTimeMillis() + 30_000;
+        while(!ping()) {
+            if(System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Redis Client NOT Reconnected on Port " + port);
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns True if the Redis Server is Running
+     * @return
+     */
+    public boolean isRunning() {
+        return server.isActive();
+    }
+
+    /**
+     * Returns True if the Client can reach Redis
+     * @return
+     */
+    private boolean ping() {
+        try (RedisConnection connection = connectionFactory().getConnection()) {
+            return "PONG".equals(connection.ping());
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Connection Factory (Lettuce) of this Redis
+     * @return
+     */
+    public synchronized LettuceConnectionFactory connectionFactory() {
+        if(connectionFactory == null) {
+            LettuceConnectionFactory factory = new LettuceConnectionFactory(
+                    new RedisStandaloneConfiguration("localhost", port),
+                    LettuceClientConfiguration.builder().commandTimeout(COMMAND_TIMEOUT).build());
+            factory.afterPropertiesSet();
+            connectionFactory = factory;
+        }
+        return connectionFactory;
+    }
+
+    /**
+     * Two Tier Cache Manager on this Redis (JDK Serializer, Refresh Ahead Disabled)
+     * @param _specs Cache Specs (Default = 60 Seconds, 1000 Local Entries)
+     * @return
+     */
+    public TwoTierCacheManager cacheManager(Map<String, CacheSpec> _specs) {
+        return cacheManager(_specs, null);
+    }
+
+    /**
+     * Two Tier Cache Manager on this Redis (Refresh Ahead Disabled)
+     * @param _specs Cache Specs (Default = 60 Seconds, 1000 Local Entries)
+     * @param _valueSerializer Redis Value Serializer (null = JDK Serializer)
+     * @return
+     */
+    public TwoTierCacheManager cacheManager(Map<String, CacheSpec> _specs, RedisSerializer<Object> _valueSerializer) {
+        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofSeconds(60));
+        if(_valueSerializer != null) {
+            config = config.serializeValuesWith(SerializationPair.fromSerializer(_valueSerializer));
+        }
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory())
+                .cacheDefaults(config)
+                .build();
+        redisCacheManager.afterPropertiesSet();
+        CacheSpec defaultSpec = new CacheSpec("default", Duration.ofSeconds(60))
+                .local(1000, Duration.ofSeconds(60));
+        Executor direct = Runnable::run;
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(redisCacheManager,
+                (_specs != null) ? _specs : Collections.<String, CacheSpec>emptyMap(),
+                defaultSpec, direct, new RedisBulkOperations(connectionFactory()));
+        cacheManager.afterPropertiesSet();
+        return cacheManager;
+    }
+
+    @Override
+    public synchronized void close() {
+        if(connectionFactory != null) {
+            connectionFactory.destroy();
+            connectionFactory = null;
+        }
+        if(server.isActive()) {
+            server.stop();
+        }
+    }
+
+    /**
+     * Returns a Free Local Port
+     * @return
+     */
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            socket.setReuseAddress(true);
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException("No Free Port for the Embedded Redis", e);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two Tier Cache - A Value Reloaded (Refresh Ahead) or Loaded while the Key is Evicted / Updated
+ * is NOT left in the Cache (it may have been read before the Update).
+ *
+ * The Test Cache Manager runs the Refresh on the Calling Thread, so the Reads are done on a
+ * separate Thread and the Loader waits till the Key is Evicted.
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class TwoTierCacheRefreshTest {
+
+    private static final String CACHE = "refreshTest";
+    private static final String KEY = "product-1";
+
+    private static EmbeddedRedis redis;
+
+    private TwoTierCache cache;
+    private ExecutorService executor;
+
+    @BeforeAll
+    public static void startRedis() {
+        redis = EmbeddedRedis.start();
+    }
+
+    @AfterAll
+    public static void stopRedis() {
+        redis.close();
+    }
+
+    @BeforeEach
+    public void createCache() {
+        // Refresh after 20 ms, Expires after 2 Seconds
+        CacheSpec spec = new CacheSpec(CACHE, Duration.ofSeconds(2))
+                .local(1000, Duration.ofSeconds(2))
+                .refreshAhead(0.01, Duration.ofSeconds(10));
+        cache = redis.cacheManager(Collections.singletonMap(CACHE, spec)).getTwoTierCache(CACHE);
+        cache.clear();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void refreshEvictedWhileReloadingIsNotCached() throws Exception {
+        cache.get(KEY, () -> "v1");
+        Thread.sleep(50);
+
+        CountDownLatch reloading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        Future<String> read = executor.submit(() -> cache.get(KEY, () -> {
+            reloading.countDown();
+            assertTrue(evicted.await(10, TimeUnit.SECONDS));
+            // Read before the Update
+            return "v1-stale";
+        }));
+        assertTrue(reloading.await(10, TimeUnit.SECONDS));
+        cache.evict(KEY);
+        evicted.countDown();
+
+        // Current Value is served while Reloading
+        assertEquals("v1", read.get(10, TimeUnit.SECONDS));
+        assertEquals(0, cache.getInFlightLoads());
+        assertNull(cache.get(KEY));
+        // NOT in Redis either
+        cache.clearLocal();
+        assertNull(cache.get(KEY));
+        assertEquals("v2", cache.get(KEY, () -> "v2"));
+    }
+
+    @Test
+    public void refreshUpdatedWhileReloadingIsNotCached() throws Exception {
+        cache.get(KEY, () -> "v1");
+        Thread.sleep(50);
+
+        CountDownLatch reloading = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+        Future<String> read = executor.submit(() -> cache.get(KEY, () -> {
+            reloading.countDown();
+            assertTrue(updated.await(10, TimeUnit.SECONDS));
+            return "v1-stale";
+        }));
+        assertTrue(reloading.await(10, TimeUnit.SECONDS));
+        cache.put(KEY, "v2");
+        updated.countDown();
+
+        assertEquals("v1", read.get(10, TimeUnit.SECONDS));
+        assertNotEquals("v1-stale", cache.get(KEY, () -> "v2"));
+        cache.clearLocal();
+        assertNotEquals("v1-stale", cache.get(KEY, () -> "v2"));
+    }
+
+    @Test
+    public void loadEvictedWhileLoadingIsNotCached() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        Future<String> read = executor.submit(() -> cache.get(KEY, () -> {
+            loading.countDown();
+            assertTrue(evicted.await(10, TimeUnit.SECONDS));
+            return "v1-stale";
+        }));
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        cache.evict(KEY);
+        evicted.countDown();
+
+        // The Caller gets what it Loaded, but it's NOT Cached
+        assertEquals("v1-stale", read.get(10, TimeUnit.SECONDS));
+        assertNull(cache.get(KEY));
+        cache.clearLocal();
+        assertNull(cache.get(KEY));
+    }
+
+    @Test
+    public void refreshWithoutEvictionIsCached() throws Exception {
+        cache.get(KEY, () -> "v1");
+        Thread.sleep(50);
+
+        assertEquals("v1", executor.submit(() -> cache.get(KEY, () -> "v2")).get(10, TimeUnit.SECONDS));
+        assertEquals(1, cache.getRefreshes());
+        assertEquals("v2", cache.get(KEY));
+        cache.clearLocal();
+        assertEquals("v2", cache.get(KEY));
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two Tier Cache - Reads with Redis Stopped fall back to L1 / the Value Loader
+ * (@Cacheable(sync = true) bypasses the CacheErrorHandler)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class TwoTierCacheRemoteFailureTest {
+
+    private static EmbeddedRedis redis;
+
+    private TwoTierCache cache;
+
+    @BeforeAll
+    public static void startRedis() {
+        redis = EmbeddedRedis.start();
+    }
+
+    @AfterAll
+    public static void stopRedis() {
+        redis.close();
+    }
+
+    @BeforeEach
+    public void createCache() {
+        cache = redis.cacheManager(null).getTwoTierCache("remoteFailureTest");
+        cache.clear();
+    }
+
+    @AfterEach
+    public void restartRedis() {
+        if(!redis.isRunning()) {
+            redis.restart();
+        }
+    }
+
+    @Test
+    public void loaderIsCalledWhenRedisIsDown() {
+        redis.stop();
+        AtomicInteger loads = new AtomicInteger();
+        String value = cache.get("product-1", () -> "loaded-" + loads.incrementAndGet());
+
+        assertEquals("loaded-1", value);
+        assertEquals(1, loads.get());
+        assertTrue(cache.getRemoteErrors() >= 2, "Remote Get & Put Failures are Counted");
+    }
+
+    @Test
+    public void localValueIsServedWhenRedisIsDown() {
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals("loaded-1", cache.get("product-2", () -> "loaded-" + loads.incrementAndGet()));
+        redis.stop();
+
+        assertEquals("loaded-1", cache.get("product-2", () -> "loaded-" + loads.incrementAndGet()));
+        assertEquals(1, loads.get(), "L1 Hit - Loader NOT called");
+        assertEquals("loaded-1", cache.get("product-2", String.class));
+    }
+
+    @Test
+    public void lookupWithoutLoaderIsAMissWhenRedisIsDown() {
+        redis.stop();
+        assertNull(cache.get("product-3"));
+        assertTrue(cache.getRemoteErrors() >= 1);
+    }
+
+    @Test
+    public void bulkReadsAreMissesWhenRedisIsDown() {
+        redis.stop();
+        Map<Object, Object> values = cache.getAll(Arrays.asList("product-4", "product-5"));
+        assertTrue(values.isEmpty());
+
+        cache.populateAll(Collections.singletonMap("product-4", "loaded"));
+        assertEquals(Collections.singletonMap("product-4", "loaded"),
+                cache.getAll(Collections.singletonList("product-4")), "Populated in L1");
+    }
+
+    @Test
+    public void remoteIsUsedAgainAfterRedisRestarts() {
+        redis.stop();
+        assertEquals("loaded", cache.get("product-6", () -> "loaded"));
+        redis.restart();
+        cache.clearLocal();
+
+        assertEquals("reloaded", cache.get("product-6", () -> "reloaded"), "Value was NOT stored in Redis");
+        cache.clearLocal();
+        assertEquals("reloaded", cache.get("product-6", () -> "NOT expected"), "Served from Redis");
+    }
+}
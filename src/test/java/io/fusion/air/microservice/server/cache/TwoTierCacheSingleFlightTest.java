@@ -0,0 +1,184 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.cache;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two Tier Cache - Concurrent Misses of the same Key are Loaded Once (Single Flight)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class TwoTierCacheSingleFlightTest {
+
+    private static final int THREADS = 16;
+
+    private static EmbeddedRedis redis;
+
+    private TwoTierCache cache;
+    private ExecutorService executor;
+
+    @BeforeAll
+    public static void startRedis() {
+        redis = EmbeddedRedis.start();
+    }
+
+    @AfterAll
+    public static void stopRedis() {
+        redis.close();
+    }
+
+    @BeforeEach
+    public void createCache() {
+        cache = redis.cacheManager(null).getTwoTierCache("singleFlightTest");
+        cache.clear();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentMissesAreLoadedOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = getConcurrently("product-1", () -> {
+            loads.incrementAndGet();
+            release.await();
+            return "loaded";
+        });
+        // All the other Callers are waiting for the Load In Flight
+        awaitCoalesced(THREADS - 1);
+        release.countDown();
+
+        for(Future<String> result : results) {
+            assertEquals("loaded", result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getLoads());
+        assertEquals(THREADS - 1, cache.getCoalescedLoads());
+        assertEquals(0, cache.getInFlightLoads());
+        // Cached for the next Callers
+        assertEquals("loaded", cache.get("product-1", () -> "reloaded"));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void loadFailureIsGivenToAllTheCallers() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = getConcurrently("product-2", () -> {
+            loads.incrementAndGet();
+            release.await();
+            throw new IllegalStateException("Database Down");
+        });
+        awaitCoalesced(THREADS - 1);
+        release.countDown();
+
+        for(Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(Cache.ValueRetrievalException.class, e.getCause());
+            assertInstanceOf(IllegalStateException.class, e.getCause().getCause());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getLoadFailures());
+        assertEquals(0, cache.getInFlightLoads());
+        // Failures are NOT cached, the next Caller loads again
+        assertNull(cache.get("product-2"));
+        assertEquals("loaded", cache.get("product-2", () -> "loaded"));
+    }
+
+    @Test
+    public void differentKeysAreLoadedInParallel() throws Exception {
+        CountDownLatch bothLoading = new CountDownLatch(2);
+        Future<String> first = executor.submit(() -> cache.get("product-3", () -> {
+            bothLoading.countDown();
+            assertTrue(bothLoading.await(10, TimeUnit.SECONDS), "Loads of different Keys are NOT serialized");
+            return "three";
+        }));
+        Future<String> second = executor.submit(() -> cache.get("product-4", () -> {
+            bothLoading.countDown();
+            assertTrue(bothLoading.await(10, TimeUnit.SECONDS), "Loads of different Keys are NOT serialized");
+            return "four";
+        }));
+
+        assertEquals("three", first.get(15, TimeUnit.SECONDS));
+        assertEquals("four", second.get(15, TimeUnit.SECONDS));
+        assertEquals(2, cache.getLoads());
+        assertEquals(0, cache.getCoalescedLoads());
+    }
+
+    /**
+     * Get the Key from all the Threads at the same time
+     * @param _key
+     * @param _loader
+     * @return
+     */
+    private List<Future<String>> getConcurrently(String _key, Callable<String> _loader) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<Future<String>>(THREADS);
+        for(int x=0; x<THREADS; x++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return cache.get(_key, _loader);
+            }));
+        }
+        start.countDown();
+        return results;
+    }
+
+    /**
+     * Wait till the Callers are waiting for the Load In Flight
+     * @param _callers
+     * @throws InterruptedException
+     */
+    private void awaitCoalesced(int _callers) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while(cache.getCoalescedLoads() < _callers) {
+            assertTrue(System.currentTimeMillis() < deadline,
+                    "Coalesced Loads = " + cache.getCoalescedLoads() + " Expected = " + _callers);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.server.db;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Read / Write Routing DataSource - Routing & the Replica Fall Back (Two H2 In Memory Databases,
+ * the Node Table has the Name of the Database)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private static final long RETRY_INTERVAL = 200;
+
+    private DataSource primary;
+    private SwitchableDataSource replica;
+    private ReadWriteRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    public void createDataSources() {
+        primary = h2(ReadWriteRoutingDataSource.PRIMARY);
+        replica = new SwitchableDataSource(h2(ReadWriteRoutingDataSource.REPLICA));
+        route(replica);
+    }
+
+    @AfterEach
+    public void closeDataSources() {
+        new JdbcTemplate(primary).execute("SHUTDOWN");
+        new JdbcTemplate(replica.getTargetDataSource()).execute("SHUTDOWN");
+    }
+
+    @Test
+    public void readOnlyTransactionsReadFromTheReplica() {
+        assertEquals(ReadWriteRoutingDataSource.REPLICA, readOnly.execute(status -> node()));
+    }
+
+    @Test
+    public void readWriteTransactionsUseThePrimary() {
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, readWrite.execute(status -> node()));
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, node(), "No Transaction = Primary");
+    }
+
+    @Test
+    public void readsFallBackToThePrimaryWhenTheReplicaIsDown() {
+        replica.down = true;
+
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, readOnly.execute(status -> node()));
+        assertTrue(routingDataSource.isReplicaDown());
+        int attempts = replica.attempts;
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, readOnly.execute(status -> node()));
+        assertEquals(attempts, replica.attempts, "Replica is NOT tried again within the Retry Interval");
+    }
+
+    @Test
+    public void replicaIsTriedAgainAfterTheRetryInterval() throws InterruptedException {
+        replica.down = true;
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, readOnly.execute(status -> node()));
+
+        replica.down = false;
+        Thread.sleep(RETRY_INTERVAL + 50);
+
+        assertFalse(routingDataSource.isReplicaDown());
+        assertEquals(ReadWriteRoutingDataSource.REPLICA, readOnly.execute(status -> node()));
+    }
+
+    @Test
+    public void allReadsUseThePrimaryWithoutAReplica() {
+        route(null);
+
+        assertFalse(routingDataSource.hasReplica());
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, readOnly.execute(status -> node()));
+    }
+
+    /**
+     * Route the Connections (Lazy Connection Proxy, same as the JPA Config)
+     * @param _replica
+     */
+    private void route(DataSource _replica) {
+        routingDataSource = new ReadWriteRoutingDataSource(primary, _replica, RETRY_INTERVAL);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    /**
+     * Returns the Name of the Database serving the Query
+     * @return
+     */
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    /**
+     * In Memory H2 Database with the Node Table
+     * @param _name
+     * @return
+     */
+    private static DataSource h2(String _name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + _name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE node (name VARCHAR(32))");
+        jdbc.update("INSERT INTO node (name) VALUES (?)", _name);
+        return dataSource;
+    }
+
+    /**
+     * Replica which can be taken Down (Connections are refused)
+     */
+    private static final class SwitchableDataSource extends DelegatingDataSource {
+
+        private volatile boolean down;
+        private volatile int attempts;
+
+        private SwitchableDataSource(DataSource _dataSource) {
+            super(_dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            attempts++;
+            if(down) {
+                throw new SQLException("Replica is Down");
+            }
+            return super.getConnection();
+        }
+    }
+}
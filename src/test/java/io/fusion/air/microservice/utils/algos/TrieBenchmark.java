@@ -0,0 +1,250 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.utils.algos;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trie Benchmark - Radix Trie (Copy On Write, Weighted Top K) vs the Previous Trie (TreeMap
+ * per Char, NOT Thread Safe). Product Names are generated from a fixed Seed.
+ *
+ * Build = Insert all the Product Names, Search = Exact Word, Complete = Top 10 for a 3 Char
+ * Prefix. The Footprint of the Radix Trie is printed at the Setup.
+ *
+ * Run: main() (or org.openjdk.jmh.Main TrieBenchmark with the Test Class Path)
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrieBenchmark {
+
+    private static final String[] SYLLABLES = { "ka", "ro", "mi", "tex", "lan", "por", "si", "vel",
+            "dor", "an", "quo", "zen", "bel", "tri", "mo", "pra" };
+
+    @Param({ "10000", "100000" })
+    private int words;
+
+    private String[] names;
+    private String[] prefixes;
+    private Trie<Integer> trie;
+    private LegacyTrie<Integer> legacyTrie;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        names = new String[words];
+        prefixes = new String[1024];
+        for(int x=0; x<words; x++) {
+            StringBuilder name = new StringBuilder();
+            int parts = 2 + random.nextInt(4);
+            for(int p=0; p<parts; p++) {
+                name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+                if(p == 1) {
+                    name.append(' ');
+                }
+            }
+            names[x] = name.toString();
+        }
+        for(int x=0; x<prefixes.length; x++) {
+            prefixes[x] = names[random.nextInt(words)].substring(0, 3);
+        }
+        trie = build();
+        legacyTrie = buildLegacy();
+        System.out.println("Radix Trie Footprint = " + trie.footprint());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Trie<Integer> buildRadix() {
+        return build();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public LegacyTrie<Integer> buildLegacyTrie() {
+        return buildLegacy();
+    }
+
+    @Benchmark
+    public boolean searchRadix() {
+        return trie.search(names[nextIndex(names.length)]);
+    }
+
+    @Benchmark
+    public boolean searchLegacy() {
+        return legacyTrie.search(names[nextIndex(names.length)]);
+    }
+
+    @Benchmark
+    public List<Integer> completeRadix() {
+        return trie.complete(prefixes[nextIndex(prefixes.length)], 10);
+    }
+
+    @Benchmark
+    public List<Integer> completeLegacy() {
+        return legacyTrie.complete(prefixes[nextIndex(prefixes.length)], 10);
+    }
+
+    /**
+     * Lock Free Reads (Radix Trie ONLY, the Legacy Trie is NOT Thread Safe)
+     */
+    @Benchmark
+    @Threads(4)
+    public void completeRadixConcurrent(Reader _reader, Blackhole _blackhole) {
+        _reader.next = (_reader.next + 1) & (prefixes.length - 1);
+        _blackhole.consume(trie.complete(prefixes[_reader.next], 10));
+    }
+
+    private Trie<Integer> build() {
+        Trie<Integer> radix = new Trie<Integer>();
+        for(int x=0; x<names.length; x++) {
+            radix.insert(names[x], x, x);
+        }
+        return radix;
+    }
+
+    private LegacyTrie<Integer> buildLegacy() {
+        LegacyTrie<Integer> legacy = new LegacyTrie<Integer>();
+        for(int x=0; x<names.length; x++) {
+            legacy.insert(names[x], x);
+        }
+        return legacy;
+    }
+
+    private int nextIndex(int _size) {
+        next = (next + 1) % _size;
+        return next;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TrieBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * Prefix Index of the Reader Thread
+     */
+    @State(Scope.Thread)
+    public static class Reader {
+        private int next = (int) (Thread.currentThread().getId() * 31);
+    }
+
+    /**
+     * Previous Trie (Baseline) - TreeMap of Children per Char, Values in Insertion Order
+     */
+    public static final class LegacyTrie<V> {
+
+        private final Node<V> root = new Node<V>();
+
+        void insert(String word, V value) {
+            Node<V> node = root;
+            for (char c : word.toCharArray()) {
+                node = node.children.computeIfAbsent(c, k -> new Node<V>());
+            }
+            node.isEndOfWord = true;
+            if (value != null) {
+                if (node.values == null) {
+                    node.values = new LinkedHashSet<V>();
+                }
+                node.values.add(value);
+            }
+        }
+
+        boolean search(String word) {
+            Node<V> node = find(word);
+            return node != null && node.isEndOfWord;
+        }
+
+        List<V> complete(String prefix, int limit) {
+            Node<V> node = find(prefix);
+            if (node == null || limit <= 0) {
+                return Collections.emptyList();
+            }
+            List<V> values = new ArrayList<V>(Math.min(limit, 16));
+            Deque<Node<V>> queue = new ArrayDeque<Node<V>>();
+            queue.add(node);
+            while (!queue.isEmpty()) {
+                Node<V> current = queue.poll();
+                if (current.values != null) {
+                    for (V value : current.values) {
+                        values.add(value);
+                        if (values.size() >= limit) {
+                            return values;
+                        }
+                    }
+                }
+                queue.addAll(current.children.values());
+            }
+            return values;
+        }
+
+        private Node<V> find(String prefix) {
+            Node<V> node = root;
+            for (char c : prefix.toCharArray()) {
+                node = node.children.get(c);
+                if (node == null) {
+                    return null;
+                }
+            }
+            return node;
+        }
+
+        private static final class Node<V> {
+            private final Map<Character, Node<V>> children = new TreeMap<Character, Node<V>>();
+            private boolean isEndOfWord;
+            private Set<V> values;
+        }
+    }
+}
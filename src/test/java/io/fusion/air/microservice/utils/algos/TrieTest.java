@@ -0,0 +1,160 @@
+/**
+ * (C) Copyright 2023 Araf Karsh Hamid
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.fusion.air.microservice.utils.algos;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Trie - Search, Prefix, Unicode Case Folding, Weighted Completion, Remove and Concurrent Reads
+ *
+ * @author: Araf Karsh Hamid
+ * @version:
+ * @date:
+ */
+public class TrieTest {
+
+    @Test
+    public void searchAndPrefix() {
+        Trie<String> trie = new Trie<String>();
+        trie.insert("apple");
+
+        assertTrue(trie.search("apple"));
+        assertFalse(trie.search("app"));
+        assertTrue(trie.startsWith("app"));
+
+        trie.insert("app");
+        assertTrue(trie.search("app"));
+        assertFalse(trie.startsWith("apples"));
+    }
+
+    @Test
+    public void completionIsCaseInsensitive() {
+        Trie<String> trie = new Trie<String>();
+        trie.insert("Apple Pie", "P1");
+        trie.insert("apple juice", "P2");
+
+        // Same Weight = Shortest Word First
+        assertEquals(Arrays.asList("P1", "P2"), trie.complete("APPLE", 10));
+        assertEquals(Collections.singletonList("P1"), trie.complete("apple", 1));
+        assertEquals(Collections.emptyList(), trie.complete("banana", 10));
+    }
+
+    @Test
+    public void completionIsOrderedByWeight() {
+        Trie<String> trie = new Trie<String>();
+        trie.insert("Apple Pie", "P1");
+        trie.insert("apple juice", "P2");
+        trie.addWeight("apple juice", "P2", 5);
+
+        assertEquals(Arrays.asList("P2", "P1"), trie.complete("apple", 10));
+
+        trie.insert("apple pie", "P1", 10);
+        assertEquals(Arrays.asList("P1", "P2"), trie.complete("apple", 10));
+    }
+
+    @Test
+    public void unicodeWordsAreCaseFolded() {
+        Trie<String> trie = new Trie<String>();
+        trie.insert("Stra\u00DFe", "P3");
+        trie.insert("\u0391\u03B8\u03AE\u03BD\u03B1", "P4");
+
+        assertEquals(Collections.singletonList("P3"), trie.complete("STRASSE", 10));
+        assertEquals(Collections.singletonList("P4"), trie.complete("\u03B1\u03B8", 10));
+        assertTrue(new Trie<String>(false).complete("STRASSE", 10).isEmpty());
+    }
+
+    @Test
+    public void removeTheValue() {
+        Trie<String> trie = new Trie<String>();
+        trie.insert("Apple Pie", "P1");
+        trie.insert("apple juice", "P2");
+
+        assertTrue(trie.remove("apple juice", "P2"));
+        assertFalse(trie.remove("apple juice", "P2"));
+        assertFalse(trie.search("apple juice"));
+        assertEquals(Collections.singletonList("P1"), trie.complete("apple", 10));
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    public void footprintCountsTheNodes() {
+        Trie<String> trie = new Trie<String>();
+        trie.insert("apple", "P1");
+        trie.insert("apply", "P2");
+        trie.insert("banana", "P3");
+
+        Trie.Footprint footprint = trie.footprint();
+        assertEquals(3, footprint.getWords());
+        assertEquals(3, footprint.getValues());
+        // Root, "appl", "e", "y", "banana" (Path Compressed)
+        assertEquals(5, footprint.getNodes());
+        assertTrue(footprint.getBytes() > 0);
+    }
+
+    @Test
+    public void readsAreConsistentDuringWrites() throws Exception {
+        Trie<Integer> trie = new Trie<Integer>();
+        int words = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                start.await();
+                for(int x=0; x<words; x++) {
+                    trie.insert("product " + x, x, x);
+                }
+                return null;
+            });
+            List<Future<?>> readers = new ArrayList<Future<?>>();
+            for(int r=0; r<3; r++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    while(!writer.isDone()) {
+                        List<Integer> top = trie.complete("product", 5);
+                        // Top K by Weight = Descending
+                        for(int x=1; x<top.size(); x++) {
+                            assertTrue(top.get(x - 1) > top.get(x));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            writer.get(30, TimeUnit.SECONDS);
+            for(Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(words, trie.size());
+        assertEquals(Arrays.asList(words - 1, words - 2, words - 3), trie.complete("PRODUCT", 3));
+    }
+}